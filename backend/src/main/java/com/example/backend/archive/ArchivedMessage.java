@@ -0,0 +1,9 @@
+package com.example.backend.archive;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một tin nhắn bên trong block lưu trữ (conversation nằm ở block)
+ */
+public record ArchivedMessage(Long id, Long senderId, String content, String messageType, LocalDateTime createdAt) {
+}
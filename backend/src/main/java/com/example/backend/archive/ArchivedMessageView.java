@@ -0,0 +1,22 @@
+package com.example.backend.archive;
+
+import com.example.backend.repository.MessageRepository;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tin nhắn đọc từ block lưu trữ, cùng dạng với projection của tin nhắn còn trong bảng messages
+ */
+@Value
+public class ArchivedMessageView implements MessageRepository.MessageView {
+
+    Long id;
+    Long conversationId;
+    Long senderId;
+    String senderUsername;
+    String senderAvatarUrl;
+    String content;
+    String messageType;
+    LocalDateTime createdAt;
+}
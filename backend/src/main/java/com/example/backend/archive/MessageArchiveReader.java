@@ -0,0 +1,286 @@
+package com.example.backend.archive;
+
+import com.example.backend.cache.BoundedCache;
+import com.example.backend.cache.UserProfileCache;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.MessageRepository.MessageView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Đọc xuyên (read-through) vào các block lưu trữ của một conversation
+ * (xem {@link com.example.backend.service.MessageArchiveService}).
+ *
+ * Tin nhắn được lưu trữ theo thứ tự id từ cũ nhất nên block luôn cũ hơn mọi tin nhắn còn trong bảng messages:
+ * API lịch sử đọc bảng messages trước, chỉ khi hết mới đọc tiếp sang block.
+ * Metadata block (không kèm payload) được đọc theo trang nhỏ; payload đã giải nén được cache theo id block
+ * (block không bao giờ bị ghi lại nên không cần invalidate). Tin nhắn của user đã bị xoá bị bỏ qua,
+ * giống ON DELETE CASCADE của bảng messages.
+ */
+@Component
+public class MessageArchiveReader implements MetricsSource {
+
+    private static final String BLOCK_COLUMNS =
+            "SELECT id, first_message_id, last_message_id, message_count FROM message_archive_blocks ";
+    private static final int METADATA_PAGE_SIZE = 4;
+
+    private static final RowMapper<Block> BLOCK_MAPPER = (rs, rowNum) ->
+            new Block(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getInt(4));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserProfileCache userProfileCache;
+    private final BoundedCache<Long, List<ArchivedMessage>> decodedBlocks;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readMessages = new LongAdder();
+    private final LongAdder totalReadMicros = new LongAdder();
+    private final AtomicLong maxReadMicros = new AtomicLong();
+    private final LongAdder blockLoads = new LongAdder();
+    private final LongAdder loadedCompressedBytes = new LongAdder();
+
+    public MessageArchiveReader(JdbcTemplate jdbcTemplate,
+                                UserProfileCache userProfileCache,
+                                @Value("${app.messages.archive.block-cache.max-size:500}") int maxSize,
+                                @Value("${app.messages.archive.block-cache.ttl:PT10M}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userProfileCache = userProfileCache;
+        this.decodedBlocks = new BoundedCache<>("archiveBlocks", maxSize, ttl);
+    }
+
+    /**
+     * Tin nhắn lưu trữ có id < beforeId (mới -> cũ)
+     */
+    public List<MessageView> findBefore(Long conversationId, long beforeId, int limit) {
+        return timed(() -> {
+            List<MessageView> result = new ArrayList<>(limit);
+            // Block chứa beforeId (nếu có), sau đó các block nằm trọn trước nó
+            Optional<Block> containing = findBlockEndingAtOrAfter(conversationId, beforeId)
+                    .filter(block -> block.firstMessageId() < beforeId);
+            if (containing.isPresent()) {
+                collectDescending(conversationId, containing.get(), beforeId, limit, result);
+            }
+
+            long cursor = containing.map(Block::firstMessageId).orElse(beforeId);
+            while (result.size() < limit) {
+                List<Block> blocks = jdbcTemplate.query(BLOCK_COLUMNS +
+                        "WHERE conversation_id = ? AND last_message_id < ? " +
+                        "ORDER BY last_message_id DESC LIMIT ?",
+                        BLOCK_MAPPER, conversationId, cursor, METADATA_PAGE_SIZE);
+                for (Block block : blocks) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    collectDescending(conversationId, block, beforeId, limit, result);
+                }
+                if (blocks.size() < METADATA_PAGE_SIZE) {
+                    break;
+                }
+                cursor = blocks.get(blocks.size() - 1).lastMessageId();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Tin nhắn lưu trữ có afterId < id < upToId (cũ -> mới)
+     */
+    public List<MessageView> findAfter(Long conversationId, long afterId, long upToId, int limit) {
+        return timed(() -> {
+            List<MessageView> result = new ArrayList<>(limit);
+            long cursor = afterId;
+            while (result.size() < limit) {
+                List<Block> blocks = jdbcTemplate.query(BLOCK_COLUMNS +
+                        "WHERE conversation_id = ? AND last_message_id > ? " +
+                        "ORDER BY last_message_id ASC LIMIT ?",
+                        BLOCK_MAPPER, conversationId, cursor, METADATA_PAGE_SIZE);
+                for (Block block : blocks) {
+                    if (block.firstMessageId() >= upToId) {
+                        return result;
+                    }
+                    for (ArchivedMessage message : load(block)) {
+                        if (result.size() >= limit) {
+                            return result;
+                        }
+                        if (message.id() > afterId && message.id() < upToId) {
+                            toView(conversationId, message).ifPresent(result::add);
+                        }
+                    }
+                }
+                if (blocks.size() < METADATA_PAGE_SIZE) {
+                    break;
+                }
+                cursor = blocks.get(blocks.size() - 1).lastMessageId();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Trang theo offset trong phần lưu trữ (mới -> cũ); bỏ qua nguyên block theo message_count mà không giải nén
+     */
+    public List<MessageView> findPage(Long conversationId, long offset, int limit) {
+        return timed(() -> {
+            List<MessageView> result = new ArrayList<>(limit);
+            long skip = offset;
+            long cursor = Long.MAX_VALUE;
+            while (result.size() < limit) {
+                List<Block> blocks = jdbcTemplate.query(BLOCK_COLUMNS +
+                        "WHERE conversation_id = ? AND last_message_id < ? " +
+                        "ORDER BY last_message_id DESC LIMIT ?",
+                        BLOCK_MAPPER, conversationId, cursor, METADATA_PAGE_SIZE);
+                for (Block block : blocks) {
+                    if (skip >= block.messageCount()) {
+                        skip -= block.messageCount();
+                        continue;
+                    }
+                    List<ArchivedMessage> messages = load(block);
+                    for (int i = messages.size() - 1 - (int) skip; i >= 0 && result.size() < limit; i--) {
+                        toView(conversationId, messages.get(i)).ifPresent(result::add);
+                    }
+                    skip = 0;
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                }
+                if (blocks.size() < METADATA_PAGE_SIZE) {
+                    break;
+                }
+                cursor = blocks.get(blocks.size() - 1).lastMessageId();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Số tin nhắn đã lưu trữ của conversation
+     */
+    public long countArchived(Long conversationId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(message_count), 0) FROM message_archive_blocks WHERE conversation_id = ?",
+                Long.class, conversationId);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Tin nhắn lưu trữ theo id (kết quả tìm kiếm); id không có trong block nào bị bỏ qua
+     */
+    public List<MessageView> findByIds(Long conversationId, Collection<Long> ids) {
+        return timed(() -> {
+            List<MessageView> result = new ArrayList<>(ids.size());
+            TreeSet<Long> remaining = new TreeSet<>(ids);
+            while (!remaining.isEmpty()) {
+                long id = remaining.pollFirst();
+                Optional<Block> block = findBlockEndingAtOrAfter(conversationId, id)
+                        .filter(b -> b.firstMessageId() <= id);
+                if (block.isEmpty()) {
+                    continue;
+                }
+                // Các id khác nằm trong cùng block được lấy luôn
+                TreeSet<Long> wanted = new TreeSet<>(remaining.headSet(block.get().lastMessageId(), true));
+                wanted.add(id);
+                remaining.removeAll(wanted);
+                for (ArchivedMessage message : load(block.get())) {
+                    if (wanted.contains(message.id())) {
+                        toView(conversationId, message).ifPresent(result::add);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    private Optional<Block> findBlockEndingAtOrAfter(Long conversationId, long messageId) {
+        return jdbcTemplate.query(BLOCK_COLUMNS +
+                "WHERE conversation_id = ? AND last_message_id >= ? " +
+                "ORDER BY last_message_id ASC LIMIT 1",
+                BLOCK_MAPPER, conversationId, messageId).stream().findFirst();
+    }
+
+    private void collectDescending(Long conversationId, Block block, long beforeId, int limit, List<MessageView> result) {
+        List<ArchivedMessage> messages = load(block);
+        for (int i = messages.size() - 1; i >= 0 && result.size() < limit; i--) {
+            ArchivedMessage message = messages.get(i);
+            if (message.id() < beforeId) {
+                toView(conversationId, message).ifPresent(result::add);
+            }
+        }
+    }
+
+    private List<ArchivedMessage> load(Block block) {
+        Optional<List<ArchivedMessage>> cached = decodedBlocks.get(block.id());
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        blockLoads.increment();
+        List<ArchivedMessage> messages = jdbcTemplate.queryForObject(
+                "SELECT codec, raw_bytes, payload FROM message_archive_blocks WHERE id = ?",
+                (rs, rowNum) -> {
+                    byte[] payload = rs.getBytes(3);
+                    loadedCompressedBytes.add(payload.length);
+                    return MessageBlockCodec.decode(rs.getString(1), payload, rs.getInt(2));
+                },
+                block.id());
+        decodedBlocks.put(block.id(), messages);
+        return messages;
+    }
+
+    private Optional<MessageView> toView(Long conversationId, ArchivedMessage message) {
+        return userProfileCache.getById(message.senderId())
+                .map(sender -> new ArchivedMessageView(
+                        message.id(),
+                        conversationId,
+                        sender.getId(),
+                        sender.getUsername(),
+                        sender.getAvatarUrl(),
+                        message.content(),
+                        message.messageType(),
+                        message.createdAt()));
+    }
+
+    private List<MessageView> timed(Supplier<List<MessageView>> read) {
+        long startedAt = System.nanoTime();
+        List<MessageView> result = read.get();
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+        reads.increment();
+        readMessages.add(result.size());
+        totalReadMicros.add(elapsedMicros);
+        maxReadMicros.accumulateAndGet(elapsedMicros, Math::max);
+        return result;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "messages.archiveReads";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long readCount = reads.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>(decodedBlocks.stats());
+        metrics.put("reads", readCount);
+        metrics.put("readMessages", readMessages.sum());
+        metrics.put("avgReadMs", readCount == 0 ? 0.0 : totalReadMicros.sum() / 1000.0 / readCount);
+        metrics.put("maxReadMs", maxReadMicros.get() / 1000.0);
+        metrics.put("blockLoads", blockLoads.sum());
+        metrics.put("loadedCompressedBytes", loadedCompressedBytes.sum());
+        return metrics;
+    }
+
+    private record Block(long id, long firstMessageId, long lastMessageId, int messageCount) {
+    }
+}
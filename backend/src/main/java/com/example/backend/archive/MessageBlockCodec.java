@@ -0,0 +1,125 @@
+package com.example.backend.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Mã hoá một block tin nhắn lưu trữ: serialize nhị phân (id, sender, created_at, type, content)
+ * rồi nén deflate. Block chỉ ghi một lần nên dùng mức nén cao nhất.
+ */
+public final class MessageBlockCodec {
+
+    public static final String CODEC = "deflate";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private MessageBlockCodec() {
+    }
+
+    public static Encoded encode(List<ArchivedMessage> messages) {
+        byte[] raw = serialize(messages);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return new Encoded(out.toByteArray(), raw.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static List<ArchivedMessage> decode(String codec, byte[] payload, int rawBytes) {
+        if (!CODEC.equals(codec)) {
+            throw new IllegalStateException("Unsupported archive codec: " + codec);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            byte[] raw = new byte[rawBytes];
+            int length = 0;
+            while (length < rawBytes && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawBytes - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawBytes) {
+                throw new IllegalStateException("Corrupt archive block: expected " + rawBytes + " bytes, got " + length);
+            }
+            return deserialize(raw);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] serialize(List<ArchivedMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(messages.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(messages.size());
+            for (ArchivedMessage message : messages) {
+                out.writeLong(message.id());
+                out.writeLong(message.senderId());
+                out.writeLong(message.createdAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(message.createdAt().getNano());
+                out.writeBoolean(message.messageType() != null);
+                if (message.messageType() != null) {
+                    out.writeUTF(message.messageType());
+                }
+                byte[] content = message.content().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(content.length);
+                out.write(content);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ArchivedMessage> deserialize(byte[] raw) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported archive format version: " + version);
+            }
+            int count = in.readInt();
+            List<ArchivedMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                long senderId = in.readLong();
+                LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                String messageType = in.readBoolean() ? in.readUTF() : null;
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                messages.add(new ArchivedMessage(id, senderId, new String(content, StandardCharsets.UTF_8),
+                        messageType, createdAt));
+            }
+            return messages;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record Encoded(byte[] payload, int rawBytes) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.backend.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Near-cache in-process: LRU có giới hạn kích thước + TTL cho từng entry.
+ * Dùng làm tầng cache cục bộ trên mỗi node (tương tự Caffeine nhưng không cần thêm dependency).
+ *
+ * Thread-safe. Các counter hit/miss/eviction dùng LongAdder để không tranh chấp khi đọc song song.
+ */
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public BoundedCache(String name, int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder = true -> LRU
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Optional<V> get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            if (entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                expirations.increment();
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(entry.value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    /**
+     * Put với TTL riêng (ví dụ: cache claims của JWT đến đúng thời điểm hết hạn)
+     */
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, Math.min(ttl.toNanos(), ttlNanos));
+    }
+
+    private void put(K key, V value, long entryTtlNanos) {
+        if (entryTtlNanos <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, System.nanoTime() + entryTtlNanos));
+            evictOverflow();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Xoá entry và trả về giá trị cũ (nếu còn hạn), không tính vào hit/miss
+     */
+    public Optional<V> remove(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.remove(key);
+            if (entry == null || entry.isExpired(System.nanoTime())) {
+                return Optional.empty();
+            }
+            return Optional.of(entry.value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Snapshot các chỉ số để expose qua MetricsSource
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.backend.cache;
+
+import com.example.backend.entity.Conversation;
+import com.example.backend.event.ConversationMembersChangedEvent;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.ConversationParticipantRepository;
+import com.example.backend.repository.ConversationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache thành viên theo conversation (conversationId -> tập userId), dùng để kiểm tra quyền gửi tin nhắn,
+ * đọc lịch sử và subscribe topic của nhóm mà không query conversation_participants mỗi lần.
+ *
+ * Invalidate qua {@link ConversationMembersChangedEvent} sau khi transaction commit; giống
+ * {@link UserProfileCache}, một lần load chỉ được ghi nếu không có invalidate nào xảy ra trong lúc load.
+ */
+@Component
+@Slf4j
+public class ConversationMembershipCache implements MetricsSource {
+
+    private final ConversationRepository conversationRepository;
+    private final ConversationParticipantRepository participantRepository;
+    private final BoundedCache<Long, Members> members;
+
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+    private final LongAdder loads = new LongAdder();
+
+    public ConversationMembershipCache(ConversationRepository conversationRepository,
+                                       ConversationParticipantRepository participantRepository,
+                                       @Value("${app.cache.conversation-members.max-size:10000}") int maxSize,
+                                       @Value("${app.cache.conversation-members.ttl:PT10M}") Duration ttl) {
+        this.conversationRepository = conversationRepository;
+        this.participantRepository = participantRepository;
+        this.members = new BoundedCache<>("conversationMembers", maxSize, ttl);
+    }
+
+    /**
+     * Loại conversation + tập userId thành viên; empty nếu conversation không tồn tại
+     */
+    public Optional<Members> get(Long conversationId) {
+        Optional<Members> cached = members.get(conversationId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return load(conversationId);
+    }
+
+    public boolean isMember(Long conversationId, Long userId) {
+        return get(conversationId).map(m -> m.userIds().contains(userId)).orElse(false);
+    }
+
+    public void invalidate(Long conversationId) {
+        invalidationGeneration.incrementAndGet();
+        members.invalidate(conversationId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleMembersChanged(ConversationMembersChangedEvent event) {
+        invalidate(event.getConversationId());
+        log.debug("Invalidated member cache for conversation {}", event.getConversationId());
+    }
+
+    private Optional<Members> load(Long conversationId) {
+        long generation = invalidationGeneration.get();
+        loads.increment();
+        Optional<Conversation.ConversationType> type = conversationRepository.findTypeById(conversationId);
+        if (type.isEmpty()) {
+            return Optional.empty();
+        }
+        Members loaded = new Members(type.get(),
+                Set.copyOf(participantRepository.findUserIdsByConversationId(conversationId)));
+        if (invalidationGeneration.get() == generation) {
+            members.put(conversationId, loaded);
+        }
+        return Optional.of(loaded);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cache.conversationMembers";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(members.stats());
+        metrics.put("loads", loads.sum());
+        return metrics;
+    }
+
+    public record Members(Conversation.ConversationType type, Set<Long> userIds) {
+
+        public boolean isGroup() {
+            return type == Conversation.ConversationType.GROUP;
+        }
+    }
+}
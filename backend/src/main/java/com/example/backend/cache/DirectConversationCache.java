@@ -0,0 +1,64 @@
+package com.example.backend.cache;
+
+import com.example.backend.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache cặp user -> conversation 1-1. Quan hệ này không đổi sau khi tạo nên chỉ cần TTL để giới hạn bộ nhớ.
+ * Giá trị chỉ được ghi sau khi transaction commit (conversation vừa tạo trong transaction bị rollback
+ * không được lọt vào cache).
+ */
+@Component
+public class DirectConversationCache implements MetricsSource {
+
+    private final BoundedCache<Pair, Long> conversations;
+
+    public DirectConversationCache(@Value("${app.cache.direct-conversations.max-size:100000}") int maxSize,
+                                   @Value("${app.cache.direct-conversations.ttl:PT1H}") Duration ttl) {
+        this.conversations = new BoundedCache<>("directConversations", maxSize, ttl);
+    }
+
+    public Optional<Long> get(Pair pair) {
+        return conversations.get(pair);
+    }
+
+    public void putAfterCommit(Pair pair, Long conversationId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    conversations.put(pair, conversationId);
+                }
+            });
+        } else {
+            conversations.put(pair, conversationId);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cache.directConversations";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return conversations.stats();
+    }
+
+    /**
+     * Cặp user chuẩn hoá: lo < hi
+     */
+    public record Pair(long lo, long hi) {
+
+        public static Pair of(Long userId1, Long userId2) {
+            return userId1 < userId2 ? new Pair(userId1, userId2) : new Pair(userId2, userId1);
+        }
+    }
+}
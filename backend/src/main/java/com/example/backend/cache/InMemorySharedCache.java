@@ -0,0 +1,55 @@
+package com.example.backend.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in in-memory cho {@link SharedCache}.
+ * Có cùng semantics TTL như một store bên ngoài, nhưng dữ liệu chỉ sống trong JVM hiện tại.
+ */
+public class InMemorySharedCache implements SharedCache {
+
+    private final ConcurrentHashMap<String, Entry> store = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public InMemorySharedCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        Entry entry = store.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (System.currentTimeMillis() >= entry.expiresAtMillis) {
+            store.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value);
+    }
+
+    @Override
+    public void put(String key, Object value, Duration ttl) {
+        if (store.size() >= maxEntries) {
+            purgeExpired();
+        }
+        if (store.size() < maxEntries || store.containsKey(key)) {
+            store.put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+        store.remove(key);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        store.entrySet().removeIf(e -> now >= e.getValue().expiresAtMillis);
+    }
+
+    private record Entry(Object value, long expiresAtMillis) {
+    }
+}
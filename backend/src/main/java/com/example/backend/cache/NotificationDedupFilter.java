@@ -0,0 +1,97 @@
+package com.example.backend.cache;
+
+import com.example.backend.entity.Notification;
+import com.example.backend.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lọc notification trùng trong cửa sổ thời gian (like/unlike/like liên tục, event outbox giao lại...)
+ * trước khi chạm DB. Key là (recipient, sender, type, post); post null (NEW_FOLLOWER) so sánh null-safe.
+ *
+ * Set có hạn dùng: mỗi key lưu thời điểm hết hạn, kiểm tra + ghi bằng một compute() nguyên tử
+ * trên ConcurrentHashMap => O(1), nhiều event trùng đồng thời chỉ đúng một event đi qua.
+ * Kích thước bị giới hạn; khi đầy thì cho qua mà không ghi nhớ (upsert gom nhóm vẫn chặn actor trùng).
+ */
+@Component
+public class NotificationDedupFilter implements MetricsSource {
+
+    private final ConcurrentHashMap<Key, Long> seen = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxSize;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    public NotificationDedupFilter(@Value("${app.notifications.dedup.window:PT1M}") Duration window,
+                                   @Value("${app.notifications.dedup.max-size:100000}") int maxSize) {
+        this.windowNanos = window.toNanos();
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * true nếu chưa thấy key trong cửa sổ (và ghi nhớ key); false nếu là bản trùng
+     */
+    public boolean tryAcquire(Key key) {
+        long now = System.nanoTime();
+        if (seen.size() >= maxSize && !seen.containsKey(key)) {
+            overflows.increment();
+            accepted.increment();
+            return true;
+        }
+        AtomicBoolean acquired = new AtomicBoolean();
+        seen.compute(key, (k, expiresAt) -> {
+            if (expiresAt != null && expiresAt - now > 0) {
+                return expiresAt;
+            }
+            acquired.set(true);
+            return now + windowNanos;
+        });
+        (acquired.get() ? accepted : duplicates).increment();
+        return acquired.get();
+    }
+
+    /**
+     * Quên key (ví dụ transaction tạo notification bị rollback, để lần giao lại không bị coi là trùng)
+     */
+    public void release(Key key) {
+        seen.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.dedup.sweep-interval:PT30S}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        seen.values().removeIf(expiresAt -> expiresAt - now <= 0);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "notifications.dedup";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", seen.size());
+        metrics.put("maxSize", maxSize);
+        metrics.put("accepted", accepted.sum());
+        metrics.put("duplicates", duplicates.sum());
+        metrics.put("overflows", overflows.sum());
+        return metrics;
+    }
+
+    /**
+     * Record nên equals/hashCode null-safe với postId null
+     */
+    public record Key(Long recipientId, Long senderId, Notification.NotificationType type, Long postId) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.backend.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Tầng cache dùng chung giữa các node (ví dụ Redis).
+ * Key dạng String để map thẳng sang key của store bên ngoài.
+ *
+ * Bản mặc định là {@link InMemorySharedCache} - chỉ là stand-in để chạy một node / môi trường dev.
+ */
+public interface SharedCache {
+
+    Optional<Object> get(String key);
+
+    void put(String key, Object value, Duration ttl);
+
+    void evict(String key);
+}
@@ -0,0 +1,65 @@
+package com.example.backend.cache;
+
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.NotificationBadgeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đếm notification chưa đọc in-memory theo user.
+ * - Seed lazily từ notification_badge (một dòng theo primary key) khi cần lần đầu
+ * - Sau đó chỉ cộng/trừ delta khi tạo notification / mark read (sau khi transaction commit)
+ * TTL giới hạn sai lệch có thể tích luỹ do thứ tự áp dụng delta giữa các node: hết TTL thì đọc lại badge.
+ */
+@Component
+public class UnreadNotificationCounter implements MetricsSource {
+
+    private final NotificationBadgeRepository badgeRepository;
+    private final BoundedCache<Long, AtomicLong> counters;
+
+    public UnreadNotificationCounter(NotificationBadgeRepository badgeRepository,
+                                     @Value("${app.cache.unread-notifications.max-size:100000}") int maxSize,
+                                     @Value("${app.cache.unread-notifications.ttl:PT10M}") Duration ttl) {
+        this.badgeRepository = badgeRepository;
+        this.counters = new BoundedCache<>("unreadNotifications", maxSize, ttl);
+    }
+
+    public long get(Long userId) {
+        return counters.get(userId)
+                .orElseGet(() -> seed(userId))
+                .get();
+    }
+
+    /**
+     * Áp dụng delta và trả về giá trị mới. Chưa có trong cache thì seed từ DB
+     * (DB đã phản ánh thay đổi vì được gọi sau commit nên không cộng delta nữa).
+     */
+    public long adjust(Long userId, long delta) {
+        Optional<AtomicLong> counter = counters.get(userId);
+        if (counter.isEmpty()) {
+            return seed(userId).get();
+        }
+        return counter.get().updateAndGet(current -> Math.max(0, current + delta));
+    }
+
+    private AtomicLong seed(Long userId) {
+        AtomicLong counter = new AtomicLong(badgeRepository.findUnreadCount(userId).orElse(0));
+        counters.put(userId, counter);
+        return counter;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cache.unreadNotifications";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return counters.stats();
+    }
+}
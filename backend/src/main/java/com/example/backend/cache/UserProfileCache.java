@@ -0,0 +1,171 @@
+package com.example.backend.cache;
+
+import com.example.backend.entity.User;
+import com.example.backend.event.UserProfileChangedEvent;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.FollowerRepository;
+import com.example.backend.repository.PostRepository;
+import com.example.backend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache 2 tầng cho profile (phần không phụ thuộc viewer):
+ * - Tầng 1: near-cache {@link BoundedCache} trên mỗi node, key theo id, kèm index username -> id
+ * - Tầng 2 (optional): {@link SharedCache} dùng chung giữa các node
+ *
+ * Invalidate qua {@link UserProfileChangedEvent} sau khi transaction commit.
+ */
+@Component
+@Slf4j
+public class UserProfileCache implements MetricsSource {
+
+    private static final String SHARED_KEY_PREFIX = "profile:";
+
+    private final UserRepository userRepository;
+    private final FollowerRepository followerRepository;
+    private final PostRepository postRepository;
+    private final SharedCache sharedCache;
+    private final Duration sharedTtl;
+
+    private final BoundedCache<Long, UserProfileSnapshot> byId;
+    private final BoundedCache<String, Long> idByUsername;
+
+    /**
+     * Tăng mỗi lần invalidate; một lần load chỉ được ghi vào cache nếu không có invalidate nào
+     * xảy ra trong lúc đang load (tránh ghi đè snapshot cũ sau khi đã bị evict).
+     */
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    public UserProfileCache(UserRepository userRepository,
+                            FollowerRepository followerRepository,
+                            PostRepository postRepository,
+                            ObjectProvider<SharedCache> sharedCacheProvider,
+                            @Value("${app.cache.profile.max-size:10000}") int maxSize,
+                            @Value("${app.cache.profile.ttl:PT5M}") Duration ttl,
+                            @Value("${app.cache.profile.shared-ttl:PT15M}") Duration sharedTtl) {
+        this.userRepository = userRepository;
+        this.followerRepository = followerRepository;
+        this.postRepository = postRepository;
+        this.sharedCache = sharedCacheProvider.getIfAvailable();
+        this.sharedTtl = sharedTtl;
+        this.byId = new BoundedCache<>("userProfile.byId", maxSize, ttl);
+        this.idByUsername = new BoundedCache<>("userProfile.idByUsername", maxSize, ttl);
+    }
+
+    public Optional<UserProfileSnapshot> getById(Long userId) {
+        Optional<UserProfileSnapshot> cached = byId.get(userId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        long generation = invalidationGeneration.get();
+        Optional<UserProfileSnapshot> fromShared = getShared(userId);
+        if (fromShared.isPresent()) {
+            storeLocal(fromShared.get(), generation);
+            return fromShared;
+        }
+
+        return userRepository.findById(userId).map(user -> load(user, generation));
+    }
+
+    public Optional<UserProfileSnapshot> getByUsername(String username) {
+        Optional<Long> userId = idByUsername.get(username);
+        if (userId.isPresent()) {
+            Optional<UserProfileSnapshot> snapshot = getById(userId.get());
+            // Username không đổi được, nhưng vẫn check phòng trường hợp user đã bị xoá
+            if (snapshot.isPresent() && username.equals(snapshot.get().getUsername())) {
+                return snapshot;
+            }
+            idByUsername.invalidate(username);
+        }
+
+        long generation = invalidationGeneration.get();
+        return userRepository.findByUsername(username).map(user -> load(user, generation));
+    }
+
+    public void invalidate(Long userId) {
+        invalidationGeneration.incrementAndGet();
+        byId.remove(userId).ifPresent(snapshot -> idByUsername.invalidate(snapshot.getUsername()));
+        if (sharedCache != null) {
+            sharedCache.evict(SHARED_KEY_PREFIX + userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserProfileChanged(UserProfileChangedEvent event) {
+        event.getUserIds().forEach(this::invalidate);
+        log.debug("Invalidated profile cache for users {}", event.getUserIds());
+    }
+
+    private UserProfileSnapshot load(User user, long generation) {
+        loads.increment();
+        Long userId = user.getId();
+        UserProfileSnapshot snapshot = UserProfileSnapshot.builder()
+                .id(userId)
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .avatarUrl(user.getAvatarUrl())
+                .bio(user.getBio())
+                .followersCount(followerRepository.countByFollowingId(userId))
+                .followingCount(followerRepository.countByFollowerId(userId))
+                .postsCount(postRepository.countByUserId(userId))
+                .createdAt(user.getCreatedAt())
+                .build();
+
+        if (storeLocal(snapshot, generation) && sharedCache != null) {
+            sharedCache.put(SHARED_KEY_PREFIX + userId, snapshot, sharedTtl);
+        }
+        return snapshot;
+    }
+
+    private boolean storeLocal(UserProfileSnapshot snapshot, long generation) {
+        if (invalidationGeneration.get() != generation) {
+            return false;
+        }
+        byId.put(snapshot.getId(), snapshot);
+        idByUsername.put(snapshot.getUsername(), snapshot.getId());
+        return true;
+    }
+
+    private Optional<UserProfileSnapshot> getShared(Long userId) {
+        if (sharedCache == null) {
+            return Optional.empty();
+        }
+        Optional<UserProfileSnapshot> snapshot = sharedCache.get(SHARED_KEY_PREFIX + userId)
+                .filter(UserProfileSnapshot.class::isInstance)
+                .map(UserProfileSnapshot.class::cast);
+        snapshot.ifPresent(s -> sharedHits.increment());
+        return snapshot;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cache.userProfile";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("byId", byId.stats());
+        metrics.put("idByUsername", idByUsername.stats());
+        metrics.put("sharedTierEnabled", sharedCache != null);
+        metrics.put("sharedHits", sharedHits.sum());
+        metrics.put("loads", loads.sum());
+        return metrics;
+    }
+}
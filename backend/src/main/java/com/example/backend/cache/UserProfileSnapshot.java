@@ -0,0 +1,29 @@
+package com.example.backend.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Phần dữ liệu profile không phụ thuộc vào người xem.
+ * isFollowing phụ thuộc viewer nên không nằm ở đây, được tính riêng khi build UserResponse.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class UserProfileSnapshot implements Serializable {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String fullName;
+    private final String avatarUrl;
+    private final String bio;
+    private final Long followersCount;
+    private final Long followingCount;
+    private final Long postsCount;
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,105 @@
+package com.example.backend.config;
+
+import com.example.backend.metrics.ExecutorMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Mô hình async: mỗi loại công việc một executor riêng, có giới hạn (thread + queue) và rejection policy riêng,
+ * để một loại việc chậm (API ngoài, upload) không chiếm hết thread của loại khác.
+ * Kích thước cấu hình qua app.async.&lt;tên&gt;.core-size / max-size / queue-capacity.
+ * Số liệu bão hoà xem ở /api/admin/metrics (executors).
+ */
+@Configuration
+@EnableAsync
+@RequiredArgsConstructor
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+    public static final String PUSH_EXECUTOR = "pushExecutor";
+    public static final String MEDIA_EXECUTOR = "mediaExecutor";
+    public static final String CHATBOT_EXECUTOR = "chatbotExecutor";
+
+    private final Environment environment;
+    private final ExecutorMetrics executorMetrics;
+
+    /**
+     * Xử lý event từ outbox (tạo notification). Đầy thì từ chối: event vẫn nằm trong outbox
+     * và được relay lấy lại khi hết lease.
+     */
+    @Bean(name = NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        return newExecutor(NOTIFICATION_EXECUTOR, "notification-", 4, 8, 500,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Push real-time qua WebSocket. Best-effort: đầy thì bỏ push cũ nhất (client vẫn đồng bộ lại qua REST).
+     * Chỉ gửi đi; trạng thái (vd. bộ đếm chưa đọc) phải được cập nhật trước khi giao việc cho executor này.
+     */
+    @Bean(name = PUSH_EXECUTOR)
+    public ThreadPoolTaskExecutor pushExecutor() {
+        return newExecutor(PUSH_EXECUTOR, "push-", 2, 4, 1000,
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    /**
+     * Thao tác với Cloudinary (xoá file). Đầy thì chạy luôn trên thread gọi (làm chậm lại nguồn tạo việc).
+     */
+    @Bean(name = MEDIA_EXECUTOR)
+    public ThreadPoolTaskExecutor mediaExecutor() {
+        return newExecutor(MEDIA_EXECUTOR, "media-", 2, 4, 200,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Gọi Gemini API (trả phí, chậm). Giới hạn số lời gọi đồng thời; đầy thì từ chối ngay.
+     */
+    @Bean(name = CHATBOT_EXECUTOR)
+    public ThreadPoolTaskExecutor chatbotExecutor() {
+        return newExecutor(CHATBOT_EXECUTOR, "chatbot-", 4, 8, 50,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @Async không chỉ định executor => dùng executor của notification
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return notificationExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Uncaught exception in async method {}", method.getName(), ex);
+    }
+
+    private ThreadPoolTaskExecutor newExecutor(String name, String threadPrefix,
+                                               int defaultCore, int defaultMax, int defaultQueue,
+                                               RejectedExecutionHandler rejectionPolicy) {
+        String prefix = "app.async." + name.replace("Executor", "") + ".";
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadPrefix);
+        executor.setCorePoolSize(environment.getProperty(prefix + "core-size", Integer.class, defaultCore));
+        executor.setMaxPoolSize(environment.getProperty(prefix + "max-size", Integer.class, defaultMax));
+        executor.setQueueCapacity(environment.getProperty(prefix + "queue-capacity", Integer.class, defaultQueue));
+        executor.setRejectedExecutionHandler(executorMetrics.countingRejections(name, rejectionPolicy));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        executorMetrics.register(name, executor);
+        return executor;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.backend.config;
+
+import com.example.backend.cache.InMemorySharedCache;
+import com.example.backend.cache.SharedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cấu hình tầng cache dùng chung (tầng 2).
+ * Tắt mặc định; khi bật mà chưa có store bên ngoài thì dùng bản in-memory.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.shared.enabled", havingValue = "true")
+    public SharedCache sharedCache(@Value("${app.cache.shared.max-entries:100000}") int maxEntries) {
+        return new InMemorySharedCache(maxEntries);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.backend.config;
+
+import java.time.Duration;
+
+/**
+ * Nghỉ giữa các lô của job bảo trì (chạy trên {@link SchedulingConfig#MAINTENANCE_SCHEDULER}) để nhường
+ * DB cho traffic thường
+ */
+public final class ChunkPause {
+
+    private ChunkPause() {
+    }
+
+    /**
+     * Ngủ trong khoảng pause (bỏ qua nếu bằng 0 / âm); false nếu thread bị interrupt (app đang tắt) để job dừng
+     */
+    public static boolean sleep(Duration pause) {
+        if (pause.isZero() || pause.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
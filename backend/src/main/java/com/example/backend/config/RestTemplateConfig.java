@@ -1,15 +1,28 @@
-
 package com.example.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Timeout bắt buộc cho lời gọi HTTP ra ngoài (Gemini): future.cancel(true) không ngắt được socket đang
+     * chờ đọc, nên thiếu read-timeout thì thread của chatbotExecutor bị giữ tới khi server bên kia tự đóng.
+     * Read-timeout mặc định bằng app.chatbot.response-timeout.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${app.http.connect-timeout:PT5S}") Duration connectTimeout,
+                                     @Value("${app.http.read-timeout:${app.chatbot.response-timeout:PT30S}}") Duration readTimeout) {
+        return builder
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Bật @Scheduled (đồng bộ deny-list, dọn token hết hạn...).
+ *
+ * Hai scheduler riêng thay cho scheduler một thread mặc định (Spring Boot không tự tạo taskScheduler vì
+ * WebSocket broker đã khai báo một TaskScheduler):
+ * - taskScheduler: job ngắn, chạy thường xuyên (outbox relay, flush read receipt, sync deny-list, typing...)
+ * - maintenanceTaskScheduler: job dài có nghỉ giữa các lô (lưu trữ tin nhắn, retention notification,
+ *   backfill search), để một lần chạy kéo dài không làm trễ các job ngắn
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String MAINTENANCE_SCHEDULER = "maintenanceTaskScheduler";
+
+    /**
+     * Tên "taskScheduler" để @Scheduled không chỉ định scheduler dùng bean này
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.scheduling.pool-size:4}") int poolSize) {
+        return newScheduler("scheduling-", poolSize);
+    }
+
+    @Bean(name = MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler maintenanceTaskScheduler(
+            @Value("${app.scheduling.maintenance.pool-size:2}") int poolSize) {
+        return newScheduler("maintenance-", poolSize);
+    }
+
+    private ThreadPoolTaskScheduler newScheduler(String threadPrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix(threadPrefix);
+        scheduler.setPoolSize(Math.max(1, poolSize));
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.backend.config;
 
+import com.example.backend.security.BoundedPasswordEncoder;
 import com.example.backend.security.CustomUserDetailsService;
 import com.example.backend.security.JwtAuthenticationEntryPoint;
 import com.example.backend.security.JwtAuthenticationFilter;
+import com.example.backend.security.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,16 +31,22 @@ public class SecurityConfig {
     private final CustomUserDetailsService customUserDetailsService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    
+    // Cost của BCrypt; hash cũ có cost thấp hơn sẽ được re-hash khi user đăng nhập thành công
+    @Value("${app.security.bcrypt-strength:10}")
+    private int bcryptStrength;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), passwordHashingExecutor);
     }
     
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(customUserDetailsService);
+        authProvider.setUserDetailsPasswordService(customUserDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
         return authProvider;
     }
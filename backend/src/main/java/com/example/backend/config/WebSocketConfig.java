@@ -1,6 +1,9 @@
 package com.example.backend.config;
 
-import com.example.backend.security.JwtTokenProvider;
+import com.example.backend.ratelimit.StompRateLimitInterceptor;
+import com.example.backend.security.JwtTokenVerifier;
+import com.example.backend.security.VerifiedToken;
+import com.example.backend.websocket.ConversationSubscriptionInterceptor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +26,8 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 
 import com.example.backend.security.CustomUserDetailsService;
 
+import java.util.Optional;
+
 /**
  * WebSocket Configuration cho Real-time Messaging
  */
@@ -33,8 +38,10 @@ import com.example.backend.security.CustomUserDetailsService;
 @Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
-    private final JwtTokenProvider jwtTokenProvider;
+    private final JwtTokenVerifier jwtTokenVerifier;
     private final CustomUserDetailsService customUserDetailsService;
+    private final StompRateLimitInterceptor stompRateLimitInterceptor;
+    private final ConversationSubscriptionInterceptor conversationSubscriptionInterceptor;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
@@ -77,7 +84,7 @@ public void registerStompEndpoints(StompEndpointRegistry registry) {
 
                 // Chỉ xử lý CONNECT commands
                 if (StompCommand.CONNECT.equals(accessor.getCommand())) {
-                    log.info("========== WEBSOCKET CONNECTION ATTEMPT ==========");
+                    log.debug("========== WEBSOCKET CONNECTION ATTEMPT ==========");
                     
                     try {
                         // Lấy JWT token từ Authorization header
@@ -91,46 +98,33 @@ public void registerStompEndpoints(StompEndpointRegistry registry) {
                                 token.length() > 20 ? token.substring(0, 20) : token);
                             
                             // Validate token
-                            if (jwtTokenProvider.validateToken(token)) {
-                                // ⭐ FIX: Sử dụng đúng method name
-                                // Thử cả 2 variants phổ biến
-                                Long userId = null;
-                                try {
-                                    // Variant 1: getUserIdFromJWT
-                                    userId = jwtTokenProvider.getUserIdFromToken(token);
-                                } catch (Exception e) {
-                                    try {
-                                        // Variant 2: getUserIdFromToken
-                                        userId = jwtTokenProvider.getUserIdFromToken(token);
-                                    } catch (Exception e2) {
-                                        log.error("❌ Failed to extract userId from token", e2);
-                                    }
-                                }
+                            Optional<VerifiedToken> verifiedToken = jwtTokenVerifier.verify(token);
+                            if (verifiedToken.isPresent()) {
+                                Long userId = verifiedToken.get().getUserId();
+                                log.debug("✅ Token validated successfully for user ID: {}", userId);
+
+                                // Load user details (từ claims / cache, không cần query DB)
+                                UserDetails userDetails = customUserDetailsService.loadUserFromToken(
+                                        userId,
+                                        verifiedToken.get().getUsername(),
+                                        verifiedToken.get().getRole()
+                                );
+                                log.debug("User details loaded: {}", userDetails.getUsername());
+
+                                // Create authentication
+                                UsernamePasswordAuthenticationToken authentication =
+                                    new UsernamePasswordAuthenticationToken(
+                                        userDetails,
+                                        null,
+                                        userDetails.getAuthorities()
+                                    );
+
+                                // Set authentication in context and accessor
+                                SecurityContextHolder.getContext().setAuthentication(authentication);
+                                accessor.setUser(authentication);
 
-                                if (userId != null) {
-                                    log.info("✅ Token validated successfully for user ID: {}", userId);
-                                    
-                                    // Load user details
-                                    UserDetails userDetails = customUserDetailsService.loadUserById(userId);
-                                    log.debug("User details loaded: {}", userDetails.getUsername());
-                                    
-                                    // Create authentication
-                                    UsernamePasswordAuthenticationToken authentication = 
-                                        new UsernamePasswordAuthenticationToken(
-                                            userDetails, 
-                                            null, 
-                                            userDetails.getAuthorities()
-                                        );
-                                    
-                                    // Set authentication in context and accessor
-                                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                                    accessor.setUser(authentication);
-                                    
-                                    log.info("✅ WebSocket authenticated for user: {}", userDetails.getUsername());
-                                    log.info("==================================================");
-                                } else {
-                                    log.error("❌ Failed to extract user ID from valid token");
-                                }
+                                log.debug("✅ WebSocket authenticated for user: {}", userDetails.getUsername());
+                                log.debug("==================================================");
                             } else {
                                 log.warn("⚠️ Token validation failed - Invalid token");
                             }
@@ -145,8 +139,14 @@ public void registerStompEndpoints(StompEndpointRegistry registry) {
                 
                 return message;
             }
-        });
+        }, stompRateLimitInterceptor, conversationSubscriptionInterceptor);
         
         log.info("✅ WebSocket channel interceptor configured");
     }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Kiểm tra lại quyền thành viên khi giao tin nhắn nhóm (member bị xoá vẫn còn subscription cũ)
+        registration.interceptors(conversationSubscriptionInterceptor);
+    }
 }
\ No newline at end of file
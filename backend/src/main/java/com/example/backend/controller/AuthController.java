@@ -2,12 +2,16 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.request.LoginRequest;
+import com.example.backend.dto.request.RefreshTokenRequest;
 import com.example.backend.dto.request.RegisterRequest;
 import com.example.backend.dto.response.ApiResponse;
 import com.example.backend.dto.response.JwtResponse;
+import com.example.backend.exception.ServiceUnavailableException;
+import com.example.backend.exception.UnauthorizedException;
 import com.example.backend.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +28,8 @@ public class AuthController {
         try {
             JwtResponse response = authService.login(loginRequest);
             return ResponseEntity.ok(response);
+        } catch (ServiceUnavailableException e) {
+            throw e; // 503 + Retry-After qua GlobalExceptionHandler
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(ApiResponse.error("Invalid username or password"));
@@ -35,9 +41,38 @@ public class AuthController {
         try {
             JwtResponse response = authService.register(registerRequest);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        try {
+            JwtResponse response = authService.refresh(refreshTokenRequest);
+            return ResponseEntity.ok(response);
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error("Invalid refresh token"));
+        }
+    }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring(7)
+            : null;
+        String refreshToken = refreshTokenRequest != null ? refreshTokenRequest.getRefreshToken() : null;
+        
+        authService.logout(accessToken, refreshToken);
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully"));
+    }
+}
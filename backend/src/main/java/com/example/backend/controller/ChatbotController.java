@@ -6,7 +6,9 @@ import com.example.backend.dto.response.ChatbotConversationResponse;
 import com.example.backend.dto.response.ChatbotResponse;
 import com.example.backend.entity.ChatbotConversation;
 import com.example.backend.entity.User;
-import com.example.backend.security.JwtTokenProvider;
+import com.example.backend.exception.ServiceUnavailableException;
+import com.example.backend.ratelimit.RateLimit;
+import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.ChatbotService;
 import com.example.backend.repository.UserRepository;
 import jakarta.validation.Valid;
@@ -14,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -25,7 +28,6 @@ public class ChatbotController {
 
     private final ChatbotService chatbotService;
     private final UserRepository userRepository; // ✅ Đổi từ UserService sang UserRepository
-    private final JwtTokenProvider jwtTokenProvider;
 
     /**
      * Get or create chatbot conversation
@@ -33,10 +35,10 @@ public class ChatbotController {
      */
     @GetMapping("/conversation")
     public ResponseEntity<ChatbotConversationResponse> getChatbotConversation(
-            @RequestHeader("Authorization") String authHeader) {
+            @AuthenticationPrincipal UserPrincipal principal) {
 
         try {
-            User currentUser = getCurrentUser(authHeader);
+            User currentUser = getCurrentUser(principal);
             ChatbotConversation chatbotConversation = chatbotService.getOrCreateChatbotConversation(currentUser);
 
             ChatbotConversationResponse response = ChatbotConversationResponse.builder()
@@ -61,13 +63,14 @@ public class ChatbotController {
      * Send message to chatbot
      * POST /api/chatbot/message
      */
+    @RateLimit(capacity = 10, perSeconds = 60)
     @PostMapping("/message")
     public ResponseEntity<ChatbotResponse> sendMessage(
-            @RequestHeader("Authorization") String authHeader,
+            @AuthenticationPrincipal UserPrincipal principal,
             @Valid @RequestBody ChatbotMessageRequest request) {
 
         try {
-            User currentUser = getCurrentUser(authHeader);
+            User currentUser = getCurrentUser(principal);
             ChatbotResponse response = chatbotService.sendMessage(currentUser, request);
 
             if (response.isSuccess()) {
@@ -76,6 +79,9 @@ public class ChatbotController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             }
 
+        } catch (ServiceUnavailableException e) {
+            // Để GlobalExceptionHandler trả 503 + Retry-After
+            throw e;
         } catch (Exception e) {
             log.error("Error sending message to chatbot: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -96,17 +102,11 @@ public class ChatbotController {
     }
 
     /**
-     * Helper method to get current user from JWT token
-     * ✅ Sửa để dùng getUserIdFromToken thay vì getUsernameFromToken
+     * Helper method to get current user entity
+     * Token đã được JwtAuthenticationFilter verify, không parse lại ở đây
      */
-    private User getCurrentUser(String authHeader) {
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-
-        // ✅ Dùng getUserIdFromToken (method có sẵn trong JwtTokenProvider)
-        Long userId = jwtTokenProvider.getUserIdFromToken(token);
-
-        // ✅ Dùng UserRepository thay vì UserService
-        return userRepository.findById(userId)
+    private User getCurrentUser(UserPrincipal principal) {
+        return userRepository.findById(principal.getId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
-}
\ No newline at end of file
+}
@@ -3,12 +3,11 @@ package com.example.backend.controller;
 import com.example.backend.dto.request.CommentRequest;
 import com.example.backend.dto.response.ApiResponse;
 import com.example.backend.dto.response.CommentResponse;
-import com.example.backend.event.NewCommentEvent;
+import com.example.backend.ratelimit.RateLimit;
 import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.CommentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -18,12 +17,12 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@RateLimit(capacity = 20, perSeconds = 60)
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class CommentController {
     
     private final CommentService commentService;
-    private final ApplicationEventPublisher applicationEventPublisher;
     
     @PostMapping("/posts/{postId}/comments")
     public ResponseEntity<ApiResponse<CommentResponse>> createComment(
@@ -32,7 +31,6 @@ public class CommentController {
             @AuthenticationPrincipal UserPrincipal currentUser) {
         
         CommentResponse comment = commentService.createComment(postId, request, currentUser.getId());
-        applicationEventPublisher.publishEvent(new NewCommentEvent(postId, currentUser.getId()));
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Comment created successfully", comment));
@@ -0,0 +1,111 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.request.GroupCreateRequest;
+import com.example.backend.dto.request.GroupMembersRequest;
+import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.dto.response.GroupConversationResponse;
+import com.example.backend.security.UserPrincipal;
+import com.example.backend.service.GroupConversationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller quản lý nhóm chat. Gửi tin nhắn vào nhóm dùng POST /api/messages (hoặc /app/chat.send)
+ * với conversationId
+ */
+@RestController
+@RequestMapping("/api/messages/groups")
+@RequiredArgsConstructor
+public class GroupConversationController {
+
+    private final GroupConversationService groupConversationService;
+
+    /**
+     * Tạo nhóm
+     * POST /api/messages/groups
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse> createGroup(
+            @Valid @RequestBody GroupCreateRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        GroupConversationResponse group = groupConversationService.createGroup(currentUser.getId(), request);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Group created successfully")
+                        .data(group)
+                        .build()
+        );
+    }
+
+    /**
+     * Thông tin nhóm
+     * GET /api/messages/groups/{conversationId}
+     */
+    @GetMapping("/{conversationId}")
+    public ResponseEntity<ApiResponse> getGroup(
+            @PathVariable Long conversationId,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        GroupConversationResponse group = groupConversationService.getGroup(conversationId, currentUser.getId());
+
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Group retrieved successfully")
+                        .data(group)
+                        .build()
+        );
+    }
+
+    /**
+     * Thêm thành viên
+     * POST /api/messages/groups/{conversationId}/members
+     */
+    @PostMapping("/{conversationId}/members")
+    public ResponseEntity<ApiResponse> addMembers(
+            @PathVariable Long conversationId,
+            @Valid @RequestBody GroupMembersRequest request,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        GroupConversationResponse group = groupConversationService.addMembers(
+                conversationId,
+                currentUser.getId(),
+                request.getMemberIds()
+        );
+
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Members added successfully")
+                        .data(group)
+                        .build()
+        );
+    }
+
+    /**
+     * Xoá thành viên / rời nhóm (memberId = chính mình)
+     * DELETE /api/messages/groups/{conversationId}/members/{memberId}
+     */
+    @DeleteMapping("/{conversationId}/members/{memberId}")
+    public ResponseEntity<ApiResponse> removeMember(
+            @PathVariable Long conversationId,
+            @PathVariable Long memberId,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        groupConversationService.removeMember(conversationId, currentUser.getId(), memberId);
+
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Member removed successfully")
+                        .build()
+        );
+    }
+}
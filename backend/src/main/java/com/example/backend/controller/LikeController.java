@@ -1,11 +1,10 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.response.ApiResponse;
-import com.example.backend.event.NewLikeEvent;
+import com.example.backend.ratelimit.RateLimit;
 import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.LikeService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -14,12 +13,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestController
+@RateLimit(capacity = 30, perSeconds = 60)
 @RequestMapping("/api/posts/{postId}/likes")
 @RequiredArgsConstructor
 public class LikeController {
     
     private final LikeService likeService;
-    private final ApplicationEventPublisher applicationEventPublisher;
     
     @PostMapping
     public ResponseEntity<ApiResponse<Void>> likePost(
@@ -27,7 +26,6 @@ public class LikeController {
             @AuthenticationPrincipal UserPrincipal currentUser) {
         
         likeService.likePost(postId, currentUser.getId());
-        applicationEventPublisher.publishEvent(new NewLikeEvent(postId, currentUser.getId()));
         
         return ResponseEntity.ok(ApiResponse.success("Post liked successfully"));
     }
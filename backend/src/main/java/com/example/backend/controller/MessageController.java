@@ -5,9 +5,12 @@ import com.example.backend.dto.request.MessageRequest;
 import com.example.backend.dto.response.ApiResponse;
 import com.example.backend.dto.response.ConversationResponse;
 import com.example.backend.dto.response.MessageResponse;
+import com.example.backend.dto.response.MessageSyncResponse;
 import com.example.backend.dto.response.PageResponse;
+import com.example.backend.ratelimit.RateLimit;
 import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.MessageService;
+import com.example.backend.websocket.MessageDelivery;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -24,11 +27,13 @@ import org.springframework.web.bind.annotation.*;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageDelivery messageDelivery;
 
     /**
      * Gửi tin nhắn
      * POST /api/messages
      */
+    @RateLimit(capacity = 60, perSeconds = 60)
     @PostMapping
     public ResponseEntity<ApiResponse> sendMessage(
             @Valid @RequestBody MessageRequest messageRequest,
@@ -36,7 +41,8 @@ public class MessageController {
 
         MessageResponse messageResponse = messageService.sendMessage(
                 currentUser.getId(),
-                messageRequest
+                messageRequest,
+                messageDelivery.failureNoticeOnly()
         );
 
         return ResponseEntity.ok(
@@ -118,6 +124,81 @@ public class MessageController {
         );
     }
 
+    /**
+     * Đọc tin nhắn theo cursor (keyset, không offset / COUNT)
+     * GET /api/messages/conversations/{conversationId}/since?afterId=123&limit=50  (tin nhắn mới hơn)
+     * GET /api/messages/conversations/{conversationId}/since?beforeId=123&limit=50 (cuộn lên lịch sử)
+     */
+    @GetMapping("/conversations/{conversationId}/since")
+    public ResponseEntity<ApiResponse> getMessagesByCursor(
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        MessageSyncResponse messages = messageService.getMessagesByCursor(
+                conversationId,
+                currentUser.getId(),
+                afterId,
+                beforeId,
+                limit
+        );
+
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Messages retrieved successfully")
+                        .data(messages)
+                        .build()
+        );
+    }
+
+    /**
+     * Tin nhắn mới trong mọi conversation kể từ cursor (catch-up khi reconnect)
+     * GET /api/messages/sync?since=123&limit=200
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<ApiResponse> syncMessages(
+            @RequestParam(defaultValue = "0") Long since,
+            @RequestParam(defaultValue = "200") int limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        MessageSyncResponse messages = messageService.syncMessages(currentUser.getId(), since, limit);
+
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Messages synced successfully")
+                        .data(messages)
+                        .build()
+        );
+    }
+
+    /**
+     * Tìm tin nhắn trong các conversation của user (mới -> cũ, phân trang theo cursor)
+     * GET /api/messages/search?q=hello&limit=20
+     * GET /api/messages/search?q=hello&beforeId=123&limit=20
+     */
+    @RateLimit(capacity = 30, perSeconds = 60)
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse> searchMessages(
+            @RequestParam String q,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "20") int limit,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        MessageSyncResponse messages = messageService.searchMessages(currentUser.getId(), q, beforeId, limit);
+
+        return ResponseEntity.ok(
+                ApiResponse.builder()
+                        .success(true)
+                        .message("Messages searched successfully")
+                        .data(messages)
+                        .build()
+        );
+    }
+
     /**
      * Xóa tin nhắn
      * DELETE /api/messages/{messageId}
@@ -0,0 +1,38 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.metrics.MetricsSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Expose số liệu vận hành của các component nội bộ (cache hit/miss, executor, outbox lag...)
+ */
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+@PreAuthorize("@adminAccess.isAdmin(authentication)")
+public class MetricsController {
+
+    private final List<MetricsSource> metricsSources;
+
+    /**
+     * GET /api/admin/metrics
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMetrics() {
+        Map<String, Object> metrics = new TreeMap<>();
+        for (MetricsSource source : metricsSources) {
+            metrics.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(ApiResponse.success("Metrics retrieved successfully", metrics));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.response.ApiResponse;
+import com.example.backend.exception.BadRequestException;
+import com.example.backend.tracing.RequestTraceSettings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Bật/tắt request tracing và đổi sample rate lúc runtime
+ */
+@RestController
+@RequestMapping("/api/admin/tracing")
+@RequiredArgsConstructor
+@PreAuthorize("@adminAccess.isAdmin(authentication)")
+public class TracingController {
+
+    private final RequestTraceSettings settings;
+
+    /**
+     * GET /api/admin/tracing
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSettings() {
+        return ResponseEntity.ok(ApiResponse.success("Tracing settings retrieved successfully", toMap()));
+    }
+
+    /**
+     * PUT /api/admin/tracing?enabled=true&sampleRate=0.05
+     */
+    @PutMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> updateSettings(
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Double sampleRate) {
+
+        if (sampleRate != null) {
+            try {
+                settings.setSampleRate(sampleRate);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+        }
+        if (enabled != null) {
+            settings.setEnabled(enabled);
+        }
+
+        return ResponseEntity.ok(ApiResponse.success("Tracing settings updated successfully", toMap()));
+    }
+
+    private Map<String, Object> toMap() {
+        return Map.of(
+                "enabled", settings.isEnabled(),
+                "sampleRate", settings.getSampleRate()
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.backend.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Request DTO để tạo nhóm chat (người tạo tự động là owner và thành viên)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupCreateRequest {
+
+    @NotBlank(message = "Group name is required")
+    @Size(max = 100, message = "Group name must not exceed 100 characters")
+    private String name;
+
+    @NotEmpty(message = "At least one member is required")
+    private List<Long> memberIds;
+}
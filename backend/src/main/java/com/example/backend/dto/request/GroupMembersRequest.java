@@ -0,0 +1,20 @@
+package com.example.backend.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Request DTO để thêm thành viên vào nhóm
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupMembersRequest {
+
+    @NotEmpty(message = "At least one member is required")
+    private List<Long> memberIds;
+}
@@ -2,7 +2,6 @@
 package com.example.backend.dto.request;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 /**
@@ -15,8 +14,9 @@ import lombok.*;
 @Builder
 public class MessageRequest {
     
-    @NotNull(message = "Recipient ID is required")
-    private Long recipientId;  // ID của người nhận
+    private Long recipientId;  // ID của người nhận (tin nhắn 1-1)
+
+    private Long conversationId;  // Gửi vào conversation có sẵn (nhóm); dùng thay cho recipientId
     
     @NotBlank(message = "Content is required")
     private String content;
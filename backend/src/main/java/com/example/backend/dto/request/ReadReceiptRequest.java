@@ -0,0 +1,21 @@
+package com.example.backend.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * Request DTO cho /app/chat.read: user đã đọc tới messageId trong conversation
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReadReceiptRequest {
+
+    @NotNull(message = "Conversation ID is required")
+    private Long conversationId;
+
+    @NotNull(message = "Message ID is required")
+    private Long messageId;
+}
@@ -13,9 +13,13 @@ import java.time.LocalDateTime;
 @Builder
 public class ConversationResponse {
     private Long id;
+    private String type;               // DIRECT / GROUP
+    private String name;               // tên nhóm (chỉ có với GROUP)
     private Long otherUserId;
     private String otherUsername;
+    private String otherFullName;
     private String otherUserAvatarUrl;
     private MessageResponse lastMessage;
+    private Integer unreadCount;
     private LocalDateTime updatedAt;
 }
\ No newline at end of file
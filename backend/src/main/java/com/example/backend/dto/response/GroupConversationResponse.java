@@ -0,0 +1,23 @@
+package com.example.backend.dto.response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO cho nhóm chat
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupConversationResponse {
+    private Long id;
+    private String name;
+    private Long ownerId;
+    private List<Long> memberIds;
+    private Integer memberCount;
+    private LocalDateTime createdAt;
+}
@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
 public class JwtResponse {
     
     private String accessToken;
+    private String refreshToken;
     private String tokenType = "Bearer";
     private Long id;
     private String username;
@@ -24,4 +25,9 @@ public class JwtResponse {
         this.email = email;
         this.fullName = fullName;
     }
+    
+    public JwtResponse(String accessToken, String refreshToken, Long id, String username, String email, String fullName) {
+        this(accessToken, id, username, email, fullName);
+        this.refreshToken = refreshToken;
+    }
 }
\ No newline at end of file
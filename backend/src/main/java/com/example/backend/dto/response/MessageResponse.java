@@ -20,6 +20,8 @@ public class MessageResponse {
     private Long senderId;
     private String senderUsername;
     private String senderAvatarUrl;
+    private Long recipientId;          // chỉ có khi gửi tin 1-1 (để route WebSocket)
+    private String recipientUsername;
     private String content;
     private String messageType;
    
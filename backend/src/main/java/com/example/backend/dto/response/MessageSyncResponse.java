@@ -0,0 +1,20 @@
+package com.example.backend.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Kết quả đọc theo cursor (keyset) thay vì page/offset.
+ * cursor: id để gửi lại ở lần gọi tiếp theo (afterId / beforeId / since), hasMore: còn dữ liệu sau cursor
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageSyncResponse {
+    private List<MessageResponse> messages;
+    private Long cursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,18 @@
+package com.example.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một người tác động trong nhóm notification
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationActorResponse {
+    private Long id;
+    private String username;
+    private String fullName;
+    private String avatarUrl;
+}
@@ -0,0 +1,24 @@
+package com.example.backend.dto.response;
+
+import lombok.*;
+
+/**
+ * Payload push tới /user/queue/notifications
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationPushMessage {
+
+    public enum Type {
+        NOTIFICATION,  // notification mới hoặc nhóm vừa có thêm actor
+        UNREAD_COUNT   // chỉ thay đổi số chưa đọc (mark read)
+    }
+
+    private Type type;
+    private NotificationResponse notification;
+    private long unreadCount;
+    private long unreadDelta;
+}
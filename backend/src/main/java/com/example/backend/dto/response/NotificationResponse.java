@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
 public class NotificationResponse {
     private Long id;
     private Long recipientId;
-    private Long senderId;
+    private Long senderId; // Người tác động gần nhất
     private String senderUsername;
     private String senderFullName;
     private String senderAvatarUrl;
@@ -23,5 +24,8 @@ public class NotificationResponse {
     private String postImageUrl; // Thumbnail của post (nếu có)
     private Boolean isRead;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt; // Lần cuối nhóm có thêm người tác động
+    private Integer actorCount; // Số người đã tác động trong nhóm
+    private List<NotificationActorResponse> actors; // Vài người gần nhất (mới nhất trước)
     private String message; // Human-readable message
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.backend.dto.response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read receipt đẩy cho participant còn lại qua /user/queue/read-receipts
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReadReceiptResponse {
+    private Long conversationId;
+    private Long readerId;
+    private Long lastReadMessageId;
+    private LocalDateTime readAt;
+}
@@ -26,13 +26,22 @@ public class Conversation {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
     @Builder.Default
-    private Set<ConversationParticipant> participants = new HashSet<>();
+    private ConversationType type = ConversationType.DIRECT;
+
+    // Chỉ dùng cho nhóm
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id")
+    private User owner;
 
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
-    private Set<Message> messages = new HashSet<>();
+    private Set<ConversationParticipant> participants = new HashSet<>();
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -41,4 +50,8 @@ public class Conversation {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    public enum ConversationType {
+        DIRECT, GROUP
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model cho inbox: một dòng cho mỗi (user, conversation), chứa sẵn thông tin người còn lại
+ * và tin nhắn cuối để danh sách inbox không phải join participants / messages
+ */
+@Entity
+@Table(name = "conversation_inbox")
+@IdClass(ConversationInboxId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationInbox {
+
+    /**
+     * Độ dài tối đa của preview tin nhắn cuối
+     */
+    public static final int PREVIEW_LENGTH = 255;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "other_user_id")
+    private Long otherUserId;
+
+    @Column(name = "other_username")
+    private String otherUsername;
+
+    @Column(name = "other_full_name")
+    private String otherFullName;
+
+    @Column(name = "other_avatar_url")
+    private String otherAvatarUrl;
+
+    @Column(name = "conversation_type", nullable = false)
+    @Builder.Default
+    private String conversationType = Conversation.ConversationType.DIRECT.name();
+
+    @Column(name = "group_name")
+    private String groupName;
+
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_preview")
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_type")
+    private String lastMessageType;
+
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+
+    @Column(name = "last_activity", nullable = false)
+    private LocalDateTime lastActivity;
+
+    @Column(name = "unread_count", nullable = false)
+    @Builder.Default
+    private Integer unreadCount = 0;
+
+    public static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backend.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Composite key cho ConversationInbox
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationInboxId implements Serializable {
+
+    private Long userId;
+    private Long conversationId;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConversationInboxId that = (ConversationInboxId) o;
+        return Objects.equals(userId, that.userId) &&
+               Objects.equals(conversationId, that.conversationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, conversationId);
+    }
+}
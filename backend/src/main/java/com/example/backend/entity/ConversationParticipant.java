@@ -34,4 +34,8 @@ public class ConversationParticipant {
     @CreationTimestamp
     @Column(name = "joined_at", nullable = false, updatable = false)
     private LocalDateTime joinedAt;
+
+    // Tin nhắn mới nhất user đã đọc (ghi theo lô bởi ReadReceiptService)
+    @Column(name = "last_read_message_id")
+    private Long lastReadMessageId;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Conversation 1-1 của một cặp user, key chuẩn hoá (userLo < userHi)
+ */
+@Entity
+@Table(name = "direct_conversations")
+@IdClass(DirectConversationId.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DirectConversation {
+
+    @Id
+    @Column(name = "user_lo")
+    private Long userLo;
+
+    @Id
+    @Column(name = "user_hi")
+    private Long userHi;
+
+    @Column(name = "conversation_id", nullable = false, unique = true)
+    private Long conversationId;
+}
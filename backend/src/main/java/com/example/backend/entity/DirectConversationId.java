@@ -0,0 +1,33 @@
+package com.example.backend.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Composite key cho DirectConversation (userLo < userHi)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectConversationId implements Serializable {
+
+    private Long userLo;
+    private Long userHi;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DirectConversationId that = (DirectConversationId) o;
+        return Objects.equals(userLo, that.userLo) &&
+               Objects.equals(userHi, that.userHi);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userLo, userHi);
+    }
+}
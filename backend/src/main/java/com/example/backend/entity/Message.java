@@ -4,6 +4,7 @@ package com.example.backend.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
@@ -17,10 +18,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Message {
+public class Message implements Persistable<Long> {
 
+    // Id do MessageIdAllocator cấp trước khi insert (không dùng AUTO_INCREMENT), xem migration V9
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,4 +41,23 @@ public class Message {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    // Id gán sẵn => Spring Data coi là entity cũ và save() thành merge (thêm một SELECT trước INSERT).
+    // Đường cấp id từ MessageIdAllocator đặt cờ này để save() gọi persist thẳng
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private boolean newlyAllocated = false;
+
+    @Override
+    public boolean isNew() {
+        return newlyAllocated;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        newlyAllocated = false;
+    }
 }
\ No newline at end of file
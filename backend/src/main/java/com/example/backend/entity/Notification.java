@@ -7,6 +7,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 @Entity
 @Table(name = "notifications")
@@ -22,6 +24,7 @@ public class Notification {
     @Column(name = "recipient_id", nullable = false)
     private Long recipientId;
 
+    // Người tác động gần nhất của nhóm
     @Column(name = "sender_id", nullable = false)
     private Long senderId;
 
@@ -38,9 +41,46 @@ public class Notification {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Số người (khác nhau) đã tác động trong nhóm
+    @Column(name = "actor_count", nullable = false)
+    private Integer actorCount = 1;
+
+    // Id những người tác động gần nhất, mới nhất đứng đầu (CSV)
+    @Column(name = "recent_actor_ids")
+    private String recentActorIds;
+
+    // Đầu bucket thời gian của nhóm, cũng là cột partition (theo tháng) của bảng
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Lần cuối nhóm có thêm người tác động
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Seq hoạt động (theo người nhận) của lần cập nhật gần nhất; <= NotificationBadge.lastSeenSeq => đã đọc
+    @Column(name = "activity_seq", nullable = false)
+    private Long activitySeq = 0L;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+    }
+
+    /**
+     * Id những người tác động gần nhất (mới nhất trước)
+     */
+    public List<Long> getRecentActorIdList() {
+        if (recentActorIds == null || recentActorIds.isBlank()) {
+            return List.of(senderId);
+        }
+        return Arrays.stream(recentActorIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .toList();
     }
 
     // Enum for notification types
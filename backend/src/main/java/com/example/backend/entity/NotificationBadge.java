@@ -0,0 +1,34 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Trạng thái badge notification của một người nhận (một dòng / user).
+ * Nhóm notification được coi là đã đọc khi is_read = true hoặc activitySeq <= lastSeenSeq.
+ */
+@Entity
+@Table(name = "notification_badge")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationBadge {
+
+    @Id
+    @Column(name = "recipient_id")
+    private Long recipientId;
+
+    // Số nhóm chưa đọc
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    // High-water mark của "đánh dấu tất cả đã đọc"
+    @Column(name = "last_seen_seq", nullable = false)
+    private Long lastSeenSeq;
+
+    // Seq lớn nhất đã cấp cho hoạt động của người nhận
+    @Column(name = "activity_seq", nullable = false)
+    private Long activitySeq;
+}
@@ -0,0 +1,19 @@
+package com.example.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event được publish khi thành viên của một conversation thay đổi (tạo nhóm, thêm / xoá thành viên).
+ * Dùng để invalidate cache thành viên.
+ */
+@Getter
+public class ConversationMembersChangedEvent extends ApplicationEvent {
+
+    private final Long conversationId;
+
+    public ConversationMembersChangedEvent(Object source, Long conversationId) {
+        super(source);
+        this.conversationId = conversationId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.backend.event;
+
+import com.example.backend.dto.response.NotificationResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event khi notification của một user thay đổi (nhóm mới / nhóm có thêm actor / đánh dấu đã đọc).
+ * Được push tới client sau khi transaction commit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationUpdatedEvent {
+    private Long recipientId;
+    private NotificationResponse notification; // null khi chỉ thay đổi trạng thái đọc
+    private long unreadDelta;
+}
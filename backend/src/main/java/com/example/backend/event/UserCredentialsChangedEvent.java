@@ -0,0 +1,19 @@
+package com.example.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event được publish khi thông tin xác thực của user thay đổi (đổi mật khẩu, xoá tài khoản...).
+ * Các cache liên quan đến authentication phải bỏ dữ liệu cũ của user này.
+ */
+@Getter
+public class UserCredentialsChangedEvent extends ApplicationEvent {
+
+    private final Long userId;
+
+    public UserCredentialsChangedEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.backend.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Event được publish khi dữ liệu profile (thông tin cơ bản hoặc các counter followers/following/posts)
+ * của một hoặc nhiều user thay đổi. Dùng để invalidate các cache liên quan đến profile.
+ */
+@Getter
+public class UserProfileChangedEvent extends ApplicationEvent {
+
+    private final List<Long> userIds;
+
+    public UserProfileChangedEvent(Object source, Long... userIds) {
+        super(source);
+        this.userIds = List.of(userIds);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.backend.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Cấp id cho tin nhắn trước khi insert (bảng message_id_sequence, xem migration V9).
+ *
+ * Mỗi lần hết khối, node lấy thêm block-size id bằng một UPDATE nguyên tử trong transaction riêng
+ * (REQUIRES_NEW: transaction của caller rollback cũng không cấp lại khối đã lấy). Id tăng dần trên
+ * mỗi node; giữa các node chỉ đảm bảo không trùng. Id bỏ dở (node restart, gửi lỗi) chỉ để lại lỗ hổng.
+ *
+ * Mọi id đã cấp được giữ là "chưa ghi" cho tới khi người dùng id báo xong ({@link #release}, hoặc tự động khi
+ * transaction kết thúc với {@link #nextInTransaction}); {@link #lowestUnwrittenId} là mốc để đọc theo cursor id
+ * không nhảy qua tin nhắn có id nhỏ hơn nhưng commit muộn hơn.
+ */
+@Component
+@Slf4j
+public class MessageIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    private long next;
+    private long limit;
+
+    // Id đã cấp nhưng chưa commit / chưa bị bỏ (xem lowestUnwrittenId)
+    private final ConcurrentSkipListSet<Long> unwrittenIds = new ConcurrentSkipListSet<>();
+
+    public MessageIdAllocator(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.messages.id-block-size:1000}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Cấp id mới; caller phải gọi {@link #release} khi tin nhắn đã commit hoặc bị bỏ
+     */
+    public synchronized long next() {
+        if (next >= limit) {
+            allocateBlock();
+        }
+        // Đánh dấu trong cùng khoá cấp id: mốc không bao giờ vượt qua id vừa cấp
+        unwrittenIds.add(next);
+        return next++;
+    }
+
+    /**
+     * Cấp id cho tin nhắn được insert trong transaction hiện tại; id được release khi transaction
+     * commit hoặc rollback
+     */
+    public long nextInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("nextInTransaction requires an active transaction");
+        }
+        long id = next();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(id);
+            }
+        });
+        return id;
+    }
+
+    public void release(long id) {
+        unwrittenIds.remove(id);
+    }
+
+    /**
+     * Id nhỏ nhất đã cấp nhưng chưa commit trên node này (Long.MAX_VALUE nếu không còn).
+     * Tin nhắn id lớn có thể commit trước tin nhắn id nhỏ hơn (các shard ghi độc lập, transaction của chatbot);
+     * đọc theo cursor id phải dừng trước mốc này. Đọc mốc trước khi query: mọi id nhỏ hơn đã commit
+     * (hoặc bị bỏ) tại thời điểm đó.
+     *
+     * Chỉ đúng trong phạm vi một node: node khác giữ khối id riêng và không thấy id đang chờ của nhau,
+     * nên khi chạy nhiều node cursor vẫn có thể nhảy qua tin nhắn của node khác đang commit muộn.
+     */
+    public long lowestUnwrittenId() {
+        Long lowest = unwrittenIds.ceiling(Long.MIN_VALUE);
+        return lowest != null ? lowest : Long.MAX_VALUE;
+    }
+
+    public int unwrittenCount() {
+        return unwrittenIds.size();
+    }
+
+    private void allocateBlock() {
+        // LAST_INSERT_ID(expr) gắn với connection nên UPDATE và SELECT phải chạy trong cùng transaction
+        Long blockEnd = transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE message_id_sequence SET next_val = LAST_INSERT_ID(next_val + ?) WHERE id = 1",
+                    blockSize);
+            if (updated != 1) {
+                return null;
+            }
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        });
+        if (blockEnd == null) {
+            throw new IllegalStateException("message_id_sequence is not initialised");
+        }
+        limit = blockEnd;
+        next = blockEnd - blockSize;
+        log.debug("Allocated message id block [{}, {})", next, limit);
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.backend.ingest;
+
+import com.example.backend.entity.Message;
+import com.example.backend.exception.ServiceUnavailableException;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.ConversationRepository;
+import com.example.backend.search.MessageSearchIndex;
+import com.example.backend.service.ConversationInboxService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ghi tin nhắn theo lô (write-behind) thay vì một transaction + một INSERT cho mỗi tin nhắn.
+ *
+ * - {@link #submit} cấp id ({@link MessageIdAllocator}) và created_at, đưa tin nhắn vào hàng đợi rồi trả về ngay:
+ *   ack cho client đã có id ổn định dù tin nhắn chưa xuống DB
+ * - {@link WriteListener} được gọi (trên writer thread) sau khi transaction của lô commit, hoặc khi tin nhắn
+ *   bị bỏ: đẩy real-time cho người nhận chỉ xảy ra với tin nhắn đã thực sự được ghi
+ * - Mỗi conversation luôn vào cùng một shard (conversationId % writers); mỗi shard có một writer thread duy nhất
+ *   nên thứ tự trong conversation được giữ (id, created_at và thứ tự insert cùng chiều)
+ * - Writer gom tối đa batch-size tin nhắn hoặc chờ tối đa flush-interval, rồi trong một transaction:
+ *   một INSERT nhiều dòng, một UPDATE updated_at cho mỗi conversation, cập nhật inbox và search index
+ * - Lô lỗi được thử lại (retry-attempts); vẫn lỗi thì ghi từng tin nhắn một để dòng hỏng không kéo theo cả lô
+ * - Hàng đợi đầy => {@link ServiceUnavailableException} (503 + Retry-After) thay vì giữ vô hạn trong bộ nhớ
+ *
+ * Tin nhắn vừa ack có thể chưa đọc được qua REST trong vài ms (tới lần flush kế tiếp).
+ */
+@Component
+@Slf4j
+public class MessageIngestQueue implements MetricsSource {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO messages (id, conversation_id, sender_id, content, message_type, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?)";
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final MessageIdAllocator idAllocator;
+    private final ConversationRepository conversationRepository;
+    private final ConversationInboxService inboxService;
+    private final MessageSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int retryAttempts;
+    private final Duration retryBackoff;
+    private final long retryAfterSeconds;
+    private final Shard[] shards;
+    private final ConcurrentHashMap<Long, WriteListener> listeners = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder totalFlushMillis = new LongAdder();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+
+    public MessageIngestQueue(MessageIdAllocator idAllocator,
+                              ConversationRepository conversationRepository,
+                              ConversationInboxService inboxService,
+                              MessageSearchIndex searchIndex,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.messages.ingest.writers:2}") int writers,
+                              @Value("${app.messages.ingest.queue-capacity:10000}") int queueCapacity,
+                              @Value("${app.messages.ingest.batch-size:200}") int batchSize,
+                              @Value("${app.messages.ingest.flush-interval:PT0.005S}") Duration flushInterval,
+                              @Value("${app.messages.ingest.retry-attempts:3}") int retryAttempts,
+                              @Value("${app.messages.ingest.retry-backoff:PT0.2S}") Duration retryBackoff,
+                              @Value("${app.messages.ingest.retry-after:PT1S}") Duration retryAfter) {
+        this.idAllocator = idAllocator;
+        this.conversationRepository = conversationRepository;
+        this.inboxService = inboxService;
+        this.searchIndex = searchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.retryAttempts = Math.max(1, retryAttempts);
+        this.retryBackoff = retryBackoff;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+
+        this.shards = new Shard[Math.max(1, writers)];
+        int shardCapacity = Math.max(1, queueCapacity / shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, shardCapacity);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (Shard shard : shards) {
+            shard.writer.start();
+        }
+    }
+
+    /**
+     * Dừng nhận tin nhắn mới và chờ writer ghi nốt phần còn trong hàng đợi
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            shard.writer.join(TimeUnit.SECONDS.toMillis(10));
+            if (!shard.queue.isEmpty()) {
+                log.warn("Message writer {} stopped with {} messages still queued", shard.index, shard.queue.size());
+            }
+        }
+    }
+
+    /**
+     * Gán id + created_at và đưa tin nhắn vào hàng đợi ghi.
+     * Message chỉ cần conversation / sender dạng reference (chỉ đọc id).
+     */
+    public Message submit(Message message) {
+        return submit(message, null);
+    }
+
+    /**
+     * Như {@link #submit(Message)}, listener (có thể null) nhận kết quả ghi của tin nhắn
+     */
+    public Message submit(Message message, WriteListener listener) {
+        if (!running) {
+            throw new ServiceUnavailableException("Message service is shutting down", retryAfterSeconds);
+        }
+        Shard shard = shards[(int) Math.floorMod(message.getConversation().getId(), (long) shards.length)];
+
+        // Cấp id và enqueue dưới cùng một khoá để thứ tự id trong shard trùng với thứ tự ghi
+        synchronized (shard) {
+            message.setId(idAllocator.next());
+            message.setCreatedAt(LocalDateTime.now());
+            if (listener != null) {
+                listeners.put(message.getId(), listener);
+            }
+            if (!shard.queue.offer(message)) {
+                listeners.remove(message.getId());
+                idAllocator.release(message.getId());
+                rejected.increment();
+                throw new ServiceUnavailableException("Too many messages in flight, please retry", retryAfterSeconds);
+            }
+        }
+        submitted.increment();
+        return message;
+    }
+
+    private void runWriter(Shard shard) {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (running || !shard.queue.isEmpty()) {
+            try {
+                Message first = shard.queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Gom thêm tới batch-size hoặc hết flush-interval
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    shard.queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Message next = shard.queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Message writer {} failed", shard.index, e);
+            } finally {
+                // Đã ghi hoặc đã bỏ: không còn giữ mốc MessageIdAllocator.lowestUnwrittenId.
+                // Listener còn lại (writer lỗi giữa chừng) nghĩa là tin nhắn không được ghi
+                for (Message message : batch) {
+                    idAllocator.release(message.getId());
+                    notifyDropped(message);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Message> batch) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        for (int attempt = 1; attempt <= retryAttempts; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+                written.add(batch.size());
+                batch.forEach(this::notifyWritten);
+                batches.increment();
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                totalFlushMillis.add(elapsedMillis);
+                maxFlushMillis.accumulateAndGet(elapsedMillis, Math::max);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} messages (attempt {}/{}): {}",
+                        batch.size(), attempt, retryAttempts, e.getMessage());
+                if (attempt < retryAttempts) {
+                    retries.increment();
+                    Thread.sleep(retryBackoff.toMillis() * attempt);
+                }
+            }
+        }
+
+        // Tách lô: ghi từng tin nhắn để tìm đúng dòng lỗi (vd. conversation / user đã bị xoá)
+        for (Message message : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(message)));
+                written.increment();
+                notifyWritten(message);
+            } catch (RuntimeException e) {
+                dropped.increment();
+                log.error("Dropping message {} in conversation {}",
+                        message.getId(), message.getConversation().getId(), e);
+                notifyDropped(message);
+            }
+        }
+    }
+
+    private void notifyWritten(Message message) {
+        WriteListener listener = listeners.remove(message.getId());
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.written(message);
+        } catch (RuntimeException e) {
+            log.warn("Write listener failed for message {}", message.getId(), e);
+        }
+    }
+
+    private void notifyDropped(Message message) {
+        WriteListener listener = listeners.remove(message.getId());
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.dropped(message);
+        } catch (RuntimeException e) {
+            log.warn("Write listener failed for dropped message {}", message.getId(), e);
+        }
+    }
+
+    private void write(List<Message> batch) {
+        // Một INSERT nhiều dòng (không phụ thuộc rewriteBatchedStatements của driver)
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * (ROW_PLACEHOLDERS.length() + 2))
+                .append(INSERT_PREFIX);
+        List<Object> params = new ArrayList<>(batch.size() * 6);
+        Map<Long, LocalDateTime> lastActivity = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Message message = batch.get(i);
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+            params.add(message.getId());
+            params.add(message.getConversation().getId());
+            params.add(message.getSender().getId());
+            params.add(message.getContent());
+            params.add(message.getMessageType());
+            params.add(Timestamp.valueOf(message.getCreatedAt()));
+            lastActivity.merge(message.getConversation().getId(), message.getCreatedAt(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+        jdbcTemplate.update(sql.toString(), params.toArray());
+
+        lastActivity.forEach(conversationRepository::touch);
+        inboxService.recordMessages(batch);
+        searchIndex.index(batch);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "messages.ingest";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long batchCount = batches.sum();
+        long writtenCount = written.sum();
+        List<Integer> depths = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            depths.add(shard.queue.size());
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("submitted", submitted.sum());
+        metrics.put("written", writtenCount);
+        metrics.put("queueDepth", depths);
+        metrics.put("batches", batchCount);
+        metrics.put("avgBatchSize", batchCount == 0 ? 0.0 : (double) writtenCount / batchCount);
+        metrics.put("avgFlushMs", batchCount == 0 ? 0.0 : (double) totalFlushMillis.sum() / batchCount);
+        metrics.put("maxFlushMs", maxFlushMillis.get());
+        metrics.put("retries", retries.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("dropped", dropped.sum());
+        return metrics;
+    }
+
+    /**
+     * Kết quả ghi của một tin nhắn đã submit; gọi trên writer thread nên không được chặn lâu
+     */
+    public interface WriteListener {
+
+        /**
+         * Transaction chứa tin nhắn đã commit
+         */
+        void written(Message message);
+
+        /**
+         * Tin nhắn bị bỏ sau khi hết số lần thử (không có trong DB)
+         */
+        void dropped(Message message);
+    }
+
+    private final class Shard {
+        private final int index;
+        private final BlockingQueue<Message> queue;
+        private final Thread writer;
+
+        private Shard(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.writer = new Thread(() -> runWriter(this), "message-writer-" + index);
+        }
+    }
+}
@@ -1,71 +1,73 @@
-
 package com.example.backend.listener;
 
 import com.example.backend.event.NewCommentEvent;
 import com.example.backend.event.NewFollowerEvent;
 import com.example.backend.event.NewLikeEvent;
+import com.example.backend.outbox.OutboxEventHandler;
 import com.example.backend.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
- * Listener để tự động tạo notifications khi có các event xảy ra
- * Sử dụng Spring Event để decouple notification logic khỏi business logic
+ * Consumer tạo notifications từ các event trong outbox.
+ * Lỗi được ném ra để relay rollback và thử lại; việc chống xử lý trùng do relay đảm nhận (processed_events).
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class NotificationEventListener {
+public class NotificationEventListener implements OutboxEventHandler {
 
     private final NotificationService notificationService;
 
+    @Override
+    public String getConsumerName() {
+        return "notifications";
+    }
+
+    @Override
+    public boolean supports(Class<?> eventType) {
+        return eventType == NewLikeEvent.class
+                || eventType == NewCommentEvent.class
+                || eventType == NewFollowerEvent.class;
+    }
+
+    @Override
+    public void handle(Object event) {
+        if (event instanceof NewLikeEvent likeEvent) {
+            handleLikeEvent(likeEvent);
+        } else if (event instanceof NewCommentEvent commentEvent) {
+            handleCommentEvent(commentEvent);
+        } else if (event instanceof NewFollowerEvent followerEvent) {
+            handleNewFollowerEvent(followerEvent);
+        }
+    }
+
     /**
-     * Lắng nghe event khi có người like post
+     * Khi có người like post
      */
-    @EventListener
-    @Async
-    public void handleLikeEvent(NewLikeEvent event) {
-        try {
-            log.info("Received LikeEvent: postId={}, likerId={}", event.getPostId(), event.getLikerId());
-            notificationService.createLikeNotification(event.getPostId(), event.getLikerId());
-        } catch (Exception e) {
-            log.error("Error creating like notification", e);
-        }
+    private void handleLikeEvent(NewLikeEvent event) {
+        log.debug("Received LikeEvent: postId={}, likerId={}", event.getPostId(), event.getLikerId());
+        notificationService.createLikeNotification(event.getPostId(), event.getLikerId());
     }
 
     /**
-     * Lắng nghe event khi có người comment
+     * Khi có người comment
      */
-    @EventListener
-    @Async
-    public void handleCommentEvent(NewCommentEvent event) {
-        try {
-            log.info("Received CommentCreatedEvent: postId={}, commenterId={}", event.getPostId(), event.getCommenterId());
-            notificationService.createCommentNotification(event.getPostId(), event.getCommenterId());
-        } catch (Exception e) {
-            log.error("Error creating comment notification", e);
-        }
+    private void handleCommentEvent(NewCommentEvent event) {
+        log.debug("Received CommentCreatedEvent: postId={}, commenterId={}", event.getPostId(), event.getCommenterId());
+        notificationService.createCommentNotification(event.getPostId(), event.getCommenterId());
     }
 
     /**
-     * Lắng nghe event khi có người follow
-     * ✅ Đã update để dùng NewFollowerEvent có sẵn
+     * Khi có người follow
      */
-    @EventListener
-    @Async
-    public void handleNewFollowerEvent(NewFollowerEvent event) {
-        try {
-            log.info("Received NewFollowerEvent: followerId={}, followingId={}",
-                    event.getFollowerId(), event.getFollowingId());
+    private void handleNewFollowerEvent(NewFollowerEvent event) {
+        log.debug("Received NewFollowerEvent: followerId={}, followingId={}",
+                event.getFollowerId(), event.getFollowingId());
 
-            // followingId = người được follow (recipient)
-            // followerId = người đang follow (sender)
-            notificationService.createFollowNotification(event.getFollowingId(), event.getFollowerId());
-        } catch (Exception e) {
-            log.error("Error creating follow notification", e);
-        }
+        // followingId = người được follow (recipient)
+        // followerId = người đang follow (sender)
+        notificationService.createFollowNotification(event.getFollowingId(), event.getFollowerId());
     }
-}
\ No newline at end of file
+}
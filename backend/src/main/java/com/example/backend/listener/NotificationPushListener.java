@@ -0,0 +1,86 @@
+package com.example.backend.listener;
+
+import com.example.backend.cache.UnreadNotificationCounter;
+import com.example.backend.cache.UserProfileCache;
+import com.example.backend.cache.UserProfileSnapshot;
+import com.example.backend.config.AsyncConfig;
+import com.example.backend.dto.response.NotificationPushMessage;
+import com.example.backend.event.NotificationUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Cập nhật bộ đếm chưa đọc và push notification / unread delta tới /user/queue/notifications
+ * sau khi transaction commit, để client không phải poll /api/notifications/unread-count.
+ * Delta của bộ đếm được áp dụng đồng bộ ngay trong listener AFTER_COMMIT (không bao giờ bị bỏ);
+ * chỉ phần gửi WebSocket chạy trên pushExecutor, nơi task có thể bị bỏ khi đầy (DiscardOldestPolicy)
+ * mà không làm lệch bộ đếm.
+ */
+@Component
+@Slf4j
+public class NotificationPushListener {
+
+    public static final String NOTIFICATION_QUEUE = "/queue/notifications";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UnreadNotificationCounter unreadCounter;
+    private final UserProfileCache userProfileCache;
+    private final Executor pushExecutor;
+
+    public NotificationPushListener(SimpMessagingTemplate messagingTemplate,
+                                    UnreadNotificationCounter unreadCounter,
+                                    UserProfileCache userProfileCache,
+                                    @Qualifier(AsyncConfig.PUSH_EXECUTOR) Executor pushExecutor) {
+        this.messagingTemplate = messagingTemplate;
+        this.unreadCounter = unreadCounter;
+        this.userProfileCache = userProfileCache;
+        this.pushExecutor = pushExecutor;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleNotificationUpdated(NotificationUpdatedEvent event) {
+        long unreadCount = unreadCounter.adjust(event.getRecipientId(), event.getUnreadDelta());
+
+        if (event.getNotification() == null && event.getUnreadDelta() == 0) {
+            return;
+        }
+        try {
+            pushExecutor.execute(() -> push(event, unreadCount));
+        } catch (RejectedExecutionException e) {
+            log.debug("Notification push to user {} rejected: {}", event.getRecipientId(), e.getMessage());
+        }
+    }
+
+    private void push(NotificationUpdatedEvent event, long unreadCount) {
+        Long recipientId = event.getRecipientId();
+
+        // User destination theo username (Principal.getName() của session WebSocket)
+        String username = userProfileCache.getById(recipientId)
+                .map(UserProfileSnapshot::getUsername)
+                .orElse(null);
+        if (username == null) {
+            return;
+        }
+
+        NotificationPushMessage message = NotificationPushMessage.builder()
+                .type(event.getNotification() != null
+                        ? NotificationPushMessage.Type.NOTIFICATION
+                        : NotificationPushMessage.Type.UNREAD_COUNT)
+                .notification(event.getNotification())
+                .unreadCount(unreadCount)
+                .unreadDelta(event.getUnreadDelta())
+                .build();
+        try {
+            messagingTemplate.convertAndSendToUser(username, NOTIFICATION_QUEUE, message);
+        } catch (Exception e) {
+            // Push chỉ là best-effort, client vẫn có thể lấy lại qua REST
+            log.warn("Failed to push notification to user {}: {}", recipientId, e.getMessage());
+        }
+    }
+}
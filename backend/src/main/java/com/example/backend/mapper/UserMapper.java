@@ -1,6 +1,7 @@
 
 package com.example.backend.mapper;
 
+import com.example.backend.cache.UserProfileSnapshot;
 import com.example.backend.dto.response.UserResponse;
 import com.example.backend.entity.User;
 import com.example.backend.repository.FollowerRepository;
@@ -38,6 +39,31 @@ public class UserMapper {
         return response;
     }
     
+    /**
+     * Build UserResponse từ snapshot đã cache, chỉ còn query isFollowing (phụ thuộc viewer)
+     */
+    public UserResponse toUserResponse(UserProfileSnapshot profile, Long currentUserId) {
+        UserResponse response = new UserResponse();
+        response.setId(profile.getId());
+        response.setUsername(profile.getUsername());
+        response.setEmail(profile.getEmail());
+        response.setFullName(profile.getFullName());
+        response.setAvatarUrl(profile.getAvatarUrl());
+        response.setBio(profile.getBio());
+        response.setCreatedAt(profile.getCreatedAt());
+        response.setFollowersCount(profile.getFollowersCount());
+        response.setFollowingCount(profile.getFollowingCount());
+        response.setPostsCount(profile.getPostsCount());
+
+        if (currentUserId != null && !currentUserId.equals(profile.getId())) {
+            response.setIsFollowing(followerRepository.existsByFollowerIdAndFollowingId(currentUserId, profile.getId()));
+        } else {
+            response.setIsFollowing(false);
+        }
+
+        return response;
+    }
+
     public UserResponse toUserResponse(User user) {
         return toUserResponse(user, null);
     }
@@ -0,0 +1,63 @@
+package com.example.backend.metrics;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Số liệu bão hoà của các executor đặt tên (active, queue, rejected...)
+ */
+@Component
+public class ExecutorMetrics implements MetricsSource {
+
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    public void register(String name, ThreadPoolTaskExecutor executor) {
+        executors.put(name, executor);
+    }
+
+    /**
+     * Bọc rejection policy để đếm số task bị từ chối / bị bỏ
+     */
+    public RejectedExecutionHandler countingRejections(String name, RejectedExecutionHandler delegate) {
+        LongAdder counter = rejections.computeIfAbsent(name, key -> new LongAdder());
+        return (task, executor) -> {
+            counter.increment();
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "executors";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        executors.forEach((name, taskExecutor) -> {
+            ThreadPoolExecutor executor = taskExecutor.getThreadPoolExecutor();
+            int queued = executor.getQueue().size();
+            int capacity = queued + executor.getQueue().remainingCapacity();
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", executor.getActiveCount());
+            stats.put("poolSize", executor.getPoolSize());
+            stats.put("maxPoolSize", executor.getMaximumPoolSize());
+            stats.put("queued", queued);
+            stats.put("queueCapacity", capacity);
+            stats.put("queueUtilization", capacity == 0 ? 0.0 : (double) queued / capacity);
+            stats.put("completed", executor.getCompletedTaskCount());
+            stats.put("rejected", rejections.getOrDefault(name, new LongAdder()).sum());
+            metrics.put(name, stats);
+        });
+        return metrics;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.backend.metrics;
+
+import java.util.Map;
+
+/**
+ * Component nào muốn expose số liệu vận hành (cache, executor, outbox...) thì implement interface này.
+ * {@link com.example.backend.controller.MetricsController} gom tất cả lại qua GET /api/admin/metrics.
+ */
+public interface MetricsSource {
+
+    /**
+     * Tên nhóm metrics, ví dụ "cache.userProfile"
+     */
+    String getMetricsName();
+
+    Map<String, Object> getMetrics();
+}
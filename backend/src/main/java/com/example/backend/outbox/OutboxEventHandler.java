@@ -0,0 +1,19 @@
+package com.example.backend.outbox;
+
+/**
+ * Consumer của các event trong outbox.
+ *
+ * handle() chạy trong transaction cùng với việc ghi processed_events(consumerName, eventId),
+ * nên event bị dispatch lại (at-least-once) không bị xử lý lần hai. Ném exception => rollback và relay thử lại.
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * Tên ổn định của consumer (khoá idempotency), không được đổi khi đã deploy
+     */
+    String getConsumerName();
+
+    boolean supports(Class<?> eventType);
+
+    void handle(Object event);
+}
@@ -0,0 +1,40 @@
+package com.example.backend.outbox;
+
+import com.example.backend.entity.OutboxEvent;
+import com.example.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Ghi domain event vào outbox trong transaction hiện tại: event chỉ tồn tại nếu thay đổi nghiệp vụ được commit,
+ * và không mất khi crash (relay sẽ dispatch sau).
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    static final String EVENT_PACKAGE = "com.example.backend.event.";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Object event) {
+        String eventType = event.getClass().getName();
+        if (!eventType.startsWith(EVENT_PACKAGE)) {
+            throw new IllegalArgumentException("Outbox events must live in " + EVENT_PACKAGE + ": " + eventType);
+        }
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox event " + eventType, e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.backend.outbox;
+
+import com.example.backend.config.AsyncConfig;
+import com.example.backend.entity.OutboxEvent;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đọc outbox theo lô và dispatch cho các {@link OutboxEventHandler} (at-least-once).
+ *
+ * - Claim: SELECT ... FOR UPDATE SKIP LOCKED rồi đẩy available_at tới hết lease, trong một transaction ngắn;
+ *   nhiều node chạy song song không lấy trùng, node chết giữa chừng thì hết lease event được lấy lại
+ * - Mỗi event được xử lý trên notificationExecutor (xem {@link AsyncConfig}); lỗi => backoff luỹ thừa,
+ *   quá maxAttempts thì bỏ cuộc (giữ last_error). Executor đầy thì các event còn lại của lô giữ nguyên lease
+ *   và được lấy lại ở lần sau
+ */
+@Component
+@Slf4j
+public class OutboxRelay implements MetricsSource {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor workers;
+
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLagMillis = new LongAdder();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final long startedAtNanos = System.nanoTime();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OutboxEventHandler> handlers,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       @Qualifier(AsyncConfig.NOTIFICATION_EXECUTOR) Executor workers,
+                       @Value("${app.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${app.outbox.relay.lease:PT1M}") Duration lease,
+                       @Value("${app.outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${app.outbox.retention:P7D}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval:PT0.5S}")
+    public void poll() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+            boolean saturated = false;
+            for (OutboxEvent event : batch) {
+                try {
+                    futures.add(CompletableFuture.runAsync(() -> dispatch(event), workers));
+                } catch (RejectedExecutionException e) {
+                    // Executor đầy: phần còn lại hết lease sẽ được claim lại
+                    rejected.increment();
+                    saturated = true;
+                    break;
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            if (saturated) {
+                return;
+            }
+            // Lô đầy => có thể còn tồn, lấy tiếp luôn không chờ lần poll sau
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxEventRepository.lockDueEventIds(now, batchSize);
+            if (ids.isEmpty()) {
+                return List.<OutboxEvent>of();
+            }
+            outboxEventRepository.claim(ids, now.plus(lease));
+            return outboxEventRepository.findAllById(ids);
+        });
+    }
+
+    private void dispatch(OutboxEvent row) {
+        try {
+            Object event = deserialize(row);
+            for (OutboxEventHandler handler : handlers) {
+                if (!handler.supports(event.getClass())) {
+                    continue;
+                }
+                // processed_events + tác dụng của handler trong cùng transaction
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (outboxEventRepository.markConsumed(handler.getConsumerName(), row.getId()) == 1) {
+                        handler.handle(event);
+                    }
+                });
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.markProcessed(row.getId(), LocalDateTime.now()));
+            recordLag(row);
+            dispatched.increment();
+        } catch (Exception e) {
+            handleFailure(row, e);
+        }
+    }
+
+    private Object deserialize(OutboxEvent row) throws Exception {
+        if (!row.getEventType().startsWith(OutboxPublisher.EVENT_PACKAGE)) {
+            throw new IllegalStateException("Unexpected outbox event type " + row.getEventType());
+        }
+        Class<?> type = Class.forName(row.getEventType());
+        return objectMapper.readValue(row.getPayload(), type);
+    }
+
+    private void handleFailure(OutboxEvent row, Exception e) {
+        failures.increment();
+        int attempts = row.getAttempts() + 1;
+        String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (attempts >= maxAttempts) {
+                dead.increment();
+                log.error("Giving up outbox event {} ({}) after {} attempts", row.getId(), row.getEventType(), attempts, e);
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxEventRepository.markDead(row.getId(), error, now));
+            } else {
+                long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempts, 20));
+                log.warn("Outbox event {} ({}) failed, attempt {}, retrying in {}s: {}",
+                        row.getId(), row.getEventType(), attempts, backoffSeconds, error);
+                transactionTemplate.executeWithoutResult(status ->
+                        outboxEventRepository.markFailed(row.getId(), error, now.plusSeconds(backoffSeconds)));
+            }
+        } catch (Exception updateError) {
+            // Không ghi được trạng thái lỗi: hết lease event sẽ được lấy lại
+            log.error("Failed to record failure of outbox event {}", row.getId(), updateError);
+        }
+    }
+
+    private void recordLag(OutboxEvent row) {
+        long lag = Math.max(0, Duration.between(row.getCreatedAt(), LocalDateTime.now()).toMillis());
+        totalLagMillis.add(lag);
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    /**
+     * Dọn các event đã xử lý quá thời gian lưu giữ
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:PT1H}")
+    public void deleteProcessed() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status -> {
+            outboxEventRepository.deleteConsumedBefore(before);
+            return outboxEventRepository.deleteProcessedBefore(before);
+        });
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} processed outbox events", deleted);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "outbox";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long dispatchedCount = dispatched.sum();
+        double uptimeSeconds = Math.max(1, (System.nanoTime() - startedAtNanos) / 1_000_000_000.0);
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", outboxEventRepository.countPending());
+        metrics.put("oldestPendingAgeMs", outboxEventRepository.findOldestPendingCreatedAt()
+                .map(createdAt -> Duration.between(createdAt, now).toMillis())
+                .orElse(0L));
+        metrics.put("dispatched", dispatchedCount);
+        metrics.put("dispatchedPerSecond", dispatchedCount / uptimeSeconds);
+        metrics.put("failures", failures.sum());
+        metrics.put("dead", dead.sum());
+        metrics.put("rejectedBatches", rejected.sum());
+        metrics.put("lastLagMs", lastLagMillis.get());
+        metrics.put("avgLagMs", dispatchedCount == 0 ? 0.0 : (double) totalLagMillis.sum() / dispatchedCount);
+        metrics.put("maxLagMs", maxLagMillis.get());
+        return metrics;
+    }
+}
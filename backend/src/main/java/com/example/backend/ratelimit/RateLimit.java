@@ -0,0 +1,38 @@
+package com.example.backend.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Giới hạn tần suất request: tối đa {@link #capacity()} request (burst), nạp lại đều trong {@link #perSeconds()} giây.
+ *
+ * - Đặt trên class controller: áp dụng cho các handler ghi dữ liệu (POST/PUT/PATCH/DELETE) của class,
+ *   dùng chung một bucket cho cả class
+ * - Đặt trên method (REST hoặc @MessageMapping): áp dụng riêng cho method đó, ghi đè cấu hình của class
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimit {
+
+    /**
+     * Tên bucket; mặc định là tên class (đặt trên class) hoặc Class#method (đặt trên method)
+     */
+    String name() default "";
+
+    int capacity();
+
+    int perSeconds() default 60;
+
+    KeyType key() default KeyType.USER;
+
+    enum KeyType {
+        /** Theo user đã đăng nhập; request ẩn danh tính theo IP */
+        USER,
+        /** Luôn theo IP */
+        IP
+    }
+}
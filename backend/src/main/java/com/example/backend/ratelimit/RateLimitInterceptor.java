@@ -0,0 +1,67 @@
+package com.example.backend.ratelimit;
+
+import com.example.backend.exception.TooManyRequestsException;
+import com.example.backend.security.UserPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Áp dụng {@link RateLimit} cho REST controller. Vượt giới hạn => 429 + Retry-After
+ * (ném {@link TooManyRequestsException}, xử lý ở GlobalExceptionHandler).
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    // Resolve annotation một lần cho mỗi (method, loại request)
+    private final Map<Method, Optional<RateLimitSpec>> writeSpecs = new ConcurrentHashMap<>();
+    private final Map<Method, Optional<RateLimitSpec>> readSpecs = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        boolean write = isWrite(request.getMethod());
+        Map<Method, Optional<RateLimitSpec>> specs = write ? writeSpecs : readSpecs;
+        Optional<RateLimitSpec> spec = specs.computeIfAbsent(handlerMethod.getMethod(),
+                method -> Optional.ofNullable(RateLimitSpec.resolve(method, write)));
+        if (spec.isEmpty()) {
+            return true;
+        }
+
+        String key = spec.get().bucketKey(currentUserId(), request.getRemoteAddr());
+        long waitNanos = rateLimiter.tryAcquire(key, spec.get().capacity(), spec.get().perSeconds());
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException("Too many requests, please slow down",
+                    RateLimiter.toRetryAfterSeconds(waitNanos));
+        }
+        return true;
+    }
+
+    private static boolean isWrite(String method) {
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.backend.ratelimit;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link RateLimit} đã resolve cho một handler method (tên bucket cụ thể)
+ */
+record RateLimitSpec(String name, int capacity, int perSeconds, RateLimit.KeyType keyType) {
+
+    /**
+     * @param writeRequest request có phải thao tác ghi (annotation trên class chỉ áp dụng cho thao tác ghi)
+     * @return null nếu method không bị giới hạn
+     */
+    static RateLimitSpec resolve(Method method, boolean writeRequest) {
+        RateLimit onMethod = AnnotatedElementUtils.findMergedAnnotation(method, RateLimit.class);
+        if (onMethod != null) {
+            String name = onMethod.name().isEmpty()
+                    ? method.getDeclaringClass().getSimpleName() + "#" + method.getName()
+                    : onMethod.name();
+            return of(name, onMethod);
+        }
+
+        RateLimit onClass = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RateLimit.class);
+        if (onClass != null && writeRequest) {
+            String name = onClass.name().isEmpty() ? method.getDeclaringClass().getSimpleName() : onClass.name();
+            return of(name, onClass);
+        }
+        return null;
+    }
+
+    private static RateLimitSpec of(String name, RateLimit rateLimit) {
+        if (rateLimit.capacity() <= 0 || rateLimit.perSeconds() <= 0) {
+            throw new IllegalStateException("Invalid @RateLimit on " + name);
+        }
+        return new RateLimitSpec(name, rateLimit.capacity(), rateLimit.perSeconds(), rateLimit.key());
+    }
+
+    String bucketKey(Long userId, String clientAddress) {
+        if (keyType == RateLimit.KeyType.USER && userId != null) {
+            return name + ":u:" + userId;
+        }
+        return name + ":ip:" + clientAddress;
+    }
+}
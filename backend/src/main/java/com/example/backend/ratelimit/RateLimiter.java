@@ -0,0 +1,116 @@
+package com.example.backend.ratelimit;
+
+import com.example.backend.metrics.MetricsSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Giữ các {@link TokenBucket} theo key (tên bucket + user/IP).
+ *
+ * Map được chia thành nhiều stripe (mỗi stripe là một ConcurrentHashMap) để việc dọn bucket nhàn rỗi
+ * chạy từng stripe một, không quét một map khổng lồ. Bucket đã đầy lại được xoá vì tạo lại
+ * sẽ cho kết quả y hệt, nên bộ nhớ chỉ tỉ lệ với số client đang hoạt động.
+ */
+@Component
+@Slf4j
+public class RateLimiter implements MetricsSource {
+
+    private static final int STRIPES = 16;
+
+    private final boolean enabled;
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, TokenBucket>[] stripes = new ConcurrentHashMap[STRIPES];
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public RateLimiter(@Value("${app.rate-limit.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Lấy một token cho key.
+     *
+     * @return 0 nếu được phép, ngược lại số nano giây cần chờ
+     */
+    public long tryAcquire(String key, int capacity, int perSeconds) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = stripeFor(key).computeIfAbsent(key,
+                k -> new TokenBucket(capacity, TimeUnit.SECONDS.toNanos(perSeconds), now));
+
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos == 0) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Số giây (làm tròn lên, tối thiểu 1) dùng cho header Retry-After
+     */
+    public static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Xoá các bucket đã đầy lại (client không còn gửi request)
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        int removed = 0;
+        for (ConcurrentHashMap<String, TokenBucket> stripe : stripes) {
+            long now = System.nanoTime();
+            // Có thể lỡ xoá bucket vừa được lấy token cùng lúc: tệ nhất client được thêm một burst, chấp nhận được
+            int before = stripe.size();
+            stripe.values().removeIf(bucket -> bucket.isFull(now));
+            removed += before - stripe.size();
+        }
+        if (removed > 0) {
+            evicted.add(removed);
+            log.debug("Evicted {} idle rate limit buckets", removed);
+        }
+    }
+
+    private ConcurrentHashMap<String, TokenBucket> stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimiter";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        int buckets = 0;
+        for (ConcurrentHashMap<String, TokenBucket> stripe : stripes) {
+            buckets += stripe.size();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("buckets", buckets);
+        metrics.put("allowed", allowed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("evicted", evicted.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.backend.ratelimit;
+
+import com.example.backend.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Áp dụng {@link RateLimit} cho các method @MessageMapping (ví dụ /app/chat.send, /app/chat.typing).
+ * Frame SEND vượt giới hạn bị bỏ qua và client nhận thông báo ở /user/queue/errors kèm retryAfterSeconds.
+ */
+@Component
+@Slf4j
+public class StompRateLimitInterceptor implements ChannelInterceptor {
+
+    public static final String APP_DESTINATION_PREFIX = "/app";
+    public static final String ERROR_QUEUE = "/queue/errors";
+
+    private final RateLimiter rateLimiter;
+    private final ApplicationContext applicationContext;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    // destination đầy đủ (/app/...) -> giới hạn; chỉ ghi một lần khi context khởi động xong
+    private volatile Map<String, RateLimitSpec> specsByDestination = Map.of();
+
+    public StompRateLimitInterceptor(RateLimiter rateLimiter,
+                                     ApplicationContext applicationContext,
+                                     ObjectProvider<SimpMessagingTemplate> messagingTemplate) {
+        this.rateLimiter = rateLimiter;
+        this.applicationContext = applicationContext;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void resolveDestinations() {
+        Map<String, RateLimitSpec> specs = new LinkedHashMap<>();
+        for (Object controller : applicationContext.getBeansWithAnnotation(Controller.class).values()) {
+            for (Method method : AopUtils.getTargetClass(controller).getMethods()) {
+                MessageMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, MessageMapping.class);
+                if (mapping == null) {
+                    continue;
+                }
+                RateLimitSpec spec = RateLimitSpec.resolve(method, true);
+                if (spec == null) {
+                    continue;
+                }
+                for (String destination : mapping.value()) {
+                    specs.put(APP_DESTINATION_PREFIX + destination, spec);
+                }
+            }
+        }
+        specsByDestination = Map.copyOf(specs);
+        log.info("Rate limited STOMP destinations: {}", specs.keySet());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SEND.equals(accessor.getCommand())) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        RateLimitSpec spec = destination != null ? specsByDestination.get(destination) : null;
+        if (spec == null) {
+            return message;
+        }
+
+        Principal user = accessor.getUser();
+        // WebSocket không có IP sẵn trong header, request ẩn danh tính theo session
+        String key = spec.bucketKey(userId(user), "session:" + accessor.getSessionId());
+        long waitNanos = rateLimiter.tryAcquire(key, spec.capacity(), spec.perSeconds());
+        if (waitNanos == 0) {
+            return message;
+        }
+
+        notifyRejected(user, destination, RateLimiter.toRetryAfterSeconds(waitNanos));
+        return null;
+    }
+
+    private void notifyRejected(Principal user, String destination, long retryAfterSeconds) {
+        SimpMessagingTemplate template = messagingTemplate.getIfAvailable();
+        if (user == null || template == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "RATE_LIMITED");
+        payload.put("destination", destination);
+        payload.put("retryAfterSeconds", retryAfterSeconds);
+        template.convertAndSendToUser(user.getName(), ERROR_QUEUE, payload);
+    }
+
+    private static Long userId(Principal user) {
+        if (user instanceof UsernamePasswordAuthenticationToken authentication
+                && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backend.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket lock-free, toàn bộ trạng thái nằm trong một AtomicLong.
+ *
+ * Thay vì lưu (số token, thời điểm refill) rồi cập nhật dưới lock, bucket chỉ lưu
+ * "thời điểm bucket sẽ đầy lại" (theoretical arrival time, như GCRA). Mỗi token tương ứng
+ * với {@code interval} nano giây; lấy một token = đẩy mốc này lên thêm interval bằng một lần CAS.
+ * Hành vi giống hệt token bucket dung lượng {@code capacity}, nạp 1 token mỗi interval.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(int capacity, long periodNanos, long now) {
+        this.intervalNanos = Math.max(1, periodNanos / capacity);
+        this.burstNanos = intervalNanos * capacity;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Lấy một token.
+     *
+     * @return 0 nếu được phép, ngược lại số nano giây cần chờ đến khi có token
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long waitNanos = next - now - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Bucket đã đầy lại: xoá đi cũng không mất thông tin (tạo mới sẽ cho kết quả y hệt)
+     */
+    boolean isFull(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.ConversationInbox;
+import com.example.backend.entity.ConversationInboxId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ConversationInboxRepository extends JpaRepository<ConversationInbox, ConversationInboxId> {
+
+    /**
+     * Inbox của user, conversation có hoạt động mới nhất lên đầu (index (user_id, last_activity DESC))
+     */
+    Page<ConversationInbox> findByUserIdOrderByLastActivityDesc(Long userId, Pageable pageable);
+
+    /**
+     * Ghi tin nhắn mới vào dòng inbox của mọi participant; người nhận + :count chưa đọc
+     * (count = số tin nhắn liên tiếp của cùng sender được ghi trong một lô)
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_inbox SET " +
+            "last_message_id = :messageId, " +
+            "last_message_preview = :preview, " +
+            "last_message_type = :messageType, " +
+            "last_sender_id = :senderId, " +
+            "last_activity = :sentAt, " +
+            "unread_count = unread_count + IF(user_id = :senderId, 0, :count) " +
+            "WHERE conversation_id = :conversationId",
+            nativeQuery = true)
+    int recordMessage(@Param("conversationId") Long conversationId,
+                      @Param("messageId") Long messageId,
+                      @Param("preview") String preview,
+                      @Param("messageType") String messageType,
+                      @Param("senderId") Long senderId,
+                      @Param("sentAt") LocalDateTime sentAt,
+                      @Param("count") int count);
+
+    /**
+     * Tính lại số chưa đọc sau khi user đọc tới :lastReadId: đếm theo khoảng id trên index (conversation_id, id)
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_inbox i SET i.unread_count = (" +
+            "SELECT COUNT(*) FROM messages m " +
+            "WHERE m.conversation_id = :conversationId AND m.id > :lastReadId AND m.sender_id <> :userId) " +
+            "WHERE i.user_id = :userId AND i.conversation_id = :conversationId",
+            nativeQuery = true)
+    int recountUnread(@Param("userId") Long userId,
+                      @Param("conversationId") Long conversationId,
+                      @Param("lastReadId") Long lastReadId);
+
+    /**
+     * Tin nhắn cuối bị xoá: lấy lại tin nhắn mới nhất còn lại (giữ nguyên last_activity)
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_inbox i " +
+            "LEFT JOIN messages m ON m.id = (SELECT MAX(m2.id) FROM messages m2 WHERE m2.conversation_id = :conversationId) " +
+            "SET i.last_message_id = m.id, " +
+            "i.last_message_preview = LEFT(m.content, 255), " +
+            "i.last_message_type = m.message_type, " +
+            "i.last_sender_id = m.sender_id " +
+            "WHERE i.conversation_id = :conversationId AND i.last_message_id = :deletedMessageId",
+            nativeQuery = true)
+    int replaceDeletedLastMessage(@Param("conversationId") Long conversationId,
+                                  @Param("deletedMessageId") Long deletedMessageId);
+
+    /**
+     * Đồng bộ thông tin người còn lại sau khi user đổi profile
+     */
+    @Modifying
+    @Query(value = "UPDATE conversation_inbox i JOIN users u ON u.id = i.other_user_id " +
+            "SET i.other_username = u.username, i.other_full_name = u.full_name, i.other_avatar_url = u.avatar_url " +
+            "WHERE i.other_user_id IN (:userIds)",
+            nativeQuery = true)
+    int refreshOtherUser(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Tạo dòng inbox nhóm cho mọi thành viên chưa có dòng (dùng khi tạo nhóm và khi thêm thành viên)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO conversation_inbox " +
+            "(user_id, conversation_id, conversation_type, group_name, last_activity, unread_count) " +
+            "SELECT cp.user_id, cp.conversation_id, 'GROUP', :groupName, :lastActivity, 0 " +
+            "FROM conversation_participants cp WHERE cp.conversation_id = :conversationId",
+            nativeQuery = true)
+    int insertGroupEntries(@Param("conversationId") Long conversationId,
+                           @Param("groupName") String groupName,
+                           @Param("lastActivity") LocalDateTime lastActivity);
+
+    @Modifying
+    @Query("DELETE FROM ConversationInbox i WHERE i.conversationId = :conversationId AND i.userId = :userId")
+    int deleteEntry(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
+}
@@ -3,11 +3,14 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.ConversationParticipant;
 import com.example.backend.entity.ConversationParticipantId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -32,4 +35,44 @@ public interface ConversationParticipantRepository extends JpaRepository<Convers
             @Param("conversationId") Long conversationId,
             @Param("userId") Long userId
     );
-}
\ No newline at end of file
+
+    /**
+     * Id thành viên của conversation (chỉ đọc primary key, không load entity)
+     */
+    @Query("SELECT cp.user.id FROM ConversationParticipant cp WHERE cp.conversation.id = :conversationId")
+    List<Long> findUserIdsByConversationId(@Param("conversationId") Long conversationId);
+
+    /**
+     * Thành viên tham gia sớm nhất (nhận quyền owner khi owner rời nhóm)
+     */
+    @Query("SELECT cp.user.id FROM ConversationParticipant cp " +
+           "WHERE cp.conversation.id = :conversationId ORDER BY cp.joinedAt ASC, cp.user.id ASC")
+    List<Long> findEarliestMemberIds(@Param("conversationId") Long conversationId, Limit limit);
+
+    /**
+     * Thêm thành viên bằng một câu INSERT ... SELECT: id không tồn tại trong users bị bỏ qua,
+     * thành viên đã có bị bỏ qua (INSERT IGNORE). Trả về số thành viên thực sự được thêm
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO conversation_participants (user_id, conversation_id, joined_at) " +
+            "SELECT u.id, :conversationId, CURRENT_TIMESTAMP FROM users u WHERE u.id IN (:userIds)",
+            nativeQuery = true)
+    int insertMembers(@Param("conversationId") Long conversationId, @Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("DELETE FROM ConversationParticipant cp " +
+           "WHERE cp.conversation.id = :conversationId AND cp.user.id = :userId")
+    int deleteMember(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
+
+    /**
+     * Đẩy last_read_message_id lên (không bao giờ lùi lại); 0 nếu user không thuộc conversation
+     * hoặc đã đọc tới id này rồi
+     */
+    @Modifying
+    @Query("UPDATE ConversationParticipant cp SET cp.lastReadMessageId = :messageId " +
+           "WHERE cp.conversation.id = :conversationId AND cp.user.id = :userId " +
+           "AND (cp.lastReadMessageId IS NULL OR cp.lastReadMessageId < :messageId)")
+    int advanceLastRead(@Param("conversationId") Long conversationId,
+                        @Param("userId") Long userId,
+                        @Param("messageId") Long messageId);
+}
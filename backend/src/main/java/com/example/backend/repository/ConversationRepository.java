@@ -5,10 +5,14 @@ import com.example.backend.entity.Conversation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 @Repository
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
 
@@ -32,4 +36,22 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
            "WHERE p.user.id = :userId " +
            "ORDER BY c.updatedAt DESC")
     Page<Conversation> findByUserId(@Param("userId") Long userId, Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Cập nhật thời điểm hoạt động cuối bằng một câu UPDATE (không cần load entity)
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.updatedAt = :updatedAt WHERE c.id = :conversationId")
+    int touch(@Param("conversationId") Long conversationId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT c.type FROM Conversation c WHERE c.id = :conversationId")
+    Optional<Conversation.ConversationType> findTypeById(@Param("conversationId") Long conversationId);
+
+    /**
+     * Xoá conversation bằng một câu DELETE: participants / messages / inbox bị xoá theo ON DELETE CASCADE
+     * (không load các collection của entity)
+     */
+    @Modifying
+    @Query("DELETE FROM Conversation c WHERE c.id = :conversationId")
+    int deleteConversation(@Param("conversationId") Long conversationId);
+}
@@ -0,0 +1,41 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.DirectConversation;
+import com.example.backend.entity.DirectConversationId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DirectConversationRepository extends JpaRepository<DirectConversation, DirectConversationId> {
+
+    @Query(value = "SELECT conversation_id FROM direct_conversations WHERE user_lo = :userLo AND user_hi = :userHi",
+            nativeQuery = true)
+    Optional<Long> findConversationId(@Param("userLo") Long userLo, @Param("userHi") Long userHi);
+
+    /**
+     * Locking read: luôn thấy bản đã commit mới nhất (không bị snapshot của transaction che mất)
+     */
+    @Query(value = "SELECT conversation_id FROM direct_conversations WHERE user_lo = :userLo AND user_hi = :userHi " +
+            "FOR UPDATE",
+            nativeQuery = true)
+    Optional<Long> lockConversationId(@Param("userLo") Long userLo, @Param("userHi") Long userHi);
+
+    /**
+     * Gắn conversation cho cặp nếu cặp chưa có. Nếu transaction khác đang tạo cùng cặp thì câu này
+     * chờ tới khi bên kia commit rồi giữ nguyên giá trị của bên kia; đọc lại bằng {@link #lockConversationId}
+     * để biết conversation nào thắng.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO direct_conversations (user_lo, user_hi, conversation_id) " +
+            "VALUES (:userLo, :userHi, :conversationId) " +
+            "ON DUPLICATE KEY UPDATE conversation_id = conversation_id",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userLo") Long userLo,
+                       @Param("userHi") Long userHi,
+                       @Param("conversationId") Long conversationId);
+}
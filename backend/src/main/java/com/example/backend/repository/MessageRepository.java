@@ -2,6 +2,7 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -41,4 +45,77 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
      * Đếm số tin nhắn trong conversation
      */
     Long countByConversationId(Long conversationId);
-}
\ No newline at end of file
+
+    /**
+     * Keyset: tin nhắn sau afterId (cũ -> mới), range scan trên index (conversation_id, id).
+     * Join sẵn username / avatar của sender trong cùng query
+     */
+    @Query("SELECT m.id AS id, m.conversation.id AS conversationId, s.id AS senderId, " +
+           "s.username AS senderUsername, s.avatarUrl AS senderAvatarUrl, " +
+           "m.content AS content, m.messageType AS messageType, m.createdAt AS createdAt " +
+           "FROM Message m JOIN m.sender s " +
+           "WHERE m.conversation.id = :conversationId AND m.id > :afterId AND m.id < :upToId " +
+           "ORDER BY m.id ASC")
+    List<MessageView> findAfter(@Param("conversationId") Long conversationId,
+                                @Param("afterId") Long afterId,
+                                @Param("upToId") Long upToId,
+                                Limit limit);
+
+    /**
+     * Keyset: tin nhắn trước beforeId (mới -> cũ), dùng khi cuộn lên lịch sử
+     */
+    @Query("SELECT m.id AS id, m.conversation.id AS conversationId, s.id AS senderId, " +
+           "s.username AS senderUsername, s.avatarUrl AS senderAvatarUrl, " +
+           "m.content AS content, m.messageType AS messageType, m.createdAt AS createdAt " +
+           "FROM Message m JOIN m.sender s " +
+           "WHERE m.conversation.id = :conversationId AND m.id < :beforeId " +
+           "ORDER BY m.id DESC")
+    List<MessageView> findBefore(@Param("conversationId") Long conversationId,
+                                 @Param("beforeId") Long beforeId,
+                                 Limit limit);
+
+    /**
+     * Tin nhắn mới sau cursor trong mọi conversation của user (đồng bộ lại khi reconnect).
+     * Đi từ primary key (user_id, conversation_id) của participants sang range (conversation_id, id) của messages
+     */
+    @Query("SELECT m.id AS id, m.conversation.id AS conversationId, s.id AS senderId, " +
+           "s.username AS senderUsername, s.avatarUrl AS senderAvatarUrl, " +
+           "m.content AS content, m.messageType AS messageType, m.createdAt AS createdAt " +
+           "FROM ConversationParticipant cp JOIN Message m ON m.conversation.id = cp.conversation.id " +
+           "JOIN m.sender s " +
+           "WHERE cp.user.id = :userId AND m.id > :afterId AND m.id < :upToId " +
+           "ORDER BY m.id ASC")
+    List<MessageView> findForUserAfter(@Param("userId") Long userId,
+                                       @Param("afterId") Long afterId,
+                                       @Param("upToId") Long upToId,
+                                       Limit limit);
+
+    /**
+     * Tin nhắn theo danh sách id (kết quả tìm kiếm), mới -> cũ
+     */
+    @Query("SELECT m.id AS id, m.conversation.id AS conversationId, s.id AS senderId, " +
+           "s.username AS senderUsername, s.avatarUrl AS senderAvatarUrl, " +
+           "m.content AS content, m.messageType AS messageType, m.createdAt AS createdAt " +
+           "FROM Message m JOIN m.sender s " +
+           "WHERE m.id IN :ids " +
+           "ORDER BY m.id DESC")
+    List<MessageView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface MessageView {
+        Long getId();
+
+        Long getConversationId();
+
+        Long getSenderId();
+
+        String getSenderUsername();
+
+        String getSenderAvatarUrl();
+
+        String getContent();
+
+        String getMessageType();
+
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.NotificationBadge;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Mọi thao tác đều trên đúng một dòng (primary key) nên O(1) bất kể số notification của user.
+ * Dòng badge cũng là khoá tuần tự hoá các thay đổi trạng thái đọc của cùng một người nhận.
+ */
+@Repository
+public interface NotificationBadgeRepository extends JpaRepository<NotificationBadge, Long> {
+
+    /**
+     * Tạo badge rỗng nếu chưa có (người nhận lần đầu có notification), để findForUpdate luôn khoá được dòng
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT IGNORE INTO notification_badge (recipient_id, unread_count, last_seen_seq, activity_seq) " +
+            "VALUES (:recipientId, 0, 0, 0)",
+            nativeQuery = true)
+    int createIfAbsent(@Param("recipientId") Long recipientId);
+
+    /**
+     * Ghi nhận một hoạt động notification trong một câu: cấp activity seq tiếp theo và cộng unreadDelta
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO notification_badge (recipient_id, unread_count, last_seen_seq, activity_seq) " +
+            "VALUES (:recipientId, :unreadDelta, 0, 1) " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + :unreadDelta, activity_seq = activity_seq + 1",
+            nativeQuery = true)
+    int recordActivity(@Param("recipientId") Long recipientId, @Param("unreadDelta") long unreadDelta);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM NotificationBadge b WHERE b.recipientId = :recipientId")
+    Optional<NotificationBadge> findForUpdate(@Param("recipientId") Long recipientId);
+
+    @Query("SELECT b.unreadCount FROM NotificationBadge b WHERE b.recipientId = :recipientId")
+    Optional<Integer> findUnreadCount(@Param("recipientId") Long recipientId);
+
+    @Query("SELECT b.lastSeenSeq FROM NotificationBadge b WHERE b.recipientId = :recipientId")
+    Optional<Long> findLastSeenSeq(@Param("recipientId") Long recipientId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE notification_badge SET unread_count = GREATEST(0, unread_count + :delta) " +
+            "WHERE recipient_id = :recipientId",
+            nativeQuery = true)
+    int addUnread(@Param("recipientId") Long recipientId, @Param("delta") long delta);
+
+    /**
+     * "Đánh dấu tất cả đã đọc": dời high-water mark tới seq mới nhất
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE notification_badge SET last_seen_seq = activity_seq, unread_count = 0 " +
+            "WHERE recipient_id = :recipientId",
+            nativeQuery = true)
+    int markAllSeen(@Param("recipientId") Long recipientId);
+}
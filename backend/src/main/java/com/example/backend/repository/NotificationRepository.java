@@ -10,52 +10,141 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
     /**
-     * Lấy danh sách notifications của user với phân trang
+     * Lấy danh sách nhóm notifications, nhóm có hoạt động mới nhất lên đầu
      */
-    Page<Notification> findByRecipientIdOrderByCreatedAtDesc(Long recipientId, Pageable pageable);
+    Page<Notification> findByRecipientIdOrderByUpdatedAtDesc(Long recipientId, Pageable pageable);
 
     /**
-     * Lấy số lượng notifications chưa đọc
+     * Thêm một người tác động vào nhóm (recipient, type, post, bucket) bằng một câu upsert:
+     * - chưa có nhóm: tạo dòng mới với actor_count = 1
+     * - đã có: tăng actor_count (trừ khi actor đã nằm trong danh sách gần nhất), đưa actor lên đầu
+     *   recent_actor_ids (giữ tối đa :maxRecent id) và đánh dấu chưa đọc
+     * Cả hai trường hợp nhóm nhận activity_seq mới của người nhận (xem notification_badge).
+     *
+     * Lưu ý: MySQL gán các cột trong ON DUPLICATE KEY UPDATE theo thứ tự, nên actor_count phải đứng
+     * trước recent_actor_ids (để còn so với danh sách cũ).
      */
-    @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipientId = :recipientId AND n.isRead = false")
-    Long countUnreadNotifications(@Param("recipientId") Long recipientId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO notifications " +
+            "(recipient_id, sender_id, type, post_id, is_read, created_at, updated_at, bucket_start, actor_count, recent_actor_ids, activity_seq) " +
+            "VALUES (:recipientId, :actorId, :type, :postId, false, :now, :now, :bucketStart, 1, CAST(:actorId AS CHAR), :activitySeq) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "actor_count = actor_count + IF(FIND_IN_SET(CAST(:actorId AS CHAR), recent_actor_ids) > 0, 0, 1), " +
+            "recent_actor_ids = SUBSTRING_INDEX(CONCAT_WS(',', CAST(:actorId AS CHAR), NULLIF(TRIM(BOTH ',' FROM " +
+            "REPLACE(CONCAT(',', IFNULL(recent_actor_ids, ''), ','), CONCAT(',', :actorId, ','), ',')), '')), ',', :maxRecent), " +
+            "sender_id = :actorId, " +
+            "is_read = false, " +
+            "updated_at = :now, " +
+            "activity_seq = :activitySeq",
+            nativeQuery = true)
+    int upsertGroupedNotification(
+            @Param("recipientId") Long recipientId,
+            @Param("actorId") Long actorId,
+            @Param("type") String type,
+            @Param("postId") Long postId,
+            @Param("bucketStart") java.time.LocalDateTime bucketStart,
+            @Param("now") java.time.LocalDateTime now,
+            @Param("maxRecent") int maxRecent,
+            @Param("activitySeq") long activitySeq
+    );
 
     /**
-     * Đánh dấu tất cả notifications của user là đã đọc
+     * Đánh dấu một notification cụ thể là đã đọc; trả về 0 nếu không tồn tại hoặc đã đọc từ trước
+     * (is_read = true hoặc đã nằm dưới high-water mark {@code lastSeenSeq})
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientId = :recipientId AND n.isRead = false")
-    int markAllAsRead(@Param("recipientId") Long recipientId);
+    @Query("UPDATE Notification n SET n.isRead = true " +
+            "WHERE n.id = :notificationId AND n.recipientId = :recipientId AND n.isRead = false " +
+            "AND n.activitySeq > :lastSeenSeq")
+    int markAsRead(@Param("notificationId") Long notificationId,
+                   @Param("recipientId") Long recipientId,
+                   @Param("lastSeenSeq") long lastSeenSeq);
+
+    boolean existsByIdAndRecipientId(Long id, Long recipientId);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :recipientId AND n.type = :type " +
+            "AND n.bucketStart = :bucketStart " +
+            "AND ((:postId IS NULL AND n.postId IS NULL) OR n.postId = :postId)")
+    java.util.Optional<Notification> findGroup(
+            @Param("recipientId") Long recipientId,
+            @Param("type") Notification.NotificationType type,
+            @Param("postId") Long postId,
+            @Param("bucketStart") java.time.LocalDateTime bucketStart
+    );
 
     /**
-     * Đánh dấu một notification cụ thể là đã đọc
+     * Notification của post (để xoá cùng post: bảng partition không có foreign key cascade)
      */
-    @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :notificationId AND n.recipientId = :recipientId")
-    int markAsRead(@Param("notificationId") Long notificationId, @Param("recipientId") Long recipientId);
+    @Query("SELECT n.id FROM Notification n WHERE n.postId = :postId")
+    List<Long> findIdsByPostId(@Param("postId") Long postId);
+
+    // ===== Retention: các câu dưới đây chỉ quét partition có bucket_start < cutoff và đi theo id (keyset) =====
+
+    /**
+     * Khoá một lô notification đã đọc (is_read hoặc nằm dưới high-water mark của badge),
+     * không còn hoạt động từ trước {@code cutoff}
+     */
+    @Query(value = "SELECT n.id FROM notifications n " +
+            "LEFT JOIN notification_badge b ON b.recipient_id = n.recipient_id " +
+            "WHERE n.bucket_start < :cutoff AND n.updated_at < :cutoff AND n.id > :afterId " +
+            "AND (n.is_read = true OR n.activity_seq <= b.last_seen_seq) " +
+            "ORDER BY n.id LIMIT :limit FOR UPDATE OF n",
+            nativeQuery = true)
+    List<Long> lockArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("afterId") long afterId,
+                                 @Param("limit") int limit);
+
+    /**
+     * Khoá một lô notification (đọc hoặc chưa đọc) thuộc bucket trước {@code cutoff}
+     */
+    @Query(value = "SELECT id FROM notifications " +
+            "WHERE bucket_start < :cutoff AND id > :afterId " +
+            "ORDER BY id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockExpiredIds(@Param("cutoff") LocalDateTime cutoff,
+                              @Param("afterId") long afterId,
+                              @Param("limit") int limit);
 
     /**
-     * Xóa notification cũ (optional - để cleanup)
+     * Số nhóm chưa đọc theo người nhận trong một lô, để trừ vào badge trước khi xoá
      */
+    @Query(value = "SELECT n.recipient_id AS recipientId, COUNT(*) AS unreadCount FROM notifications n " +
+            "JOIN notification_badge b ON b.recipient_id = n.recipient_id " +
+            "WHERE n.id IN (:ids) AND n.is_read = false AND n.activity_seq > b.last_seen_seq " +
+            "GROUP BY n.recipient_id",
+            nativeQuery = true)
+    List<UnreadByRecipient> countUnreadByRecipient(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notifications_archive " +
+            "(id, recipient_id, sender_id, type, post_id, actor_count, created_at, updated_at, archived_at) " +
+            "SELECT id, recipient_id, sender_id, type, post_id, actor_count, created_at, updated_at, :now " +
+            "FROM notifications WHERE id IN (:ids)",
+            nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
     @Modifying
-    @Query("DELETE FROM Notification n WHERE n.recipientId = :recipientId AND n.createdAt < :beforeDate")
-    int deleteOldNotifications(@Param("recipientId") Long recipientId, @Param("beforeDate") java.time.LocalDateTime beforeDate);
+    @Query(value = "DELETE FROM notifications WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
-     * Kiểm tra xem đã có notification tương tự chưa (để tránh duplicate)
+     * Xoá tối đa {@code limit} dòng archive cũ hơn {@code cutoff}
      */
-    @Query("SELECT COUNT(n) > 0 FROM Notification n WHERE n.recipientId = :recipientId " +
-            "AND n.senderId = :senderId AND n.type = :type AND n.postId = :postId " +
-            "AND n.createdAt > :sinceTime")
-    boolean existsSimilarNotification(
-            @Param("recipientId") Long recipientId,
-            @Param("senderId") Long senderId,
-            @Param("type") Notification.NotificationType type,
-            @Param("postId") Long postId,
-            @Param("sinceTime") java.time.LocalDateTime sinceTime
-    );
-}
\ No newline at end of file
+    @Modifying
+    @Query(value = "DELETE FROM notifications_archive WHERE updated_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteArchivedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    interface UnreadByRecipient {
+        Long getRecipientId();
+
+        Long getUnreadCount();
+    }
+}
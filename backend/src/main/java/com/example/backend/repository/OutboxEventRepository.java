@@ -0,0 +1,69 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Khoá các event đến hạn; SKIP LOCKED để nhiều node relay song song không tranh nhau cùng dòng
+     */
+    @Query(value = "SELECT id FROM outbox_events " +
+            "WHERE processed_at IS NULL AND available_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDueEventIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Claim: đẩy available_at tới hết lease, node khác chỉ lấy lại được nếu lease hết mà chưa xong
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.availableAt = :leaseUntil WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.processedAt = :now WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+            "e.availableAt = :retryAt WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error, @Param("retryAt") LocalDateTime retryAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+            "e.processedAt = :now WHERE e.id = :id")
+    int markDead(@Param("id") Long id, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    /**
+     * Ghi nhận consumer đã xử lý event; trả về 0 nếu đã xử lý từ trước
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO processed_events (consumer, event_id) VALUES (:consumer, :eventId)",
+            nativeQuery = true)
+    int markConsumed(@Param("consumer") String consumer, @Param("eventId") Long eventId);
+
+    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.processedAt IS NULL")
+    long countPending();
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.processedAt IS NULL")
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "DELETE FROM processed_events WHERE processed_at < :before", nativeQuery = true)
+    int deleteConsumedBefore(@Param("before") LocalDateTime before);
+}
@@ -9,6 +9,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
     
@@ -37,4 +41,18 @@ public interface PostRepository extends JpaRepository<Post, Long> {
             "(SELECT f.following.id FROM Follower f WHERE f.follower.id = :userId) " +
             "ORDER BY p.createdAt DESC")
     Page<Post> findFollowingPosts(@Param("userId") Long userId, Pageable pageable);
-}
\ No newline at end of file
+
+    // Chỉ lấy id chủ post (không load Post + User EAGER)
+    @Query("SELECT p.user.id FROM Post p WHERE p.id = :postId")
+    Optional<Long> findOwnerIdById(@Param("postId") Long postId);
+
+    // Ảnh thumbnail của nhiều post trong một query
+    @Query("SELECT p.id AS id, p.imageUrl AS imageUrl FROM Post p WHERE p.id IN :postIds")
+    List<PostThumbnail> findThumbnailsByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    interface PostThumbnail {
+        Long getId();
+
+        String getImageUrl();
+    }
+}
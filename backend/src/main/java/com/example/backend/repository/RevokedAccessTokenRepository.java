@@ -0,0 +1,31 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.RevokedAccessToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, Long> {
+
+    /**
+     * Các bản ghi còn hiệu lực tạo từ {@code since} (đồng bộ định kỳ theo cửa sổ chồng lấn)
+     */
+    @Query("SELECT r FROM RevokedAccessToken r WHERE r.createdAt >= :since AND r.expiresAt > :now")
+    List<RevokedAccessToken> findActiveCreatedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    /**
+     * Mọi bản ghi còn hiệu lực (khi khởi động và khi quét lại toàn bộ định kỳ)
+     */
+    @Query("SELECT r FROM RevokedAccessToken r WHERE r.expiresAt > :now")
+    List<RevokedAccessToken> findActive(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedAccessToken r WHERE r.expiresAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
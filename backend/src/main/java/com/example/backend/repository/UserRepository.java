@@ -3,8 +3,13 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +22,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
     
     Boolean existsByEmail(String email);
-}
\ No newline at end of file
+    
+    /**
+     * Chỉ cập nhật cột password (re-hash khi đăng nhập), không load/ghi lại cả entity
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
+    
+    /**
+     * Chỉ lấy các cột hiển thị (không load password, bio... của entity) cho nhiều user trong một query
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.fullName AS fullName, u.avatarUrl AS avatarUrl " +
+           "FROM User u WHERE u.id IN :ids")
+    List<UserSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    interface UserSummary {
+        Long getId();
+        
+        String getUsername();
+        
+        String getFullName();
+        
+        String getAvatarUrl();
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.backend.search;
+
+import com.example.backend.archive.ArchivedMessage;
+import com.example.backend.config.ChunkPause;
+import com.example.backend.config.SchedulingConfig;
+import com.example.backend.entity.Message;
+import com.example.backend.metrics.MetricsSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inverted index cho tìm kiếm tin nhắn (bảng message_search_terms, xem migration V12).
+ *
+ * - Ghi: term của tin nhắn được insert trong cùng transaction với tin nhắn (writer của MessageIngestQueue,
+ *   ChatbotService) nên index không bao giờ lệch với bảng messages. Xoá tin nhắn thì xoá term qua
+ *   {@link #remove}; xoá conversation thì FK ON DELETE CASCADE xoá term theo; xoá user thì trigger trên users
+ *   (V14) xoá term của tin nhắn của user. Tin nhắn đã chuyển sang cold storage vẫn giữ term (MessageArchiveService)
+ * - Đọc: đi từ conversation của user (primary key participants) sang range (conversation_id, term) của term
+ *   hiếm nhất, keyset theo message_id và tối đa một trang mỗi conversation; các term còn lại kiểm tra bằng
+ *   EXISTS trên primary key (conversation_id, term, message_id). Chi phí một trang theo kích thước trang và
+ *   số conversation của user, không theo độ dài lịch sử
+ * - Backfill: tin nhắn có trước index được index theo lô id tăng dần (mỗi lô một transaction ngắn, giữ khoá
+ *   dòng tiến độ nên nhiều node chạy cùng lúc sẽ lần lượt, không làm trùng)
+ */
+@Component
+@Slf4j
+public class MessageSearchIndex implements MetricsSource {
+
+    private static final String INSERT_PREFIX =
+            "INSERT IGNORE INTO message_search_terms (conversation_id, term, message_id) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?)";
+    // Giữ mỗi câu INSERT dưới giới hạn 65535 placeholder của MySQL
+    private static final int MAX_ROWS_PER_INSERT = 5000;
+    // Đếm posting của mỗi term tới tối đa ngần này dòng để chọn term dẫn truy vấn
+    private static final int RARITY_PROBE_LIMIT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean backfillEnabled;
+    private final int chunkSize;
+    private final Duration chunkPause;
+
+    private final LongAdder indexedMessages = new LongAdder();
+    private final LongAdder indexedTerms = new LongAdder();
+    private final LongAdder backfilledMessages = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder totalQueryMicros = new LongAdder();
+    private final AtomicLong maxQueryMicros = new AtomicLong();
+    private final AtomicLong backfillPosition = new AtomicLong();
+    private final AtomicLong backfillTarget = new AtomicLong();
+    private final AtomicReference<LocalDateTime> backfillCompletedAt = new AtomicReference<>();
+
+    public MessageSearchIndex(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.messages.search.backfill.enabled:true}") boolean backfillEnabled,
+                              @Value("${app.messages.search.backfill.chunk-size:1000}") int chunkSize,
+                              @Value("${app.messages.search.backfill.chunk-pause:PT0.05S}") Duration chunkPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillEnabled = backfillEnabled;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkPause = chunkPause;
+    }
+
+    /**
+     * Index một tin nhắn; gọi trong transaction đã insert tin nhắn
+     */
+    public void index(Message message) {
+        index(List.of(message));
+    }
+
+    /**
+     * Index một lô tin nhắn bằng một INSERT nhiều dòng; gọi trong transaction đã insert các tin nhắn
+     */
+    public void index(Collection<Message> messages) {
+        List<IndexRow> rows = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            rows.add(new IndexRow(message.getId(), message.getConversation().getId(), message.getContent()));
+        }
+        insertTerms(rows);
+        indexedMessages.add(messages.size());
+    }
+
+    /**
+     * Index tin nhắn vừa được gom vào block lưu trữ (idempotent)
+     */
+    public void index(Long conversationId, List<ArchivedMessage> messages) {
+        List<IndexRow> rows = new ArrayList<>(messages.size());
+        for (ArchivedMessage message : messages) {
+            rows.add(new IndexRow(message.id(), conversationId, message.content()));
+        }
+        insertTerms(rows);
+    }
+
+    /**
+     * Xoá term của một tin nhắn; gọi trong transaction xoá tin nhắn
+     */
+    public void remove(Long messageId) {
+        jdbcTemplate.update("DELETE FROM message_search_terms WHERE message_id = ?", messageId);
+    }
+
+    /**
+     * Tin nhắn (mới -> cũ, nhỏ hơn beforeId) thuộc conversation của user và chứa đủ mọi term
+     */
+    public List<Hit> findMessages(Long userId, Set<String> terms, long beforeId, int limit) {
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        long startedAt = System.nanoTime();
+
+        String driving = rarestTerm(userId, terms, beforeId);
+        List<String> others = terms.stream().filter(term -> !term.equals(driving)).toList();
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT d.message_id, d.conversation_id FROM conversation_participants cp " +
+                "JOIN LATERAL (" +
+                "SELECT t.message_id, t.conversation_id FROM message_search_terms t " +
+                "WHERE t.conversation_id = cp.conversation_id AND t.term = ? AND t.message_id < ?");
+        for (int i = 0; i < others.size(); i++) {
+            sql.append(" AND EXISTS (SELECT 1 FROM message_search_terms o WHERE o.conversation_id = t.conversation_id" +
+                    " AND o.term = ? AND o.message_id = t.message_id)");
+        }
+        // Mỗi conversation đóng góp tối đa một trang => không conversation nào bị quét hết lịch sử
+        sql.append(" ORDER BY t.message_id DESC LIMIT ?) d ON TRUE " +
+                "WHERE cp.user_id = ? ORDER BY d.message_id DESC LIMIT ?");
+
+        List<Object> params = new ArrayList<>(others.size() + 5);
+        params.add(driving);
+        params.add(beforeId);
+        params.addAll(others);
+        params.add(limit);
+        params.add(userId);
+        params.add(limit);
+        List<Hit> hits = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new Hit(rs.getLong(1), rs.getLong(2)), params.toArray());
+
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+        queries.increment();
+        totalQueryMicros.add(elapsedMicros);
+        maxQueryMicros.accumulateAndGet(elapsedMicros, Math::max);
+        return hits;
+    }
+
+    /**
+     * Term có ít posting nhất trong conversation của user (đếm có giới hạn, nên mỗi term tốn tối đa
+     * RARITY_PROBE_LIMIT dòng index)
+     */
+    private String rarestTerm(Long userId, Set<String> terms, long beforeId) {
+        if (terms.size() == 1) {
+            return terms.iterator().next();
+        }
+        String rarest = null;
+        long rarestCount = Long.MAX_VALUE;
+        for (String term : terms) {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM conversation_participants cp " +
+                    "JOIN message_search_terms t ON t.conversation_id = cp.conversation_id " +
+                    "WHERE cp.user_id = ? AND t.term = ? AND t.message_id < ? LIMIT ?) p",
+                    Long.class, userId, term, beforeId, RARITY_PROBE_LIMIT);
+            long postings = count != null ? count : 0;
+            if (postings < rarestCount) {
+                rarest = term;
+                rarestCount = postings;
+            }
+            if (postings == 0) {
+                // Có term không xuất hiện => term đó dẫn truy vấn, trả rỗng ngay từ index
+                break;
+            }
+        }
+        return rarest;
+    }
+
+    @Scheduled(scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER,
+               fixedDelayString = "${app.messages.search.backfill.interval:PT1M}",
+               initialDelayString = "${app.messages.search.backfill.initial-delay:PT30S}")
+    public void scheduledBackfill() {
+        if (!backfillEnabled || backfillCompletedAt.get() != null) {
+            return;
+        }
+        try {
+            runBackfill();
+        } catch (Exception e) {
+            log.error("Message search backfill failed", e);
+        }
+    }
+
+    /**
+     * Index tin nhắn trong khoảng (last_message_id, upto_message_id] theo lô cho tới khi xong
+     */
+    public void runBackfill() {
+        long startedAt = System.nanoTime();
+        long total = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> backfillChunk());
+            if (count == null || count < 0) {
+                backfillCompletedAt.compareAndSet(null, LocalDateTime.now());
+                if (total > 0) {
+                    log.info("Message search backfill completed: {} messages in {} ms",
+                            total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                }
+                return;
+            }
+            total += count;
+            if (!ChunkPause.sleep(chunkPause)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Một lô backfill; -1 khi không còn gì để làm
+     */
+    private int backfillChunk() {
+        List<long[]> state = jdbcTemplate.query(
+                "SELECT last_message_id, upto_message_id FROM message_search_backfill WHERE id = 1 FOR UPDATE",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        if (state.isEmpty()) {
+            return -1;
+        }
+        long lastId = state.get(0)[0];
+        long uptoId = state.get(0)[1];
+        backfillPosition.set(lastId);
+        backfillTarget.set(uptoId);
+        if (lastId >= uptoId) {
+            return -1;
+        }
+
+        List<IndexRow> rows = jdbcTemplate.query(
+                "SELECT id, conversation_id, content FROM messages " +
+                "WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new IndexRow(rs.getLong(1), rs.getLong(2), rs.getString(3)),
+                lastId, uptoId, chunkSize);
+        // Không còn tin nhắn trong khoảng (đã bị xoá): nhảy thẳng tới cuối
+        long nextId = rows.isEmpty() ? uptoId : rows.get(rows.size() - 1).messageId();
+        insertTerms(rows);
+        jdbcTemplate.update("UPDATE message_search_backfill SET last_message_id = ? WHERE id = 1", nextId);
+
+        backfillPosition.set(nextId);
+        backfilledMessages.add(rows.size());
+        return rows.size();
+    }
+
+    private void insertTerms(List<IndexRow> rows) {
+        List<Object> params = new ArrayList<>();
+        for (IndexRow row : rows) {
+            for (String term : MessageTokenizer.tokenize(row.content())) {
+                params.add(row.conversationId());
+                params.add(term);
+                params.add(row.messageId());
+                if (params.size() == MAX_ROWS_PER_INSERT * 3) {
+                    flushTerms(params);
+                }
+            }
+        }
+        flushTerms(params);
+    }
+
+    private void flushTerms(List<Object> params) {
+        int rowCount = params.size() / 3;
+        if (rowCount == 0) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rowCount * (ROW_PLACEHOLDERS.length() + 2))
+                .append(INSERT_PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDERS);
+        }
+        jdbcTemplate.update(sql.toString(), params.toArray());
+        indexedTerms.add(rowCount);
+        params.clear();
+    }
+
+
+    @Override
+    public String getMetricsName() {
+        return "messages.search";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long queryCount = queries.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queries", queryCount);
+        metrics.put("avgQueryMs", queryCount == 0 ? 0.0 : totalQueryMicros.sum() / 1000.0 / queryCount);
+        metrics.put("maxQueryMs", maxQueryMicros.get() / 1000.0);
+        metrics.put("indexedMessages", indexedMessages.sum());
+        metrics.put("indexedTerms", indexedTerms.sum());
+        metrics.put("backfilledMessages", backfilledMessages.sum());
+        metrics.put("backfillPosition", backfillPosition.get());
+        metrics.put("backfillTarget", backfillTarget.get());
+        metrics.put("backfillCompletedAt", backfillCompletedAt.get());
+        return metrics;
+    }
+
+    public record Hit(Long messageId, Long conversationId) {
+    }
+
+    private record IndexRow(Long messageId, Long conversationId, String content) {
+    }
+}
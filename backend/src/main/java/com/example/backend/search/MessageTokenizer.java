@@ -0,0 +1,46 @@
+package com.example.backend.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tách nội dung tin nhắn / câu tìm kiếm thành term: chữ thường, bỏ dấu tiếng Việt (đ -> d),
+ * tách theo ký tự không phải chữ / số. Dùng chung cho index và query để hai bên luôn khớp.
+ */
+public final class MessageTokenizer {
+
+    public static final int MIN_TERM_LENGTH = 2;
+    public static final int MAX_TERM_LENGTH = 32;
+    public static final int MAX_TERMS_PER_MESSAGE = 100;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private MessageTokenizer() {
+    }
+
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(normalized)) {
+            if (token.length() < MIN_TERM_LENGTH) {
+                continue;
+            }
+            terms.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            if (terms.size() >= MAX_TERMS_PER_MESSAGE) {
+                break;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.backend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Kiểm tra quyền truy cập các endpoint vận hành (/api/admin/**).
+ * Hệ thống chưa có role admin trong DB nên danh sách username được cấu hình qua app.admin.usernames
+ *
+ * Dùng trong SpEL: @PreAuthorize("@adminAccess.isAdmin(authentication)")
+ */
+@Component("adminAccess")
+public class AdminAccess {
+
+    private final Set<String> adminUsernames;
+
+    public AdminAccess(@Value("${app.admin.usernames:}") Set<String> adminUsernames) {
+        this.adminUsernames = adminUsernames;
+    }
+
+    public boolean isAdmin(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        return adminUsernames.contains(authentication.getName());
+    }
+}
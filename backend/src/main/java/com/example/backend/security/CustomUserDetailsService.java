@@ -4,17 +4,23 @@ package com.example.backend.security;
 import com.example.backend.entity.User;
 import com.example.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+@Slf4j
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
     
     @Override
     @Transactional
@@ -25,11 +31,49 @@ public class CustomUserDetailsService implements UserDetailsService {
         return UserPrincipal.create(user);
     }
     
-    @Transactional
+    /**
+     * Load principal theo id, ưu tiên cache.
+     * Không đánh @Transactional để cache hit không phải mở transaction / lấy connection.
+     */
     public UserDetails loadUserById(Long id) {
-        User user = userRepository.findById(id)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
+        return userPrincipalCache.get(id).orElseGet(() -> {
+            User user = userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
+            
+            UserPrincipal principal = UserPrincipal.create(user);
+            userPrincipalCache.put(principal);
+            return principal;
+        });
+    }
+    
+    /**
+     * Load principal cho một JWT đã verify.
+     * Token mới mang sẵn username + role trong claims nên không cần DB;
+     * token cũ (chưa có claims này) fallback về {@link #loadUserById(Long)}.
+     */
+    public UserDetails loadUserFromToken(Long id, String username, String role) {
+        Optional<UserPrincipal> cached = userPrincipalCache.get(id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        if (username == null || role == null) {
+            return loadUserById(id);
+        }
         
-        return UserPrincipal.create(user);
+        UserPrincipal principal = UserPrincipal.fromClaims(id, username, role);
+        userPrincipalCache.put(principal);
+        return principal;
+    }
+    
+    /**
+     * Được DaoAuthenticationProvider gọi sau khi login thành công nếu hash hiện tại
+     * dùng cost thấp hơn cấu hình (app.security.bcrypt-strength) => lưu lại hash mới
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        log.debug("Re-hashed password of user {}", user.getUsername());
+        return ((UserPrincipal) user).withPassword(newPassword);
     }
-}
\ No newline at end of file
+}
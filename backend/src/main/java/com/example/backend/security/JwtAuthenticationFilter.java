@@ -5,6 +5,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.example.backend.tracing.RequestTracing;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,37 +15,32 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
-
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
-    private final JwtTokenProvider tokenProvider;
+    private final JwtTokenVerifier tokenVerifier;
     private final CustomUserDetailsService customUserDetailsService;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
-        try {
+        try (RequestTracing.Span ignored = RequestTracing.span("auth")) {
             String jwt = getJwtFromRequest(request);
-
-                    // THÊM LOG NÀY
-        System.out.println("========== JWT DEBUG ==========");
-        System.out.println("JWT from request: [" + jwt + "]");
-        System.out.println("JWT length: " + (jwt != null ? jwt.length() : "null"));
-        System.out.println("================================");
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromToken(jwt);
+            Optional<VerifiedToken> verifiedToken = tokenVerifier.verify(jwt);
+            if (verifiedToken.isPresent()) {
+                VerifiedToken token = verifiedToken.get();
                 
-                UserDetails userDetails = customUserDetailsService.loadUserById(userId);
+                UserDetails userDetails = customUserDetailsService.loadUserFromToken(
+                    token.getUserId(),
+                    token.getUsername(),
+                    token.getRole()
+                );
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -59,12 +55,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     
     private String getJwtFromRequest(HttpServletRequest request) {
-
         String bearerToken = request.getHeader("Authorization");
-
-         // THÊM LOG
-        System.out.println("Authorization Header: [" + bearerToken + "]");
-
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
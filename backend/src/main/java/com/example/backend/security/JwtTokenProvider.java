@@ -4,6 +4,7 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j; 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -12,72 +13,73 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
+/**
+ * Phát hành access token (JWT, sống ngắn). Việc verify token nằm ở {@link JwtTokenVerifier},
+ * refresh token do RefreshTokenService quản lý.
+ */
 @Component
 @Slf4j 
 public class JwtTokenProvider {
     
+    public static final String CLAIM_USERNAME = "username";
+    public static final String CLAIM_ROLE = "role";
+    
     @Value("${app.jwt.secret:mySecretKeyForJWTTokenGenerationThatIsAtLeast256BitsLongForHS256Algorithm}")
     private String jwtSecret;
     
-    @Value("${app.jwt.expiration:86400000}") // 24 hours in milliseconds
+    // Access token sống ngắn (15 phút); client dùng refresh token để lấy token mới
+    @Value("${app.jwt.expiration:900000}") // 15 minutes in milliseconds
     private long jwtExpirationInMs;
     
+    // ⭐ Derive key một lần khi khởi động (trước đây decode Base64 + hmacShaKeyFor ở mỗi lần parse)
+    private SecretKey signingKey;
+    
+    @PostConstruct
+    void initSigningKey() {
+        this.signingKey = deriveSigningKey();
+    }
     
     public String generateToken(Authentication authentication) {
-        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        
+        return generateToken((UserPrincipal) authentication.getPrincipal());
+    }
+    
+    public String generateToken(UserPrincipal userPrincipal) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
         
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())  // jti, dùng để revoke từng token
                 .subject(Long.toString(userPrincipal.getId()))
+                .claim(CLAIM_USERNAME, userPrincipal.getUsername())
+                .claim(CLAIM_ROLE, userPrincipal.getRole())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
-    
-        
-    public Long getUserIdFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()  // ⭐ 0.12.x: parser() (KHÔNG phải parserBuilder)
-                    .verifyWith(getSigningKey())  // ⭐ 0.12.x: verifyWith() thay vì setSigningKey()
-                    .build()
-                    .parseSignedClaims(token)  // ⭐ 0.12.x: parseSignedClaims() thay vì parseClaimsJws()
-                    .getPayload();  // ⭐ 0.12.x: getPayload() thay vì getBody()
-            
-            return Long.parseLong(claims.getSubject());
-        } catch (Exception e) {
-            log.error("Failed to extract user ID from token", e);
-            throw new RuntimeException("Invalid token");
-        }
+
+    /**
+     * Thời gian sống tối đa của một access token
+     */
+    public Duration getAccessTokenValidity() {
+        return Duration.ofMillis(jwtExpirationInMs);
     }
 
     /**
-     * Validate JWT token
+     * Key dùng chung cho việc ký và verify
      */
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())  // ⭐ verifyWith() thay vì setSigningKey()
-                    .build()
-                    .parseSignedClaims(token);  // ⭐ parseSignedClaims() thay vì parseClaimsJws()
-            return true;
-        } catch (JwtException ex) {  // ⭐ Catch tổng quát JwtException
-            log.error("Invalid JWT token: {}", ex.getMessage());
-            return false;
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
-            return false;
-        }
+    SecretKey getSigningKey() {
+        return signingKey;
     }
 
     /**
      * Get signing key from secret
      */
-    private SecretKey getSigningKey() {  // ⭐ Return type: SecretKey (không phải Key)
+    private SecretKey deriveSigningKey() {  // ⭐ Return type: SecretKey (không phải Key)
         // Option 1: Nếu secret là Base64
         try {
             byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
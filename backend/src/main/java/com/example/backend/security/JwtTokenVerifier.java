@@ -0,0 +1,118 @@
+package com.example.backend.security;
+
+import com.example.backend.cache.BoundedCache;
+import com.example.backend.metrics.MetricsSource;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Verify JWT trong một lần parse duy nhất.
+ * - Parser (và key) được build một lần; JwtParser là immutable, dùng chung giữa các thread
+ * - Token đã verify được cache theo SHA-256 của token cho đến khi hết hạn,
+ *   nên các request tiếp theo với cùng token không phải verify HMAC + parse JSON lại
+ * - Kiểm tra {@link TokenDenyList} ở mọi lần verify (kể cả cache hit), hoàn toàn in-memory
+ */
+@Component
+@Slf4j
+public class JwtTokenVerifier implements MetricsSource {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final BoundedCache<String, VerifiedToken> verifiedTokens;
+    private final TokenDenyList denyList;
+
+    public JwtTokenVerifier(JwtTokenProvider tokenProvider,
+                            TokenDenyList denyList,
+                            @Value("${app.jwt.verification-cache.max-size:20000}") int maxSize,
+                            @Value("${app.jwt.verification-cache.ttl:PT15M}") Duration ttl) {
+        this.parser = Jwts.parser()
+                .verifyWith(tokenProvider.getSigningKey())
+                .build();
+        this.verifiedTokens = new BoundedCache<>("jwtVerification", maxSize, ttl);
+        this.denyList = denyList;
+    }
+
+    /**
+     * Verify token và trả về claims đã parse; empty nếu token không hợp lệ / hết hạn
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+
+        String cacheKey = hash(token);
+        Optional<VerifiedToken> cached = verifiedTokens.get(cacheKey);
+        if (cached.isPresent()) {
+            return cached.filter(verified -> !denyList.isRevoked(verified));
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            VerifiedToken verified = toVerifiedToken(claims);
+
+            Duration remaining = Duration.between(Instant.now(), verified.getExpiresAt());
+            verifiedTokens.put(cacheKey, verified, remaining);
+            if (denyList.isRevoked(verified)) {
+                log.debug("Rejected revoked JWT for user {}", verified.getUserId());
+                return Optional.empty();
+            }
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Invalid JWT token: {}", ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT has no expiration");
+        }
+        return new VerifiedToken(
+                claims.getId(),
+                Long.parseLong(claims.getSubject()),
+                claims.get(JwtTokenProvider.CLAIM_USERNAME, String.class),
+                claims.get(JwtTokenProvider.CLAIM_ROLE, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    private String hash(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        byte[] hashed = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hashed);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cache.jwtVerification";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return verifiedTokens.stats();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.security;
+
+import com.example.backend.exception.ServiceUnavailableException;
+import com.example.backend.metrics.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool riêng, có giới hạn cho việc băm / so khớp mật khẩu (BCrypt tốn CPU có chủ đích).
+ * - Số thread cố định (mặc định = số CPU) nên một đợt login dồn dập không chiếm hết CPU của các request khác
+ * - Hàng đợi có giới hạn: khi đầy thì từ chối ngay (503 + Retry-After) thay vì để request treo
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor implements MetricsSource {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final long retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    public PasswordHashingExecutor(@Value("${app.security.hashing.threads:0}") int threads,
+                                   @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.security.hashing.timeout:PT5S}") Duration timeout,
+                                   @Value("${app.security.hashing.retry-after:PT2S}") Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutNanos = timeout.toNanos();
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+    }
+
+    /**
+     * Chạy task trên pool và chờ kết quả; ném {@link ServiceUnavailableException} khi quá tải
+     */
+    public <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitNanos.add(System.nanoTime() - submittedAt);
+                return task.call();
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw busy();
+        }
+
+        try {
+            T result = future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            completed.increment();
+            return result;
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            timedOut.increment();
+            throw busy();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private ServiceUnavailableException busy() {
+        return new ServiceUnavailableException("Server is busy, please try again later", retryAfterSeconds);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "executor.passwordHashing";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long done = completed.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", executor.getPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueRemaining", executor.getQueue().remainingCapacity());
+        metrics.put("completed", done);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("avgQueueWaitMs", done == 0 ? 0.0 : queueWaitNanos.sum() / 1_000_000.0 / done);
+        return metrics;
+    }
+}
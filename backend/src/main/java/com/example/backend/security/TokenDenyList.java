@@ -0,0 +1,295 @@
+package com.example.backend.security;
+
+import com.example.backend.entity.RevokedAccessToken;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.RevokedAccessTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deny-list in-memory cho access token đã bị revoke, kiểm tra không cần query DB.
+ *
+ * - Revoke từng token (logout): chia bucket theo thời điểm hết hạn của token; mỗi bucket có
+ *   Bloom filter + set chính xác các jti. Phần lớn token không bị revoke nên bị loại ngay ở Bloom filter;
+ *   khi Bloom báo "có thể có" mới tra set. Bucket hết hạn được bỏ nguyên khối, không cần dọn từng phần tử.
+ * - Revoke toàn bộ token của user (đổi mật khẩu): lưu mốc cutoff theo user, token có iat < cutoff bị từ chối.
+ *
+ * Nguồn dữ liệu bền vững là bảng revoked_access_tokens: nạp lúc khởi động và đồng bộ định kỳ
+ * các dòng mới (để các node khác cũng nhận được revoke). Đồng bộ theo created_at với cửa sổ chồng lấn
+ * (sync-overlap) thay vì theo id lớn nhất đã thấy: id AUTO_INCREMENT được cấp lúc insert nên dòng commit
+ * muộn có thể mang id nhỏ hơn dòng đã đồng bộ. Áp dụng lại một dòng là idempotent; ngoài ra cứ
+ * full-resync-interval lại quét toàn bộ revoke còn hiệu lực, phòng transaction commit muộn hơn cả cửa sổ
+ * hoặc lệch đồng hồ giữa các node.
+ */
+@Component
+@Slf4j
+public class TokenDenyList implements MetricsSource {
+
+    private static final int BLOOM_HASHES = 4;
+
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final long bucketSeconds;
+    private final int bloomBits;
+    private final Duration syncOverlap;
+    private final Duration fullResyncInterval;
+
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, UserCutoff> userCutoffs = new ConcurrentHashMap<>();
+    private final AtomicReference<LocalDateTime> lastSyncStartedAt = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> lastFullSyncAt = new AtomicReference<>();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder bloomPositives = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder syncedRows = new LongAdder();
+    private final LongAdder fullSyncs = new LongAdder();
+
+    public TokenDenyList(RevokedAccessTokenRepository revokedAccessTokenRepository,
+                         @Value("${app.security.deny-list.bucket:PT5M}") Duration bucket,
+                         @Value("${app.security.deny-list.bloom-bits:65536}") int bloomBits,
+                         @Value("${app.security.deny-list.sync-overlap:PT2M}") Duration syncOverlap,
+                         @Value("${app.security.deny-list.full-resync-interval:PT10M}") Duration fullResyncInterval) {
+        this.revokedAccessTokenRepository = revokedAccessTokenRepository;
+        this.bucketSeconds = Math.max(1, bucket.toSeconds());
+        this.bloomBits = Math.max(Long.SIZE, bloomBits);
+        this.syncOverlap = syncOverlap;
+        this.fullResyncInterval = fullResyncInterval;
+    }
+
+    @PostConstruct
+    void loadFromDatabase() {
+        int loaded = sync();
+        log.info("Loaded {} access token revocations", loaded);
+    }
+
+    /**
+     * Đồng bộ các revoke mới do node khác ghi vào DB
+     */
+    @Scheduled(fixedDelayString = "${app.security.deny-list.sync-interval:PT30S}",
+               initialDelayString = "${app.security.deny-list.sync-interval:PT30S}")
+    public void scheduledSync() {
+        sync();
+        purgeExpired();
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        checks.increment();
+        boolean revoked = isRevokedByCutoff(token) || isRevokedById(token);
+        if (revoked) {
+            rejections.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Revoke một token theo jti cho đến khi token hết hạn
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        if (tokenId == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        buckets.computeIfAbsent(bucketOf(expiresAt), key -> new Bucket(bloomBits))
+                .add(tokenId);
+    }
+
+    /**
+     * Revoke mọi token của user phát hành trước {@code revokedBefore}.
+     * iat của JWT tính theo giây nên cutoff cũng được làm tròn xuống giây: token cấp lại ngay sau
+     * khi đổi mật khẩu (cùng giây) vẫn dùng được.
+     */
+    public void revokeAllBefore(Long userId, Instant revokedBefore, Instant expiresAt) {
+        UserCutoff cutoff = new UserCutoff(revokedBefore.truncatedTo(ChronoUnit.SECONDS), expiresAt);
+        userCutoffs.merge(userId, cutoff, UserCutoff::later);
+    }
+
+    private boolean isRevokedByCutoff(VerifiedToken token) {
+        if (userCutoffs.isEmpty()) {
+            return false;
+        }
+        UserCutoff cutoff = userCutoffs.get(token.getUserId());
+        if (cutoff == null) {
+            return false;
+        }
+        // Token cũ không có iat: coi như phát hành trước cutoff
+        return token.getIssuedAt() == null || token.getIssuedAt().isBefore(cutoff.revokedBefore);
+    }
+
+    private boolean isRevokedById(VerifiedToken token) {
+        if (token.getTokenId() == null || buckets.isEmpty()) {
+            return false;
+        }
+        Bucket bucket = buckets.get(bucketOf(token.getExpiresAt()));
+        if (bucket == null || !bucket.mightContain(token.getTokenId())) {
+            return false;
+        }
+        bloomPositives.increment();
+        return bucket.contains(token.getTokenId());
+    }
+
+    int sync() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime previousStart = lastSyncStartedAt.get();
+        LocalDateTime lastFull = lastFullSyncAt.get();
+        boolean full = previousStart == null || lastFull == null
+                || !now.isBefore(lastFull.plus(fullResyncInterval));
+
+        // Mốc lấy trước khi query: dòng insert trong lúc query sẽ nằm trong cửa sổ của lần sau
+        List<RevokedAccessToken> rows = full
+                ? revokedAccessTokenRepository.findActive(now)
+                : revokedAccessTokenRepository.findActiveCreatedSince(previousStart.minus(syncOverlap), now);
+        for (RevokedAccessToken row : rows) {
+            Instant expiresAt = toInstant(row.getExpiresAt());
+            if (row.getTokenId() != null) {
+                revokeToken(row.getTokenId(), expiresAt);
+            }
+            if (row.getRevokedBefore() != null) {
+                revokeAllBefore(row.getUserId(), toInstant(row.getRevokedBefore()), expiresAt);
+            }
+        }
+        lastSyncStartedAt.set(now);
+        if (full) {
+            lastFullSyncAt.set(now);
+            fullSyncs.increment();
+        }
+        syncedRows.add(rows.size());
+        return rows.size();
+    }
+
+    void purgeExpired() {
+        Instant now = Instant.now();
+        // Bucket có key < bucket hiện tại chỉ chứa token đã hết hạn
+        buckets.headMap(bucketOf(now)).clear();
+        userCutoffs.values().removeIf(cutoff -> !cutoff.expiresAt.isAfter(now));
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        return expiresAt.getEpochSecond() / bucketSeconds;
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "security.denyList";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        int revokedIds = buckets.values().stream().mapToInt(Bucket::size).sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("buckets", buckets.size());
+        metrics.put("revokedTokenIds", revokedIds);
+        metrics.put("userCutoffs", userCutoffs.size());
+        metrics.put("checks", checks.sum());
+        metrics.put("bloomPositives", bloomPositives.sum());
+        metrics.put("rejections", rejections.sum());
+        metrics.put("syncedRows", syncedRows.sum());
+        metrics.put("fullSyncs", fullSyncs.sum());
+        metrics.put("lastSyncAt", lastSyncStartedAt.get());
+        metrics.put("lastFullSyncAt", lastFullSyncAt.get());
+        return metrics;
+    }
+
+    /**
+     * Bloom filter (bit array lock-free) + set chính xác cho một khoảng thời gian hết hạn
+     */
+    private static final class Bucket {
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+
+        private Bucket(int bitCount) {
+            this.bitCount = bitCount;
+            this.bits = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        private void add(String tokenId) {
+            // Ghi vào set trước rồi mới bật bit: reader thấy bit thì chắc chắn tra được trong set
+            tokenIds.add(tokenId);
+            long hash = hash64(tokenId);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                int word = index >>> 6;
+                long mask = 1L << index;
+                long current;
+                while (((current = bits.get(word)) & mask) == 0
+                        && !bits.compareAndSet(word, current, current | mask)) {
+                    // retry CAS
+                }
+            }
+        }
+
+        private boolean mightContain(String tokenId) {
+            long hash = hash64(tokenId);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean contains(String tokenId) {
+            return tokenIds.contains(tokenId);
+        }
+
+        private int size() {
+            return tokenIds.size();
+        }
+
+        /**
+         * FNV-1a 64 bit + bước trộn cuối, đủ phân tán cho UUID dạng chuỗi
+         */
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.US_ASCII)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+
+    private static final class UserCutoff {
+        private final Instant revokedBefore;
+        private final Instant expiresAt;
+
+        private UserCutoff(Instant revokedBefore, Instant expiresAt) {
+            this.revokedBefore = revokedBefore;
+            this.expiresAt = expiresAt;
+        }
+
+        private static UserCutoff later(UserCutoff a, UserCutoff b) {
+            return a.revokedBefore.isAfter(b.revokedBefore) ? a : b;
+        }
+    }
+}
@@ -15,15 +15,18 @@ import java.util.Collections;
 @AllArgsConstructor
 public class UserPrincipal implements UserDetails {
     
+    public static final String DEFAULT_ROLE = "ROLE_USER";
+    
     private Long id;
     private String username;
     private String email;
     private String password;
+    private String fullName;
     private Collection<? extends GrantedAuthority> authorities;
     
     public static UserPrincipal create(User user) {
         Collection<GrantedAuthority> authorities = Collections.singletonList(
-            new SimpleGrantedAuthority("ROLE_USER")
+            new SimpleGrantedAuthority(DEFAULT_ROLE)
         );
         
         return new UserPrincipal(
@@ -31,10 +34,52 @@ public class UserPrincipal implements UserDetails {
             user.getUsername(),
             user.getEmail(),
             user.getPassword(),
+            user.getFullName(),
             authorities
         );
     }
     
+    /**
+     * Dựng principal trực tiếp từ claims của JWT, không cần truy vấn DB
+     */
+    public static UserPrincipal fromClaims(Long id, String username, String role) {
+        return new UserPrincipal(
+            id,
+            username,
+            null,
+            null,
+            null,
+            Collections.singletonList(new SimpleGrantedAuthority(role))
+        );
+    }
+    
+    /**
+     * Bản sao với password hash mới (sau khi re-hash)
+     */
+    public UserPrincipal withPassword(String newPassword) {
+        return new UserPrincipal(id, username, email, newPassword, fullName, authorities);
+    }
+    
+    /**
+     * Bản sao không chứa password hash, dùng khi giữ principal lâu trong cache
+     */
+    public UserPrincipal withoutPassword() {
+        if (password == null) {
+            return this;
+        }
+        return new UserPrincipal(id, username, email, null, fullName, authorities);
+    }
+    
+    /**
+     * Role chính của user (ví dụ ROLE_USER), dùng để ghi vào JWT
+     */
+    public String getRole() {
+        return authorities.stream()
+            .map(GrantedAuthority::getAuthority)
+            .findFirst()
+            .orElse(DEFAULT_ROLE);
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -0,0 +1,62 @@
+package com.example.backend.security;
+
+import com.example.backend.cache.BoundedCache;
+import com.example.backend.event.UserCredentialsChangedEvent;
+import com.example.backend.event.UserProfileChangedEvent;
+import com.example.backend.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache UserPrincipal theo user id cho các request đã có JWT hợp lệ,
+ * tránh SELECT bảng users ở mỗi API call / STOMP CONNECT.
+ *
+ * Principal trong cache không giữ password hash.
+ */
+@Component
+public class UserPrincipalCache implements MetricsSource {
+
+    private final BoundedCache<Long, UserPrincipal> cache;
+
+    public UserPrincipalCache(@Value("${app.cache.principal.max-size:50000}") int maxSize,
+                              @Value("${app.cache.principal.ttl:PT10M}") Duration ttl) {
+        this.cache = new BoundedCache<>("userPrincipal", maxSize, ttl);
+    }
+
+    public Optional<UserPrincipal> get(Long userId) {
+        return cache.get(userId);
+    }
+
+    public void put(UserPrincipal principal) {
+        cache.put(principal.getId(), principal.withoutPassword());
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserProfileChanged(UserProfileChangedEvent event) {
+        event.getUserIds().forEach(this::evict);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cache.userPrincipal";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return cache.stats();
+    }
+}
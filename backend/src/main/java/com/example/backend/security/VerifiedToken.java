@@ -0,0 +1,21 @@
+package com.example.backend.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Kết quả verify một JWT: các claims cần cho authentication, đã parse sẵn
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final String tokenId;   // jti, null với token phát hành trước khi có jti
+    private final Long userId;
+    private final String username;  // null với token phát hành trước khi có claim username
+    private final String role;      // null với token phát hành trước khi có claim role
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+}
@@ -2,6 +2,7 @@
 package com.example.backend.service;
 
 import com.example.backend.dto.request.LoginRequest;
+import com.example.backend.dto.request.RefreshTokenRequest;
 import com.example.backend.dto.request.RegisterRequest;
 import com.example.backend.dto.response.JwtResponse;
 
@@ -10,4 +11,11 @@ public interface AuthService {
     JwtResponse login(LoginRequest loginRequest);
     
     JwtResponse register(RegisterRequest registerRequest);
+    
+    JwtResponse refresh(RefreshTokenRequest refreshTokenRequest);
+    
+    /**
+     * Revoke access token hiện tại (nếu có) và refresh token (nếu có)
+     */
+    void logout(String accessToken, String refreshToken);
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Conversation;
+import com.example.backend.entity.Message;
+import com.example.backend.entity.User;
+
+import java.util.List;
+
+/**
+ * Duy trì read model conversation_inbox; mọi method chạy trong transaction của thao tác gốc
+ */
+public interface ConversationInboxService {
+
+    /**
+     * Tạo dòng inbox cho cả hai phía khi tạo conversation 1-1
+     */
+    void createEntries(Conversation conversation, User user1, User user2);
+
+    /**
+     * Tạo dòng inbox cho các thành viên nhóm chưa có dòng (sau khi tạo nhóm / thêm thành viên)
+     */
+    void createGroupEntries(Conversation conversation);
+
+    /**
+     * Xoá dòng inbox của thành viên rời nhóm
+     */
+    void removeEntry(Long conversationId, Long userId);
+
+    /**
+     * Cập nhật tin nhắn cuối và số chưa đọc sau khi lưu tin nhắn
+     */
+    void recordMessage(Message message);
+
+    /**
+     * Như {@link #recordMessage} cho một lô tin nhắn (theo thứ tự gửi), gộp thành một UPDATE
+     * cho mỗi (conversation, sender) thay vì mỗi tin nhắn
+     */
+    void recordMessages(List<Message> messages);
+
+    /**
+     * User đã đọc tới lastReadMessageId: số chưa đọc = số tin nhắn của người khác sau id đó
+     */
+    void markRead(Long userId, Long conversationId, Long lastReadMessageId);
+
+    /**
+     * Cập nhật inbox sau khi xoá một tin nhắn
+     */
+    void messageDeleted(Long conversationId, Long messageId);
+}
@@ -0,0 +1,35 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.GroupCreateRequest;
+import com.example.backend.dto.response.GroupConversationResponse;
+
+import java.util.List;
+
+/**
+ * Service interface cho nhóm chat
+ */
+public interface GroupConversationService {
+
+    /**
+     * Tạo nhóm, người tạo là owner
+     * @param ownerId ID người tạo
+     * @param request tên nhóm và thành viên ban đầu
+     * @return GroupConversationResponse
+     */
+    GroupConversationResponse createGroup(Long ownerId, GroupCreateRequest request);
+
+    /**
+     * Thông tin nhóm (chỉ thành viên xem được)
+     */
+    GroupConversationResponse getGroup(Long conversationId, Long userId);
+
+    /**
+     * Thêm thành viên (mọi thành viên đều thêm được)
+     */
+    GroupConversationResponse addMembers(Long conversationId, Long actorId, List<Long> memberIds);
+
+    /**
+     * Xoá thành viên: owner xoá được bất kỳ ai, thành viên chỉ tự rời nhóm được
+     */
+    void removeMember(Long conversationId, Long actorId, Long memberId);
+}
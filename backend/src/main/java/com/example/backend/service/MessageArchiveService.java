@@ -0,0 +1,10 @@
+package com.example.backend.service;
+
+public interface MessageArchiveService {
+
+    /**
+     * Chạy một vòng lưu trữ: gom tin nhắn quá archive-after của từng conversation thành block nén
+     * và xoá chúng khỏi bảng messages
+     */
+    void runArchive();
+}
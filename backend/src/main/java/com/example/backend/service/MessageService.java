@@ -4,6 +4,7 @@ package com.example.backend.service;
 import com.example.backend.dto.request.MessageRequest;
 import com.example.backend.dto.response.ConversationResponse;
 import com.example.backend.dto.response.MessageResponse;
+import com.example.backend.dto.response.MessageSyncResponse;
 import org.springframework.data.domain.Page;
 
 /**
@@ -15,9 +16,10 @@ public interface MessageService {
      * Gửi tin nhắn
      * @param senderId ID người gửi
      * @param messageRequest thông tin tin nhắn
-     * @return MessageResponse
+     * @param listener nhận tin nhắn sau khi đã ghi xuống DB hoặc khi bị bỏ (đẩy real-time / báo lỗi)
+     * @return MessageResponse (ack: tin nhắn đã có id nhưng có thể chưa được ghi)
      */
-    MessageResponse sendMessage(Long senderId, MessageRequest messageRequest);
+    MessageResponse sendMessage(Long senderId, MessageRequest messageRequest, WriteListener listener);
 
     /**
      * Lấy danh sách conversations của user
@@ -38,10 +40,58 @@ public interface MessageService {
      */
     Page<MessageResponse> getMessages(Long conversationId, Long userId, int page, int size);
 
+    /**
+     * Đọc tin nhắn trong conversation theo cursor id.
+     * afterId: tin nhắn mới hơn afterId (cũ -> mới); beforeId: tin nhắn cũ hơn beforeId (mới -> cũ);
+     * không truyền cả hai: trang mới nhất
+     * @param conversationId ID của conversation
+     * @param userId ID của user (để check quyền truy cập)
+     * @param afterId cursor khi đồng bộ tin nhắn mới (có thể null)
+     * @param beforeId cursor khi cuộn lên lịch sử (có thể null)
+     * @param limit số tin nhắn tối đa
+     * @return MessageSyncResponse
+     */
+    MessageSyncResponse getMessagesByCursor(Long conversationId, Long userId, Long afterId, Long beforeId, int limit);
+
+    /**
+     * Tin nhắn mới sau cursor trong mọi conversation của user (catch-up khi reconnect)
+     * @param userId ID của user
+     * @param since cursor của lần đồng bộ trước (0 nếu chưa có)
+     * @param limit số tin nhắn tối đa
+     * @return MessageSyncResponse
+     */
+    MessageSyncResponse syncMessages(Long userId, Long since, int limit);
+
+    /**
+     * Tìm tin nhắn chứa mọi từ trong query, trong các conversation mà user tham gia (mới -> cũ)
+     * @param userId ID của user
+     * @param query từ khoá tìm kiếm
+     * @param beforeId cursor của trang trước (null: trang đầu)
+     * @param limit số tin nhắn tối đa
+     * @return MessageSyncResponse
+     */
+    MessageSyncResponse searchMessages(Long userId, String query, Long beforeId, int limit);
+
     /**
      * Xóa tin nhắn
      * @param messageId ID của tin nhắn
      * @param userId ID của user (chỉ có người gửi mới xóa được)
      */
     void deleteMessage(Long messageId, Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Kết quả ghi của tin nhắn đã ack; gọi trên writer thread của hàng đợi ghi
+     */
+    interface WriteListener {
+
+        /**
+         * Tin nhắn đã được commit
+         */
+        void persisted(MessageResponse message);
+
+        /**
+         * Tin nhắn không ghi được và đã bị bỏ
+         */
+        void dropped(MessageResponse message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.backend.service;
+
+public interface NotificationRetentionService {
+
+    /**
+     * Chạy một vòng retention: chuẩn bị partition tháng tới, chuyển notification đã đọc quá hạn
+     * sang bảng archive, xoá notification / archive quá thời gian lưu giữ
+     */
+    void runRetention();
+}
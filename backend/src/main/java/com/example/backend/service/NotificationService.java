@@ -74,4 +74,12 @@ public interface NotificationService {
      * @param likerId ID của user đã unlike
      */
     void deleteLikeNotification(Long postId, Long likerId);
-}
\ No newline at end of file
+
+    /**
+     * Xoá các notification gắn với một post (khi post bị xoá)
+     *
+     * @param postId ID của post
+     * @param postOwnerId ID của chủ post (người nhận các notification đó)
+     */
+    void deletePostNotifications(Long postId, Long postOwnerId);
+}
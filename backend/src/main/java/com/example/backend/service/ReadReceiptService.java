@@ -0,0 +1,13 @@
+package com.example.backend.service;
+
+/**
+ * Read state của tin nhắn (conversation_participants.last_read_message_id)
+ */
+public interface ReadReceiptService {
+
+    /**
+     * Ghi nhận user đã đọc tới messageId. Không ghi DB ngay: các lần gọi trong một chu kỳ flush
+     * được gộp lại, chỉ id lớn nhất của mỗi (user, conversation) được ghi
+     */
+    void markRead(Long userId, Long conversationId, Long messageId);
+}
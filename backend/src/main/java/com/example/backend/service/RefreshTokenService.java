@@ -0,0 +1,23 @@
+package com.example.backend.service;
+
+public interface RefreshTokenService {
+    
+    /**
+     * Phát hành refresh token mới (chuỗi rotation mới) cho user
+     */
+    String issue(Long userId);
+    
+    /**
+     * Đổi refresh token cũ lấy token mới cùng chuỗi rotation.
+     * Token đã bị rotate mà bị dùng lại => revoke cả chuỗi.
+     */
+    RotatedRefreshToken rotate(String refreshToken);
+    
+    /**
+     * Revoke refresh token (logout); bỏ qua nếu token không tồn tại
+     */
+    void revoke(String refreshToken);
+    
+    record RotatedRefreshToken(Long userId, String refreshToken) {
+    }
+}
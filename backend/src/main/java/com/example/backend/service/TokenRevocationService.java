@@ -0,0 +1,16 @@
+package com.example.backend.service;
+
+import com.example.backend.security.VerifiedToken;
+
+public interface TokenRevocationService {
+    
+    /**
+     * Revoke một access token (logout)
+     */
+    void revokeAccessToken(VerifiedToken token);
+    
+    /**
+     * Revoke mọi access token và refresh token hiện có của user (đổi mật khẩu)
+     */
+    void revokeAllForUser(Long userId);
+}
@@ -1,13 +1,21 @@
 
 package com.example.backend.service.impl;
 
+import com.example.backend.cache.UserProfileCache;
+import com.example.backend.cache.UserProfileSnapshot;
 import com.example.backend.dto.request.LoginRequest;
+import com.example.backend.dto.request.RefreshTokenRequest;
 import com.example.backend.dto.request.RegisterRequest;
 import com.example.backend.dto.response.JwtResponse;
 import com.example.backend.entity.User;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.security.CustomUserDetailsService;
 import com.example.backend.security.JwtTokenProvider;
+import com.example.backend.security.JwtTokenVerifier;
+import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.AuthService;
+import com.example.backend.service.RefreshTokenService;
+import com.example.backend.service.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -25,6 +33,11 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
+    private final JwtTokenVerifier tokenVerifier;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final UserProfileCache userProfileCache;
     
     @Override
     public JwtResponse login(LoginRequest loginRequest) {
@@ -38,10 +51,12 @@ public class AuthServiceImpl implements AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
         
-        User user = userRepository.findByUsername(loginRequest.getUsername())
-            .orElseThrow(() -> new RuntimeException("User not found"));
+        // Dùng lại principal đã load trong lúc authenticate, không query lại bảng users
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        String refreshToken = refreshTokenService.issue(principal.getId());
         
-        return new JwtResponse(jwt, user.getId(), user.getUsername(), user.getEmail(), user.getFullName());
+        return new JwtResponse(jwt, refreshToken, principal.getId(), principal.getUsername(),
+                              principal.getEmail(), principal.getFullName());
     }
     
     @Override
@@ -63,16 +78,36 @@ public class AuthServiceImpl implements AuthService {
         
         User savedUser = userRepository.save(user);
         
-        Authentication authentication = authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                registerRequest.getUsername(),
-                registerRequest.getPassword()
-            )
-        );
+        // Vừa tạo user nên không cần authenticate lại (tránh thêm một lần BCrypt)
+        String jwt = tokenProvider.generateToken(UserPrincipal.create(savedUser));
+        String refreshToken = refreshTokenService.issue(savedUser.getId());
         
-        String jwt = tokenProvider.generateToken(authentication);
-        
-        return new JwtResponse(jwt, savedUser.getId(), savedUser.getUsername(), 
+        return new JwtResponse(jwt, refreshToken, savedUser.getId(), savedUser.getUsername(), 
                               savedUser.getEmail(), savedUser.getFullName());
     }
+    
+    @Override
+    public JwtResponse refresh(RefreshTokenRequest refreshTokenRequest) {
+        RefreshTokenService.RotatedRefreshToken rotated =
+            refreshTokenService.rotate(refreshTokenRequest.getRefreshToken());
+        
+        // Principal và profile đều lấy từ cache nên refresh thường không cần query bảng users
+        UserPrincipal principal = (UserPrincipal) customUserDetailsService.loadUserById(rotated.userId());
+        String jwt = tokenProvider.generateToken(principal);
+        UserProfileSnapshot profile = userProfileCache.getById(rotated.userId())
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        return new JwtResponse(jwt, rotated.refreshToken(), profile.getId(), profile.getUsername(),
+                              profile.getEmail(), profile.getFullName());
+    }
+    
+    @Override
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            tokenVerifier.verify(accessToken).ifPresent(tokenRevocationService::revokeAccessToken);
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
 }
\ No newline at end of file
@@ -6,18 +6,30 @@ import com.example.backend.dto.response.ChatbotMessageResponse;
 import com.example.backend.dto.response.ChatbotResponse;
 import com.example.backend.entity.*;
 import com.example.backend.event.MessageEvent;
+import com.example.backend.exception.ServiceUnavailableException;
+import com.example.backend.ingest.MessageIdAllocator;
 import com.example.backend.repository.*;
+import com.example.backend.search.MessageSearchIndex;
 import com.example.backend.service.ChatbotService;
+import com.example.backend.service.ConversationInboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,12 +42,26 @@ public class ChatbotServiceImpl implements ChatbotService {
     private final ConversationRepository conversationRepository;
     private final ConversationParticipantRepository participantRepository;
     private final MessageRepository messageRepository;
+    private final MessageIdAllocator messageIdAllocator;
     private final UserRepository userRepository;
     private final GeminiService geminiService;
+    private final ConversationInboxService inboxService;
+    private final MessageSearchIndex searchIndex;
     private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     private static final Long BOT_USER_ID = 1L; // ID của bot user
     private static final int CONTEXT_HISTORY_LIMIT = 10; // Số messages gần nhất để gửi làm context
+    private static final String FALLBACK_RESPONSE =
+            "I'm sorry, I'm having trouble responding right now. Please try again later.";
+
+    // Thời gian tối đa chờ Gemini trả lời
+    @Value("${app.chatbot.response-timeout:PT30S}")
+    private Duration responseTimeout;
+
+    // Retry-After khi chatbotExecutor đã đầy
+    @Value("${app.chatbot.retry-after:PT5S}")
+    private Duration retryAfter;
 
     /**
      * Khởi tạo chatbot conversation cho user
@@ -77,6 +103,7 @@ public class ChatbotServiceImpl implements ChatbotService {
                 .joinedAt(LocalDateTime.now())
                 .build();
         participantRepository.save(botParticipant);
+        inboxService.createEntries(conversation, user, botUser);
 
         // Create chatbot conversation record
         ChatbotConversation chatbotConversation = ChatbotConversation.builder()
@@ -108,6 +135,8 @@ public class ChatbotServiceImpl implements ChatbotService {
 
         // Save to messages table
         Message welcomeMessage = Message.builder()
+                .id(messageIdAllocator.nextInTransaction())
+                .newlyAllocated(true)
                 .conversation(chatbotConversation.getConversation())
                 .sender(botUser)
                 .content(welcomeText)
@@ -115,6 +144,8 @@ public class ChatbotServiceImpl implements ChatbotService {
                 .createdAt(LocalDateTime.now())
                 .build();
         welcomeMessage = messageRepository.save(welcomeMessage);
+        inboxService.recordMessage(welcomeMessage);
+        searchIndex.index(welcomeMessage);
 
         // Save to chatbot_messages for tracking
         ChatbotMessage chatbotMessage = ChatbotMessage.builder()
@@ -132,107 +163,22 @@ public class ChatbotServiceImpl implements ChatbotService {
     }
 
     /**
-     * Xử lý message từ user và generate response
+     * Xử lý message từ user và generate response.
+     * Lưu tin nhắn của user và của bot trong hai transaction ngắn; lời gọi Gemini (tới responseTimeout)
+     * nằm ngoài transaction để không giữ connection DB và không giữ mốc id chưa commit của cursor đọc.
      */
     @Override
-    @Transactional
     public ChatbotResponse sendMessage(User user, ChatbotMessageRequest request) {
         try {
-            // Get or create chatbot conversation
-            ChatbotConversation chatbotConversation = getOrCreateChatbotConversation(user);
-
-            // Get bot user
-            User botUser = userRepository.findById(BOT_USER_ID)
-                    .orElseThrow(() -> new RuntimeException("Bot user not found"));
-
-            // Save user message to messages table
-            Message userMessage = Message.builder()
-                    .conversation(chatbotConversation.getConversation())
-                    .sender(user)
-                    .content(request.getContent())
-                    .messageType("text")
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            userMessage = messageRepository.save(userMessage);
-
-            // Save to chatbot_messages
-            ChatbotMessage userChatbotMessage = ChatbotMessage.builder()
-                    .chatbotConversation(chatbotConversation)
-                    .role(ChatbotMessage.Role.user)
-                    .content(request.getContent())
-                    .message(userMessage)
-                    .tokensUsed(0)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            chatbotMessageRepository.save(userChatbotMessage);
-
-            // Publish event để WebSocket gửi user message real-time
-            eventPublisher.publishEvent(new MessageEvent(this, userMessage));
-
-            // Get conversation history for context
-            List<ChatbotMessage> recentMessages = chatbotMessageRepository
-                    .findByChatbotConversationOrderByCreatedAtDesc(
-                            chatbotConversation,
-                            PageRequest.of(0, CONTEXT_HISTORY_LIMIT)
-                    );
-
-            // Reverse để có thứ tự chronological
-            List<GeminiService.ChatMessage> conversationHistory = recentMessages.stream()
-                    .sorted((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()))
-                    .map(msg -> new GeminiService.ChatMessage(
-                            msg.getRole().name(),
-                            msg.getContent()
-                    ))
-                    .collect(Collectors.toList());
-
-            // Get system prompt
-            String systemPrompt = getSystemPrompt();
+            PendingReply pending = transactionTemplate.execute(status -> saveUserMessage(user, request));
 
             // Call Gemini API
-            String botResponse = geminiService.generateResponse(conversationHistory, systemPrompt);
-
-            // Save bot response to messages table
-            Message botMessage = Message.builder()
-                    .conversation(chatbotConversation.getConversation())
-                    .sender(botUser)
-                    .content(botResponse)
-                    .messageType("text")
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            botMessage = messageRepository.save(botMessage);
-
-            // Save to chatbot_messages
-            ChatbotMessage botChatbotMessage = ChatbotMessage.builder()
-                    .chatbotConversation(chatbotConversation)
-                    .role(ChatbotMessage.Role.assistant)
-                    .content(botResponse)
-                    .message(botMessage)
-                    .tokensUsed(estimateTokens(botResponse))
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            chatbotMessageRepository.save(botChatbotMessage);
+            String botResponse = generateBotResponse(pending.conversationHistory(), getSystemPrompt());
 
-            // Update conversation timestamp
-            chatbotConversation.setUpdatedAt(LocalDateTime.now());
-            chatbotConversationRepository.save(chatbotConversation);
-
-            // Publish event để WebSocket gửi bot response real-time
-            eventPublisher.publishEvent(new MessageEvent(this, botMessage));
-
-            // Build response
-            return ChatbotResponse.builder()
-                    .success(true)
-                    .message("Message sent successfully")
-                    .botMessage(ChatbotMessageResponse.builder()
-                            .id(botChatbotMessage.getId())
-                            .role("assistant")
-                            .content(botResponse)
-                            .createdAt(botMessage.getCreatedAt())
-                            .messageId(botMessage.getId())
-                            .build())
-                    .conversationId(chatbotConversation.getConversation().getId())
-                    .build();
+            return transactionTemplate.execute(status -> saveBotMessage(pending, botResponse));
 
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error processing chatbot message: ", e);
             return ChatbotResponse.builder()
@@ -242,6 +188,139 @@ public class ChatbotServiceImpl implements ChatbotService {
         }
     }
 
+    private PendingReply saveUserMessage(User user, ChatbotMessageRequest request) {
+        // Get or create chatbot conversation
+        ChatbotConversation chatbotConversation = getOrCreateChatbotConversation(user);
+
+        // Get bot user
+        User botUser = userRepository.findById(BOT_USER_ID)
+                .orElseThrow(() -> new RuntimeException("Bot user not found"));
+
+        // Save user message to messages table
+        Message userMessage = Message.builder()
+                .id(messageIdAllocator.nextInTransaction())
+                .newlyAllocated(true)
+                .conversation(chatbotConversation.getConversation())
+                .sender(user)
+                .content(request.getContent())
+                .messageType("text")
+                .createdAt(LocalDateTime.now())
+                .build();
+        userMessage = messageRepository.save(userMessage);
+        inboxService.recordMessage(userMessage);
+        searchIndex.index(userMessage);
+
+        // Save to chatbot_messages
+        ChatbotMessage userChatbotMessage = ChatbotMessage.builder()
+                .chatbotConversation(chatbotConversation)
+                .role(ChatbotMessage.Role.user)
+                .content(request.getContent())
+                .message(userMessage)
+                .tokensUsed(0)
+                .createdAt(LocalDateTime.now())
+                .build();
+        chatbotMessageRepository.save(userChatbotMessage);
+
+        // Publish event để WebSocket gửi user message real-time
+        eventPublisher.publishEvent(new MessageEvent(this, userMessage));
+
+        // Get conversation history for context
+        List<ChatbotMessage> recentMessages = chatbotMessageRepository
+                .findByChatbotConversationOrderByCreatedAtDesc(
+                        chatbotConversation,
+                        PageRequest.of(0, CONTEXT_HISTORY_LIMIT)
+                );
+
+        // Reverse để có thứ tự chronological
+        List<GeminiService.ChatMessage> conversationHistory = recentMessages.stream()
+                .sorted((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()))
+                .map(msg -> new GeminiService.ChatMessage(
+                        msg.getRole().name(),
+                        msg.getContent()
+                ))
+                .collect(Collectors.toList());
+
+        return new PendingReply(chatbotConversation, botUser, conversationHistory);
+    }
+
+    private ChatbotResponse saveBotMessage(PendingReply pending, String botResponse) {
+        ChatbotConversation chatbotConversation = pending.chatbotConversation();
+
+        // Save bot response to messages table
+        Message botMessage = Message.builder()
+                .id(messageIdAllocator.nextInTransaction())
+                .newlyAllocated(true)
+                .conversation(chatbotConversation.getConversation())
+                .sender(pending.botUser())
+                .content(botResponse)
+                .messageType("text")
+                .createdAt(LocalDateTime.now())
+                .build();
+        botMessage = messageRepository.save(botMessage);
+        inboxService.recordMessage(botMessage);
+        searchIndex.index(botMessage);
+
+        // Save to chatbot_messages
+        ChatbotMessage botChatbotMessage = ChatbotMessage.builder()
+                .chatbotConversation(chatbotConversation)
+                .role(ChatbotMessage.Role.assistant)
+                .content(botResponse)
+                .message(botMessage)
+                .tokensUsed(estimateTokens(botResponse))
+                .createdAt(LocalDateTime.now())
+                .build();
+        chatbotMessageRepository.save(botChatbotMessage);
+
+        // Update conversation timestamp
+        chatbotConversation.setUpdatedAt(LocalDateTime.now());
+        chatbotConversationRepository.save(chatbotConversation);
+
+        // Publish event để WebSocket gửi bot response real-time
+        eventPublisher.publishEvent(new MessageEvent(this, botMessage));
+
+        // Build response
+        return ChatbotResponse.builder()
+                .success(true)
+                .message("Message sent successfully")
+                .botMessage(ChatbotMessageResponse.builder()
+                        .id(botChatbotMessage.getId())
+                        .role("assistant")
+                        .content(botResponse)
+                        .createdAt(botMessage.getCreatedAt())
+                        .messageId(botMessage.getId())
+                        .build())
+                .conversationId(chatbotConversation.getConversation().getId())
+                .build();
+    }
+
+    /**
+     * Gọi Gemini qua chatbotExecutor (số lời gọi đồng thời có giới hạn) và chờ tối đa responseTimeout
+     */
+    private String generateBotResponse(List<GeminiService.ChatMessage> conversationHistory, String systemPrompt) {
+        CompletableFuture<String> future;
+        try {
+            future = geminiService.generateResponseAsync(conversationHistory, systemPrompt);
+        } catch (TaskRejectedException e) {
+            throw new ServiceUnavailableException("Chatbot đang quá tải, vui lòng thử lại sau",
+                    Math.max(1, retryAfter.toSeconds()));
+        }
+
+        try {
+            return future.get(responseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Không ngắt được I/O đang chờ; thread được giải phóng nhờ read-timeout của RestTemplate
+            future.cancel(true);
+            log.warn("Gemini did not respond within {}", responseTimeout);
+            return FALLBACK_RESPONSE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FALLBACK_RESPONSE;
+        } catch (ExecutionException e) {
+            log.error("Error calling Gemini API: ", e.getCause());
+            return FALLBACK_RESPONSE;
+        }
+    }
+
     /**
      * Get system prompt (có thể lấy từ database)
      */
@@ -259,4 +338,8 @@ public class ChatbotServiceImpl implements ChatbotService {
         // Rough estimation: 1 token ≈ 4 characters
         return text.length() / 4;
     }
-}
\ No newline at end of file
+
+    private record PendingReply(ChatbotConversation chatbotConversation, User botUser,
+                                List<GeminiService.ChatMessage> conversationHistory) {
+    }
+}
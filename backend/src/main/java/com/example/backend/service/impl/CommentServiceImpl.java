@@ -5,8 +5,10 @@ import com.example.backend.dto.request.CommentRequest;
 import com.example.backend.dto.response.CommentResponse;
 import com.example.backend.entity.Comment;
 import com.example.backend.entity.User;
+import com.example.backend.event.NewCommentEvent;
 import com.example.backend.exception.ForbiddenException;
 import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.outbox.OutboxPublisher;
 import com.example.backend.repository.CommentRepository;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.UserRepository;
@@ -24,6 +26,7 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final OutboxPublisher outboxPublisher;
     
     @Override
     @Transactional
@@ -41,6 +44,9 @@ public class CommentServiceImpl implements CommentService {
         
         Comment savedComment = commentRepository.save(comment);
         
+        // Ghi event vào outbox (cùng transaction) để tạo notification
+        outboxPublisher.publish(new NewCommentEvent(postId, userId));
+        
         return mapToResponse(savedComment);
     }
     
@@ -0,0 +1,120 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.Conversation;
+import com.example.backend.entity.ConversationInbox;
+import com.example.backend.entity.Message;
+import com.example.backend.entity.User;
+import com.example.backend.event.UserProfileChangedEvent;
+import com.example.backend.repository.ConversationInboxRepository;
+import com.example.backend.service.ConversationInboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationInboxServiceImpl implements ConversationInboxService {
+
+    private final ConversationInboxRepository inboxRepository;
+
+    @Override
+    @Transactional
+    public void createEntries(Conversation conversation, User user1, User user2) {
+        inboxRepository.saveAll(List.of(
+                newEntry(conversation, user1, user2),
+                newEntry(conversation, user2, user1)));
+    }
+
+    @Override
+    @Transactional
+    public void createGroupEntries(Conversation conversation) {
+        inboxRepository.insertGroupEntries(
+                conversation.getId(),
+                conversation.getName(),
+                conversation.getUpdatedAt() != null ? conversation.getUpdatedAt() : LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void removeEntry(Long conversationId, Long userId) {
+        inboxRepository.deleteEntry(conversationId, userId);
+    }
+
+    @Override
+    @Transactional
+    public void recordMessage(Message message) {
+        recordMessages(List.of(message));
+    }
+
+    @Override
+    @Transactional
+    public void recordMessages(List<Message> messages) {
+        // Gộp theo (conversation, sender); nhóm chứa tin nhắn cuối của conversation được ghi sau cùng
+        // để last_message_* và last_activity là của tin nhắn mới nhất
+        Map<List<Long>, SenderRun> runs = new LinkedHashMap<>();
+        for (Message message : messages) {
+            List<Long> key = List.of(message.getConversation().getId(), message.getSender().getId());
+            SenderRun run = runs.remove(key);
+            runs.put(key, run == null ? new SenderRun(message, 1) : new SenderRun(message, run.count() + 1));
+        }
+        for (SenderRun run : runs.values()) {
+            Message last = run.last();
+            inboxRepository.recordMessage(
+                    last.getConversation().getId(),
+                    last.getId(),
+                    ConversationInbox.preview(last.getContent()),
+                    last.getMessageType(),
+                    last.getSender().getId(),
+                    last.getCreatedAt(),
+                    run.count());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void markRead(Long userId, Long conversationId, Long lastReadMessageId) {
+        inboxRepository.recountUnread(userId, conversationId, lastReadMessageId);
+    }
+
+    @Override
+    @Transactional
+    public void messageDeleted(Long conversationId, Long messageId) {
+        inboxRepository.replaceDeletedLastMessage(conversationId, messageId);
+    }
+
+    /**
+     * Username / tên / avatar của người còn lại được lưu sẵn trong inbox nên phải đồng bộ khi profile đổi
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handleUserProfileChanged(UserProfileChangedEvent event) {
+        int updated = inboxRepository.refreshOtherUser(event.getUserIds());
+        log.debug("Refreshed {} inbox rows for users {}", updated, event.getUserIds());
+    }
+
+    private record SenderRun(Message last, int count) {
+    }
+
+    private ConversationInbox newEntry(Conversation conversation, User owner, User other) {
+        return ConversationInbox.builder()
+                .userId(owner.getId())
+                .conversationId(conversation.getId())
+                .otherUserId(other.getId())
+                .otherUsername(other.getUsername())
+                .otherFullName(other.getFullName())
+                .otherAvatarUrl(other.getAvatarUrl())
+                .lastActivity(conversation.getUpdatedAt() != null
+                        ? conversation.getUpdatedAt()
+                        : LocalDateTime.now())
+                .build();
+    }
+}
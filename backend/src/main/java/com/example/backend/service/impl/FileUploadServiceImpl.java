@@ -2,12 +2,14 @@ package com.example.backend.service.impl;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.example.backend.config.AsyncConfig;
 import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.FileUploadException;
 import com.example.backend.service.FileUploadService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -62,7 +64,11 @@ public class FileUploadServiceImpl implements FileUploadService {
         }
     }
 
+    /**
+     * Chạy trên mediaExecutor: xoá post / đổi avatar không phải chờ Cloudinary
+     */
     @Override
+    @Async(AsyncConfig.MEDIA_EXECUTOR)
     public void deleteFile(String imageUrl) {
         try {
             if (imageUrl == null || imageUrl.isEmpty()) {
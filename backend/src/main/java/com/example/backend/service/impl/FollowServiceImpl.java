@@ -5,9 +5,11 @@ import com.example.backend.dto.response.FollowStatsResponse;
 import com.example.backend.entity.Follower;
 import com.example.backend.entity.User;
 import com.example.backend.event.NewFollowerEvent;
+import com.example.backend.event.UserProfileChangedEvent;
 import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.DuplicateResourceException;
 import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.outbox.OutboxPublisher;
 import com.example.backend.repository.FollowerRepository;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.service.FollowService;
@@ -28,6 +30,7 @@ public class FollowServiceImpl implements FollowService {
     private final FollowerRepository followerRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final OutboxPublisher outboxPublisher;
 
     @Override
     @Transactional
@@ -59,8 +62,9 @@ public class FollowServiceImpl implements FollowService {
 
         followerRepository.save(follower);
 
-        // Publish event để tạo notification
-        eventPublisher.publishEvent(new NewFollowerEvent(this, currentUserId, targetUserId));
+        // Ghi event vào outbox (cùng transaction) để tạo notification
+        outboxPublisher.publish(new NewFollowerEvent(currentUserId, targetUserId));
+        eventPublisher.publishEvent(new UserProfileChangedEvent(this, currentUserId, targetUserId));
 
         log.info("User {} successfully followed user {}", currentUserId, targetUserId);
     }
@@ -82,6 +86,7 @@ public class FollowServiceImpl implements FollowService {
 
         // Xóa follow relationship
         followerRepository.deleteByFollowerIdAndFollowingId(currentUserId, targetUserId);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(this, currentUserId, targetUserId));
 
         log.info("User {} successfully unfollowed user {}", currentUserId, targetUserId);
     }
@@ -1,12 +1,14 @@
 
 package com.example.backend.service.impl;
 
+import com.example.backend.config.AsyncConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -14,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service để gọi Google Gemini API
@@ -67,6 +70,15 @@ public class GeminiService {
         }
     }
 
+    /**
+     * Gọi Gemini trên chatbotExecutor để giới hạn số lời gọi đồng thời tới API ngoài.
+     * Executor đầy => TaskRejectedException ném ra ngay tại chỗ gọi.
+     */
+    @Async(AsyncConfig.CHATBOT_EXECUTOR)
+    public CompletableFuture<String> generateResponseAsync(List<ChatMessage> conversationHistory, String systemPrompt) {
+        return CompletableFuture.completedFuture(generateResponse(conversationHistory, systemPrompt));
+    }
+
     /**
      * Build request body cho Gemini API
      */
@@ -0,0 +1,185 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.cache.ConversationMembershipCache;
+import com.example.backend.dto.request.GroupCreateRequest;
+import com.example.backend.dto.response.GroupConversationResponse;
+import com.example.backend.entity.Conversation;
+import com.example.backend.event.ConversationMembersChangedEvent;
+import com.example.backend.exception.BadRequestException;
+import com.example.backend.exception.ForbiddenException;
+import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.repository.ConversationParticipantRepository;
+import com.example.backend.repository.ConversationRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ConversationInboxService;
+import com.example.backend.service.GroupConversationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class GroupConversationServiceImpl implements GroupConversationService {
+
+    private final ConversationRepository conversationRepository;
+    private final ConversationParticipantRepository participantRepository;
+    private final UserRepository userRepository;
+    private final ConversationInboxService inboxService;
+    private final ConversationMembershipCache membershipCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxMembers;
+
+    public GroupConversationServiceImpl(ConversationRepository conversationRepository,
+                                        ConversationParticipantRepository participantRepository,
+                                        UserRepository userRepository,
+                                        ConversationInboxService inboxService,
+                                        ConversationMembershipCache membershipCache,
+                                        ApplicationEventPublisher eventPublisher,
+                                        @Value("${app.messages.groups.max-members:5000}") int maxMembers) {
+        this.conversationRepository = conversationRepository;
+        this.participantRepository = participantRepository;
+        this.userRepository = userRepository;
+        this.inboxService = inboxService;
+        this.membershipCache = membershipCache;
+        this.eventPublisher = eventPublisher;
+        this.maxMembers = maxMembers;
+    }
+
+    @Override
+    @Transactional
+    public GroupConversationResponse createGroup(Long ownerId, GroupCreateRequest request) {
+        log.info("User {} creating group '{}'", ownerId, request.getName());
+
+        Set<Long> memberIds = new LinkedHashSet<>();
+        memberIds.add(ownerId);
+        memberIds.addAll(request.getMemberIds());
+        if (memberIds.size() < 2) {
+            throw new BadRequestException("A group needs at least one other member");
+        }
+        if (memberIds.size() > maxMembers) {
+            throw new BadRequestException("A group can have at most " + maxMembers + " members");
+        }
+
+        Conversation conversation = conversationRepository.save(Conversation.builder()
+                .type(Conversation.ConversationType.GROUP)
+                .name(request.getName().trim())
+                .owner(userRepository.getReferenceById(ownerId))
+                .build());
+
+        // Một INSERT ... SELECT cho mọi thành viên; id không tồn tại bị bỏ qua
+        int inserted = participantRepository.insertMembers(conversation.getId(), memberIds);
+        if (inserted != memberIds.size()) {
+            throw new ResourceNotFoundException("Some members were not found");
+        }
+        inboxService.createGroupEntries(conversation);
+        eventPublisher.publishEvent(new ConversationMembersChangedEvent(this, conversation.getId()));
+
+        log.info("Created group {} with {} members", conversation.getId(), inserted);
+        return toResponse(conversation, new ArrayList<>(memberIds));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GroupConversationResponse getGroup(Long conversationId, Long userId) {
+        ConversationMembershipCache.Members members = requireGroupMember(conversationId, userId);
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        return toResponse(conversation, new ArrayList<>(members.userIds()));
+    }
+
+    @Override
+    @Transactional
+    public GroupConversationResponse addMembers(Long conversationId, Long actorId, List<Long> memberIds) {
+        ConversationMembershipCache.Members members = requireGroupMember(conversationId, actorId);
+
+        Set<Long> newMemberIds = new LinkedHashSet<>(memberIds);
+        newMemberIds.removeAll(members.userIds());
+        if (newMemberIds.isEmpty()) {
+            throw new BadRequestException("All users are already members of this group");
+        }
+        if (members.userIds().size() + newMemberIds.size() > maxMembers) {
+            throw new BadRequestException("A group can have at most " + maxMembers + " members");
+        }
+
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        int inserted = participantRepository.insertMembers(conversationId, newMemberIds);
+        if (inserted != newMemberIds.size()) {
+            throw new ResourceNotFoundException("Some members were not found");
+        }
+        inboxService.createGroupEntries(conversation);
+        eventPublisher.publishEvent(new ConversationMembersChangedEvent(this, conversationId));
+
+        log.info("User {} added {} members to group {}", actorId, inserted, conversationId);
+        List<Long> allMemberIds = new ArrayList<>(members.userIds());
+        allMemberIds.addAll(newMemberIds);
+        return toResponse(conversation, allMemberIds);
+    }
+
+    @Override
+    @Transactional
+    public void removeMember(Long conversationId, Long actorId, Long memberId) {
+        ConversationMembershipCache.Members members = requireGroupMember(conversationId, actorId);
+        if (!members.userIds().contains(memberId)) {
+            throw new ResourceNotFoundException("User is not a member of this group");
+        }
+
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        Long ownerId = conversation.getOwner() != null ? conversation.getOwner().getId() : null;
+        if (!actorId.equals(memberId) && !actorId.equals(ownerId)) {
+            throw new ForbiddenException("Only the group owner can remove other members");
+        }
+
+        participantRepository.deleteMember(conversationId, memberId);
+        inboxService.removeEntry(conversationId, memberId);
+        eventPublisher.publishEvent(new ConversationMembersChangedEvent(this, conversationId));
+
+        // Owner rời nhóm: chuyển quyền cho thành viên tham gia sớm nhất; không còn ai thì xoá nhóm
+        if (memberId.equals(ownerId)) {
+            List<Long> earliest = participantRepository.findEarliestMemberIds(conversationId, Limit.of(1));
+            if (earliest.isEmpty()) {
+                conversationRepository.deleteConversation(conversationId);
+                log.info("Group {} deleted after its last member left", conversationId);
+                return;
+            }
+            conversation.setOwner(userRepository.getReferenceById(earliest.get(0)));
+        }
+
+        log.info("User {} removed member {} from group {}", actorId, memberId, conversationId);
+    }
+
+    /**
+     * Helper: conversation phải là nhóm và user phải là thành viên (kiểm tra qua cache)
+     */
+    private ConversationMembershipCache.Members requireGroupMember(Long conversationId, Long userId) {
+        ConversationMembershipCache.Members members = membershipCache.get(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        if (!members.isGroup()) {
+            throw new BadRequestException("Conversation is not a group");
+        }
+        if (!members.userIds().contains(userId)) {
+            throw new ForbiddenException("You are not a member of this group");
+        }
+        return members;
+    }
+
+    private GroupConversationResponse toResponse(Conversation conversation, List<Long> memberIds) {
+        return GroupConversationResponse.builder()
+                .id(conversation.getId())
+                .name(conversation.getName())
+                .ownerId(conversation.getOwner() != null ? conversation.getOwner().getId() : null)
+                .memberIds(memberIds)
+                .memberCount(memberIds.size())
+                .createdAt(conversation.getCreatedAt())
+                .build();
+    }
+}
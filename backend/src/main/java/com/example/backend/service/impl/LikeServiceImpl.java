@@ -2,8 +2,10 @@ package com.example.backend.service.impl;
 
 import com.example.backend.entity.Like;
 import com.example.backend.entity.LikeId;
+import com.example.backend.event.NewLikeEvent;
 import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.outbox.OutboxPublisher;
 import com.example.backend.repository.LikeRepository;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.service.LikeService;
@@ -17,6 +19,7 @@ public class LikeServiceImpl implements LikeService {
     
     private final LikeRepository likeRepository;
     private final PostRepository postRepository;
+    private final OutboxPublisher outboxPublisher;
     
     @Override
     @Transactional
@@ -35,6 +38,9 @@ public class LikeServiceImpl implements LikeService {
         Like like = new Like();
         like.setId(new LikeId(userId, postId));
         likeRepository.save(like);
+        
+        // Ghi event vào outbox (cùng transaction) để tạo notification
+        outboxPublisher.publish(new NewLikeEvent(postId, userId));
     }
     
     @Override
@@ -0,0 +1,233 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.archive.ArchivedMessage;
+import com.example.backend.archive.MessageBlockCodec;
+import com.example.backend.config.ChunkPause;
+import com.example.backend.config.SchedulingConfig;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.search.MessageSearchIndex;
+import com.example.backend.service.MessageArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lưu trữ lịch sử tin nhắn cũ (cold storage, xem migration V13):
+ * với mỗi conversation, các tin nhắn cũ nhất (theo id) quá archive-after được gom thành block tối đa block-size
+ * tin nhắn, nén deflate, ghi vào message_archive_blocks và xoá khỏi messages trong cùng một transaction ngắn.
+ *
+ * - Block chưa đủ block-size chỉ được ghi khi mọi tin nhắn còn lại của conversation đều đã quá hạn,
+ *   để conversation đang hoạt động không bị cắt thành nhiều block nhỏ sau mỗi lần chạy
+ * - Term tìm kiếm được index lại cho tin nhắn của block (INSERT IGNORE), phòng khi backfill search chưa chạy tới
+ * - Đọc xuyên qua block do {@link com.example.backend.archive.MessageArchiveReader} đảm nhiệm
+ * - Idempotent: các dòng được khoá (FOR UPDATE) trước khi đóng block nên nhiều node chạy cùng lúc không
+ *   ghi trùng tin nhắn
+ */
+@Service
+@Slf4j
+public class MessageArchiveServiceImpl implements MessageArchiveService, MetricsSource {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final int blockSize;
+    private final int conversationChunkSize;
+    private final Duration chunkPause;
+
+    private final LongAdder archivedMessages = new LongAdder();
+    private final LongAdder archivedBlocks = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private final AtomicLong lastRunMessages = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunAt = new AtomicReference<>();
+    private final AtomicReference<Map<String, Object>> storageTotals = new AtomicReference<>(Map.of());
+
+    public MessageArchiveServiceImpl(JdbcTemplate jdbcTemplate,
+                                     MessageSearchIndex searchIndex,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.messages.archive.enabled:true}") boolean enabled,
+                                     @Value("${app.messages.archive.archive-after:P90D}") Duration archiveAfter,
+                                     @Value("${app.messages.archive.block-size:500}") int blockSize,
+                                     @Value("${app.messages.archive.conversation-chunk-size:500}") int conversationChunkSize,
+                                     @Value("${app.messages.archive.chunk-pause:PT0.05S}") Duration chunkPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.blockSize = Math.max(1, blockSize);
+        this.conversationChunkSize = Math.max(1, conversationChunkSize);
+        this.chunkPause = chunkPause;
+    }
+
+    @Scheduled(scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER,
+               fixedDelayString = "${app.messages.archive.interval:PT6H}",
+               initialDelayString = "${app.messages.archive.initial-delay:PT15M}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runArchive();
+        } catch (Exception e) {
+            log.error("Message archive run failed", e);
+        }
+    }
+
+    @Override
+    public void runArchive() {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(archiveAfter);
+
+        long total = 0;
+        long afterConversationId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> conversationIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM conversations WHERE id > ? ORDER BY id LIMIT ?",
+                    Long.class, afterConversationId, conversationChunkSize);
+            for (Long conversationId : conversationIds) {
+                total += archiveConversation(conversationId, cutoff);
+            }
+            if (conversationIds.size() < conversationChunkSize) {
+                break;
+            }
+            afterConversationId = conversationIds.get(conversationIds.size() - 1);
+        }
+        refreshStorageTotals();
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        lastRunMillis.set(elapsedMillis);
+        lastRunMessages.set(total);
+        lastRunAt.set(now);
+        if (total > 0) {
+            log.info("Message archive: archived {} messages in {} ms", total, elapsedMillis);
+        }
+    }
+
+    /**
+     * Đóng lần lượt các block của conversation, mỗi block một transaction, nghỉ giữa các block
+     */
+    private long archiveConversation(Long conversationId, LocalDateTime cutoff) {
+        long total = 0;
+        while (true) {
+            Integer archived = transactionTemplate.execute(status -> archiveBlock(conversationId, cutoff));
+            if (archived == null || archived == 0) {
+                return total;
+            }
+            total += archived;
+            if (!ChunkPause.sleep(chunkPause)) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Đóng một block từ các tin nhắn cũ nhất của conversation; trả về số tin nhắn đã lưu trữ (0: không có gì)
+     */
+    private int archiveBlock(Long conversationId, LocalDateTime cutoff) {
+        List<ArchivedMessage> oldest = jdbcTemplate.query(
+                "SELECT id, sender_id, content, message_type, created_at FROM messages " +
+                "WHERE conversation_id = ? ORDER BY id LIMIT ? FOR UPDATE",
+                (rs, rowNum) -> new ArchivedMessage(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                        rs.getString(4), rs.getTimestamp(5).toLocalDateTime()),
+                conversationId, blockSize + 1);
+
+        List<ArchivedMessage> block = new ArrayList<>(blockSize);
+        for (ArchivedMessage message : oldest) {
+            if (block.size() >= blockSize || !message.createdAt().isBefore(cutoff)) {
+                break;
+            }
+            block.add(message);
+        }
+        // Block chưa đủ mà conversation vẫn còn tin nhắn mới hơn: đợi gom đủ ở lần chạy sau
+        if (block.isEmpty() || (block.size() < blockSize && block.size() < oldest.size())) {
+            return 0;
+        }
+
+        MessageBlockCodec.Encoded encoded = MessageBlockCodec.encode(block);
+        jdbcTemplate.update(
+                "INSERT INTO message_archive_blocks (conversation_id, first_message_id, last_message_id, " +
+                "message_count, codec, raw_bytes, compressed_bytes, payload) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                conversationId, block.get(0).id(), block.get(block.size() - 1).id(), block.size(),
+                MessageBlockCodec.CODEC, encoded.rawBytes(), encoded.payload().length, encoded.payload());
+
+        List<Object> ids = new ArrayList<>(block.size());
+        block.forEach(message -> ids.add(message.id()));
+        jdbcTemplate.update("DELETE FROM messages WHERE id IN (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+        searchIndex.index(conversationId, block);
+
+        archivedMessages.add(block.size());
+        archivedBlocks.increment();
+        rawBytes.add(encoded.rawBytes());
+        compressedBytes.add(encoded.payload().length);
+        return block.size();
+    }
+
+    /**
+     * Tổng dung lượng của toàn bộ block (mọi node) để báo cáo mức tiết kiệm
+     */
+    private void refreshStorageTotals() {
+        storageTotals.set(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(message_count), 0), COALESCE(SUM(raw_bytes), 0), " +
+                "COALESCE(SUM(compressed_bytes), 0) FROM message_archive_blocks",
+                (rs, rowNum) -> {
+                    long raw = rs.getLong(3);
+                    long compressed = rs.getLong(4);
+                    Map<String, Object> totals = new LinkedHashMap<>();
+                    totals.put("blocks", rs.getLong(1));
+                    totals.put("messages", rs.getLong(2));
+                    totals.put("rawBytes", raw);
+                    totals.put("compressedBytes", compressed);
+                    totals.put("savedBytes", raw - compressed);
+                    totals.put("compressionRatio", compressed == 0 ? 0.0 : (double) raw / compressed);
+                    return totals;
+                }));
+    }
+
+
+    @Override
+    public String getMetricsName() {
+        return "messages.archive";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long raw = rawBytes.sum();
+        long compressed = compressedBytes.sum();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("lastRunAt", lastRunAt.get());
+        metrics.put("lastRunMs", lastRunMillis.get());
+        metrics.put("lastRunMessages", lastRunMessages.get());
+        metrics.put("archivedMessages", archivedMessages.sum());
+        metrics.put("archivedBlocks", archivedBlocks.sum());
+        // rawBytes: kích thước đã serialize trước khi nén (chưa tính overhead dòng / index của InnoDB)
+        metrics.put("rawBytes", raw);
+        metrics.put("compressedBytes", compressed);
+        metrics.put("compressionRatio", compressed == 0 ? 0.0 : (double) raw / compressed);
+        metrics.put("storage", storageTotals.get());
+        return metrics;
+    }
+}
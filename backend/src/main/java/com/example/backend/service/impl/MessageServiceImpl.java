@@ -1,89 +1,196 @@
 
 package com.example.backend.service.impl;
 
+import com.example.backend.archive.MessageArchiveReader;
+import com.example.backend.cache.ConversationMembershipCache;
+import com.example.backend.cache.DirectConversationCache;
+import com.example.backend.cache.UserProfileCache;
+import com.example.backend.cache.UserProfileSnapshot;
 import com.example.backend.dto.request.MessageRequest;
 import com.example.backend.dto.response.ConversationResponse;
 import com.example.backend.dto.response.MessageResponse;
+import com.example.backend.dto.response.MessageSyncResponse;
 import com.example.backend.entity.*;
 import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.ForbiddenException;
 import com.example.backend.exception.ResourceNotFoundException;
+import com.example.backend.ingest.MessageIdAllocator;
+import com.example.backend.ingest.MessageIngestQueue;
+import com.example.backend.metrics.MetricsSource;
 import com.example.backend.repository.*;
+import com.example.backend.search.MessageSearchIndex;
+import com.example.backend.search.MessageTokenizer;
+import com.example.backend.service.ConversationInboxService;
 import com.example.backend.service.MessageService;
+import com.example.backend.service.ReadReceiptService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class MessageServiceImpl implements MessageService {
+public class MessageServiceImpl implements MessageService, MetricsSource {
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SYNC_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+    private static final int MAX_SEARCH_TERMS = 8;
 
     private final MessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
     private final ConversationParticipantRepository participantRepository;
     private final UserRepository userRepository;
+    private final ConversationInboxRepository inboxRepository;
+    private final ConversationInboxService inboxService;
+    private final DirectConversationRepository directConversationRepository;
+    private final DirectConversationCache directConversationCache;
+    private final UserProfileCache userProfileCache;
+    private final ConversationMembershipCache membershipCache;
+    private final MessageIngestQueue messageIngestQueue;
+    private final MessageIdAllocator messageIdAllocator;
+    private final ReadReceiptService readReceiptService;
+    private final MessageSearchIndex searchIndex;
+    private final MessageArchiveReader archiveReader;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder totalSendNanos = new LongAdder();
+    private final long startedAtNanos = System.nanoTime();
 
+    /**
+     * Đường gửi tin nhắn:
+     * - sender / recipient lấy từ cache profile (không findById)
+     * - conversation lấy qua pair key (cache -> primary key), cặp đã có conversation nghĩa là cả hai là participant;
+     *   gửi theo conversationId (nhóm) thì kiểm tra thành viên qua {@link ConversationMembershipCache}
+     * - message (reference conversation / sender, không load entity) được cấp id rồi đưa vào
+     *   {@link MessageIngestQueue}: INSERT, updatedAt của conversation và inbox được ghi theo lô phía sau
+     * - listener nhận tin nhắn sau khi lô đã commit nên real-time push không đi trước dữ liệu trong DB
+     * Không mở transaction, trừ khi phải tạo conversation mới.
+     */
     @Override
-    @Transactional
-    public MessageResponse sendMessage(Long senderId, MessageRequest messageRequest) {
-        log.info("User {} sending message to user {}", senderId, messageRequest.getRecipientId());
-
-        // Kiểm tra không thể gửi tin cho chính mình
-        if (senderId.equals(messageRequest.getRecipientId())) {
-            throw new BadRequestException("Cannot send message to yourself");
-        }
+    public MessageResponse sendMessage(Long senderId, MessageRequest messageRequest, WriteListener listener) {
+        long startedAt = System.nanoTime();
+        Long recipientId = messageRequest.getRecipientId();
+        log.debug("User {} sending message to user {} / conversation {}",
+                senderId, recipientId, messageRequest.getConversationId());
 
         // Kiểm tra users tồn tại
-        User sender = userRepository.findById(senderId)
+        UserProfileSnapshot sender = userProfileCache.getById(senderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Sender not found"));
 
-        User recipient = userRepository.findById(messageRequest.getRecipientId())
-                .orElseThrow(() -> new ResourceNotFoundException("Recipient not found"));
-
-        // Tìm hoặc tạo conversation
-        Conversation conversation = getOrCreateConversation(senderId, messageRequest.getRecipientId());
+        Long conversationId;
+        UserProfileSnapshot recipient = null;
+        if (messageRequest.getConversationId() != null) {
+            // Gửi vào conversation có sẵn (nhóm hoặc 1-1): kiểm tra thành viên qua cache
+            conversationId = messageRequest.getConversationId();
+            ConversationMembershipCache.Members members = membershipCache.get(conversationId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+            if (!members.userIds().contains(senderId)) {
+                throw new ForbiddenException("You are not a member of this conversation");
+            }
+            if (!members.isGroup()) {
+                recipient = members.userIds().stream()
+                        .filter(memberId -> !memberId.equals(senderId))
+                        .findFirst()
+                        .flatMap(userProfileCache::getById)
+                        .orElse(null);
+            }
+        } else {
+            if (recipientId == null) {
+                throw new BadRequestException("Recipient ID or conversation ID is required");
+            }
+            // Kiểm tra không thể gửi tin cho chính mình
+            if (senderId.equals(recipientId)) {
+                throw new BadRequestException("Cannot send message to yourself");
+            }
+            recipient = userProfileCache.getById(recipientId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Recipient not found"));
+
+            // Tìm hoặc tạo conversation
+            conversationId = getOrCreateConversation(senderId, recipientId);
+        }
 
         // Tạo message
         Message message = Message.builder()
-                .conversation(conversation)
-                .sender(sender)
+                .conversation(conversationRepository.getReferenceById(conversationId))
+                .sender(userRepository.getReferenceById(senderId))
                 .content(messageRequest.getContent())
                 .messageType(messageRequest.getMessageType())
                 .build();
 
-        message = messageRepository.save(message);
-
-        // Cập nhật updatedAt của conversation
-        conversation.setUpdatedAt(message.getCreatedAt());
-        conversationRepository.save(conversation);
-
-        log.info("Message sent successfully: {}", message.getId());
+        // Cấp id + created_at và xếp hàng ghi; trả về ngay với id ổn định.
+        // Listener chỉ nhận tin nhắn sau khi lô chứa nó đã commit (hoặc khi bị bỏ)
+        UserProfileSnapshot recipientProfile = recipient;
+        message = messageIngestQueue.submit(message, new MessageIngestQueue.WriteListener() {
+            @Override
+            public void written(Message written) {
+                listener.persisted(toSendResponse(written, sender, recipientProfile));
+            }
+
+            @Override
+            public void dropped(Message dropped) {
+                listener.dropped(toSendResponse(dropped, sender, recipientProfile));
+            }
+        });
+
+        sentMessages.increment();
+        totalSendNanos.add(System.nanoTime() - startedAt);
+        log.debug("Message accepted: {}", message.getId());
+
+        return toSendResponse(message, sender, recipient);
+    }
 
-        return mapToMessageResponse(message);
+    private MessageResponse toSendResponse(Message message, UserProfileSnapshot sender, UserProfileSnapshot recipient) {
+        return MessageResponse.builder()
+                .id(message.getId())
+                .conversationId(message.getConversation().getId())
+                .senderId(sender.getId())
+                .senderUsername(sender.getUsername())
+                .senderAvatarUrl(sender.getAvatarUrl())
+                .recipientId(recipient != null ? recipient.getId() : null)
+                .recipientUsername(recipient != null ? recipient.getUsername() : null)
+                .content(message.getContent())
+                .messageType(message.getMessageType())
+                .createdAt(message.getCreatedAt())
+                .build();
     }
 
+    /**
+     * Inbox đọc từ read model conversation_inbox: một query theo (user_id, last_activity DESC),
+     * thông tin người còn lại và tin nhắn cuối đã có sẵn trong dòng
+     */
     @Override
     @Transactional(readOnly = true)
     public Page<ConversationResponse> getConversations(Long userId, int page, int size) {
         log.info("Getting conversations for user {}", userId);
 
-        // Kiểm tra user tồn tại
-        if (!userRepository.existsById(userId)) {
-            throw new ResourceNotFoundException("User not found");
-        }
+        // Kiểm tra user tồn tại (qua cache profile)
+        UserProfileSnapshot currentUser = userProfileCache.getById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-        Page<Conversation> conversations = conversationRepository.findByUserId(userId, pageable);
+        Page<ConversationInbox> inbox = inboxRepository.findByUserIdOrderByLastActivityDesc(
+                userId, PageRequest.of(page, size));
 
-        return conversations.map(conversation -> mapToConversationResponse(conversation, userId));
+        return inbox.map(entry -> mapToConversationResponse(entry, currentUser));
     }
 
     @Override
@@ -104,7 +211,133 @@ public class MessageServiceImpl implements MessageService {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<Message> messages = messageRepository.findByConversationId(conversationId, pageable);
 
-        return messages.map(this::mapToMessageResponse);
+        // Xem trang mới nhất => đã đọc tới tin nhắn mới nhất (ghi theo lô qua ReadReceiptService)
+        if (page == 0) {
+            messages.getContent().stream()
+                    .map(Message::getId)
+                    .max(Long::compare)
+                    .ifPresent(newestId -> readReceiptService.markRead(userId, conversationId, newestId));
+        }
+
+        // Hết tin nhắn trong bảng messages: đọc tiếp phần đã lưu trữ (luôn cũ hơn)
+        long archivedCount = archiveReader.countArchived(conversationId);
+        if (archivedCount == 0 || messages.getNumberOfElements() >= size) {
+            return new PageImpl<>(messages.map(this::mapToMessageResponse).getContent(), pageable,
+                    messages.getTotalElements() + archivedCount);
+        }
+        List<MessageResponse> content = new ArrayList<>(size);
+        messages.forEach(message -> content.add(mapToMessageResponse(message)));
+        long archiveOffset = Math.max(0, pageable.getOffset() + messages.getNumberOfElements() - messages.getTotalElements());
+        archiveReader.findPage(conversationId, archiveOffset, size - content.size())
+                .forEach(view -> content.add(mapToMessageResponse(view)));
+        return new PageImpl<>(content, pageable, messages.getTotalElements() + archivedCount);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageSyncResponse getMessagesByCursor(Long conversationId, Long userId,
+                                                   Long afterId, Long beforeId, int limit) {
+        if (afterId != null && beforeId != null) {
+            throw new BadRequestException("Use either afterId or beforeId, not both");
+        }
+
+        // Kiểm tra user có quyền truy cập conversation không (cache thành viên)
+        if (!membershipCache.isMember(conversationId, userId)) {
+            throw new ForbiddenException("You do not have access to this conversation");
+        }
+
+        int pageSize = clampLimit(limit, MAX_CURSOR_PAGE_SIZE);
+        // Lấy thừa một dòng để biết còn dữ liệu sau cursor hay không
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        if (afterId != null) {
+            long upToId = messageIdAllocator.lowestUnwrittenId();
+            // Cursor nằm trong phần đã lưu trữ: đọc block trước rồi mới tới bảng messages
+            List<MessageRepository.MessageView> rows = new ArrayList<>(
+                    archiveReader.findAfter(conversationId, afterId, upToId, pageSize + 1));
+            if (rows.size() <= pageSize) {
+                long hotAfterId = rows.isEmpty() ? afterId : rows.get(rows.size() - 1).getId();
+                rows.addAll(messageRepository.findAfter(conversationId, hotAfterId, upToId,
+                        Limit.of(pageSize + 1 - rows.size())));
+            }
+            MessageSyncResponse response = toSyncResponse(rows, pageSize, afterId);
+            // Đã theo kịp tin nhắn mới nhất => đã đọc
+            if (!response.isHasMore() && !response.getMessages().isEmpty()) {
+                readReceiptService.markRead(userId, conversationId, response.getCursor());
+            }
+            return response;
+        }
+
+        List<MessageRepository.MessageView> rows = new ArrayList<>(messageRepository.findBefore(
+                conversationId, beforeId != null ? beforeId : Long.MAX_VALUE, fetchLimit));
+        // Cuộn quá tin nhắn cũ nhất trong bảng messages: đọc tiếp từ block lưu trữ
+        if (rows.size() <= pageSize) {
+            long archiveBeforeId = rows.isEmpty()
+                    ? (beforeId != null ? beforeId : Long.MAX_VALUE)
+                    : rows.get(rows.size() - 1).getId();
+            rows.addAll(archiveReader.findBefore(conversationId, archiveBeforeId, pageSize + 1 - rows.size()));
+        }
+        MessageSyncResponse response = toSyncResponse(rows, pageSize, beforeId);
+        if (beforeId == null && !response.getMessages().isEmpty()) {
+            readReceiptService.markRead(userId, conversationId, response.getMessages().get(0).getId());
+        }
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageSyncResponse syncMessages(Long userId, Long since, int limit) {
+        int pageSize = clampLimit(limit, MAX_SYNC_PAGE_SIZE);
+        long afterId = since != null ? since : 0L;
+
+        // Dừng trước id đã cấp nhưng chưa commit (hàng đợi ghi, transaction chatbot) để cursor không nhảy qua nó.
+        // Chỉ đảm bảo trong một node, xem MessageIdAllocator.lowestUnwrittenId
+        long upToId = messageIdAllocator.lowestUnwrittenId();
+        List<MessageRepository.MessageView> rows =
+                messageRepository.findForUserAfter(userId, afterId, upToId, Limit.of(pageSize + 1));
+        return toSyncResponse(rows, pageSize, afterId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MessageSyncResponse searchMessages(Long userId, String query, Long beforeId, int limit) {
+        Set<String> terms = MessageTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            throw new BadRequestException("Search query must contain at least one word of "
+                    + MessageTokenizer.MIN_TERM_LENGTH + " or more characters");
+        }
+        if (terms.size() > MAX_SEARCH_TERMS) {
+            throw new BadRequestException("Search query can contain at most " + MAX_SEARCH_TERMS + " words");
+        }
+
+        int pageSize = clampLimit(limit, MAX_SEARCH_PAGE_SIZE);
+        List<MessageSearchIndex.Hit> found = searchIndex.findMessages(userId, terms,
+                beforeId != null ? beforeId : Long.MAX_VALUE, pageSize + 1);
+        // Phân trang theo hit chứ không theo dòng đọc được: hit không còn tin nhắn (sender đã bị xoá...)
+        // không được làm dừng tìm kiếm sớm hay lùi cursor
+        boolean hasMore = found.size() > pageSize;
+        List<MessageSearchIndex.Hit> hits = hasMore ? found.subList(0, pageSize) : found;
+        if (hits.isEmpty()) {
+            return toSyncResponse(List.of(), pageSize, beforeId);
+        }
+
+        List<MessageRepository.MessageView> rows = new ArrayList<>(
+                messageRepository.findViewsByIdIn(hits.stream().map(MessageSearchIndex.Hit::messageId).toList()));
+        // Kết quả không còn trong bảng messages: tìm trong block lưu trữ của conversation tương ứng
+        if (rows.size() < hits.size()) {
+            Set<Long> resolved = rows.stream().map(MessageRepository.MessageView::getId).collect(Collectors.toSet());
+            hits.stream()
+                    .filter(hit -> !resolved.contains(hit.messageId()))
+                    .collect(Collectors.groupingBy(MessageSearchIndex.Hit::conversationId,
+                            Collectors.mapping(MessageSearchIndex.Hit::messageId, Collectors.toList())))
+                    .forEach((conversationId, ids) -> rows.addAll(archiveReader.findByIds(conversationId, ids)));
+            rows.sort(Comparator.comparing(MessageRepository.MessageView::getId).reversed());
+        }
+        return MessageSyncResponse.builder()
+                .messages(rows.stream().map(this::mapToMessageResponse).toList())
+                .cursor(hits.get(hits.size() - 1).messageId())
+                .hasMore(hasMore)
+                .build();
     }
 
     @Override
@@ -120,30 +353,57 @@ public class MessageServiceImpl implements MessageService {
             throw new ForbiddenException("You can only delete your own messages");
         }
 
+        Long conversationId = message.getConversation().getId();
         messageRepository.delete(message);
+        messageRepository.flush();
+        searchIndex.remove(messageId);
+        inboxService.messageDeleted(conversationId, messageId);
         log.info("Message {} deleted successfully", messageId);
     }
 
     /**
-     * Helper: Tìm hoặc tạo conversation giữa 2 users
+     * Helper: Tìm hoặc tạo conversation 1-1 giữa 2 users qua pair key (user_lo, user_hi):
+     * cache -> một lookup theo primary key -> tạo mới. Khi hai request cùng tạo cho một cặp,
+     * unique key quyết định bên thắng; bên thua xoá conversation vừa tạo và dùng của bên thắng.
      */
-    private Conversation getOrCreateConversation(Long userId1, Long userId2) {
-        // Tìm conversation hiện có
-        Conversation conversation = conversationRepository.findConversationBetweenUsers(userId1, userId2);
+    private Long getOrCreateConversation(Long userId1, Long userId2) {
+        DirectConversationCache.Pair pair = DirectConversationCache.Pair.of(userId1, userId2);
+
+        Optional<Long> cachedId = directConversationCache.get(pair);
+        if (cachedId.isPresent()) {
+            return cachedId.get();
+        }
+        return transactionTemplate.execute(status -> findOrCreateConversation(pair, userId1, userId2));
+    }
 
-        if (conversation != null) {
-            log.debug("Found existing conversation: {}", conversation.getId());
-            return conversation;
+    private Long findOrCreateConversation(DirectConversationCache.Pair pair, Long userId1, Long userId2) {
+        Optional<Long> existingId = directConversationRepository.findConversationId(pair.lo(), pair.hi());
+        if (existingId.isPresent()) {
+            log.debug("Found existing conversation: {}", existingId.get());
+            directConversationCache.putAfterCommit(pair, existingId.get());
+            return existingId.get();
         }
 
-        // Tạo conversation mới
-        conversation = new Conversation();
-        conversation = conversationRepository.save(conversation);
+        // Tạo conversation mới rồi giành pair key
+        Conversation conversation = conversationRepository.save(new Conversation());
+        directConversationRepository.insertIfAbsent(pair.lo(), pair.hi(), conversation.getId());
+        Long winnerId = directConversationRepository.lockConversationId(pair.lo(), pair.hi())
+                .orElseThrow(() -> new IllegalStateException("Direct conversation was not created"));
+        directConversationCache.putAfterCommit(pair, winnerId);
+
+        if (!winnerId.equals(conversation.getId())) {
+            log.debug("Conversation {} lost the race to {}, discarding", conversation.getId(), winnerId);
+            conversationRepository.delete(conversation);
+            return winnerId;
+        }
 
-        // Thêm participants
-        User user1 = userRepository.getReferenceById(userId1);
-        User user2 = userRepository.getReferenceById(userId2);
+        // Conversation mới (chỉ ở tin nhắn đầu tiên của cặp): cần entity user cho participants và inbox
+        User user1 = userRepository.findById(userId1)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        User user2 = userRepository.findById(userId2)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+        // Thêm participants
         ConversationParticipant participant1 = ConversationParticipant.builder()
                 .user(user1)
                 .conversation(conversation)
@@ -156,9 +416,43 @@ public class MessageServiceImpl implements MessageService {
 
         participantRepository.save(participant1);
         participantRepository.save(participant2);
+        inboxService.createEntries(conversation, user1, user2);
 
         log.info("Created new conversation: {}", conversation.getId());
-        return conversation;
+        return conversation.getId();
+    }
+
+    /**
+     * Helper: cắt dòng thừa (đánh dấu hasMore) và tính cursor = id của tin nhắn cuối trong kết quả
+     */
+    private MessageSyncResponse toSyncResponse(List<MessageRepository.MessageView> rows, int pageSize, Long cursor) {
+        boolean hasMore = rows.size() > pageSize;
+        List<MessageResponse> messages = rows.stream()
+                .limit(pageSize)
+                .map(this::mapToMessageResponse)
+                .toList();
+        return MessageSyncResponse.builder()
+                .messages(messages)
+                .cursor(messages.isEmpty() ? cursor : messages.get(messages.size() - 1).getId())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static int clampLimit(int limit, int max) {
+        return Math.max(1, Math.min(limit, max));
+    }
+
+    private MessageResponse mapToMessageResponse(MessageRepository.MessageView view) {
+        return MessageResponse.builder()
+                .id(view.getId())
+                .conversationId(view.getConversationId())
+                .senderId(view.getSenderId())
+                .senderUsername(view.getSenderUsername())
+                .senderAvatarUrl(view.getSenderAvatarUrl())
+                .content(view.getContent())
+                .messageType(view.getMessageType())
+                .createdAt(view.getCreatedAt())
+                .build();
     }
 
     /**
@@ -178,31 +472,52 @@ public class MessageServiceImpl implements MessageService {
     }
 
     /**
-     * Helper: Map Conversation entity sang ConversationResponse
+     * Helper: Map dòng inbox sang ConversationResponse (không query thêm)
      */
-    private ConversationResponse mapToConversationResponse(Conversation conversation, Long currentUserId) {
-        // Lấy participants
-        List<ConversationParticipant> participants = participantRepository.findByConversationId(conversation.getId());
-
-        // Tìm user còn lại (không phải current user)
-        User otherUser = participants.stream()
-                .map(ConversationParticipant::getUser)
-                .filter(user -> !user.getId().equals(currentUserId))
-                .findFirst()
-                .orElse(null);
-
-        // Lấy tin nhắn cuối cùng
-        MessageResponse lastMessage = messageRepository.findLastMessageByConversationId(conversation.getId())
-                .map(this::mapToMessageResponse)
-                .orElse(null);
+    private ConversationResponse mapToConversationResponse(ConversationInbox entry, UserProfileSnapshot currentUser) {
+        MessageResponse lastMessage = null;
+        if (entry.getLastMessageId() != null) {
+            boolean sentByMe = currentUser.getId().equals(entry.getLastSenderId());
+            lastMessage = MessageResponse.builder()
+                    .id(entry.getLastMessageId())
+                    .conversationId(entry.getConversationId())
+                    .senderId(entry.getLastSenderId())
+                    .senderUsername(sentByMe ? currentUser.getUsername() : entry.getOtherUsername())
+                    .senderAvatarUrl(sentByMe ? currentUser.getAvatarUrl() : entry.getOtherAvatarUrl())
+                    .content(entry.getLastMessagePreview())
+                    .messageType(entry.getLastMessageType())
+                    .createdAt(entry.getLastActivity())
+                    .build();
+        }
 
         return ConversationResponse.builder()
-                .id(conversation.getId())
-                .otherUserId(otherUser != null ? otherUser.getId() : null)
-                .otherUsername(otherUser != null ? otherUser.getUsername() : null)
-                .otherUserAvatarUrl(otherUser != null ? otherUser.getAvatarUrl() : null)
+                .id(entry.getConversationId())
+                .type(entry.getConversationType())
+                .name(entry.getGroupName())
+                .otherUserId(entry.getOtherUserId())
+                .otherUsername(entry.getOtherUsername())
+                .otherFullName(entry.getOtherFullName())
+                .otherUserAvatarUrl(entry.getOtherAvatarUrl())
                 .lastMessage(lastMessage)
-                .updatedAt(conversation.getUpdatedAt())
+                .unreadCount(entry.getUnreadCount())
+                .updatedAt(entry.getLastActivity())
                 .build();
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getMetricsName() {
+        return "messages.send";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long sent = sentMessages.sum();
+        double uptimeSeconds = Math.max(1, (System.nanoTime() - startedAtNanos) / 1_000_000_000.0);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sent", sent);
+        metrics.put("messagesPerSecond", sent / uptimeSeconds);
+        metrics.put("avgSendMs", sent == 0 ? 0.0 : totalSendNanos.sum() / 1_000_000.0 / sent);
+        return metrics;
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.config.ChunkPause;
+import com.example.backend.config.SchedulingConfig;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.NotificationBadgeRepository;
+import com.example.backend.repository.NotificationRepository;
+import com.example.backend.repository.NotificationRepository.UnreadByRecipient;
+import com.example.backend.service.NotificationRetentionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Retention cho bảng notifications (partition theo tháng của bucket_start, xem migration V5):
+ * 1. Tạo trước partition cho các tháng sắp tới (tách từ p_future), kể cả các tháng đã bị bỏ lỡ
+ * 2. Chuyển notification đã đọc quá archive-after sang notifications_archive
+ * 3. Xoá phần còn lại (chưa đọc) quá purge-after, trừ vào notification_badge
+ * 4. DROP các partition nằm trọn trước purge-after (lúc này đã rỗng nên chỉ là thao tác metadata)
+ * 5. Xoá archive quá archive-retention
+ *
+ * Bước 2, 3 và 5 làm theo lô nhỏ (mỗi lô một transaction ngắn, đi theo id) và nghỉ giữa các lô,
+ * để khoá dòng chỉ giữ trong thời gian ngắn và không chặn upsert / đọc danh sách đang chạy.
+ * Các bước đều idempotent nên chạy đồng thời trên nhiều node vẫn an toàn (node chậm chỉ làm thừa).
+ */
+@Service
+@Slf4j
+public class NotificationRetentionServiceImpl implements NotificationRetentionService, MetricsSource {
+
+    private static final String TABLE = "notifications";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationBadgeRepository badgeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final Duration archiveAfter;
+    private final Duration purgeAfter;
+    private final Duration archiveRetention;
+    private final int chunkSize;
+    private final Duration chunkPause;
+    private final int monthsAhead;
+
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+    private final LongAdder archivePurged = new LongAdder();
+    private final LongAdder partitionsCreated = new LongAdder();
+    private final LongAdder partitionsDropped = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder totalChunkMillis = new LongAdder();
+    private final AtomicLong maxChunkMillis = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private final AtomicLong lastRunRows = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunAt = new AtomicReference<>();
+
+    public NotificationRetentionServiceImpl(NotificationRepository notificationRepository,
+                                            NotificationBadgeRepository badgeRepository,
+                                            JdbcTemplate jdbcTemplate,
+                                            PlatformTransactionManager transactionManager,
+                                            @Value("${app.notifications.retention.enabled:true}") boolean enabled,
+                                            @Value("${app.notifications.retention.archive-after:P30D}") Duration archiveAfter,
+                                            @Value("${app.notifications.retention.purge-after:P180D}") Duration purgeAfter,
+                                            @Value("${app.notifications.retention.archive-retention:P365D}") Duration archiveRetention,
+                                            @Value("${app.notifications.retention.chunk-size:500}") int chunkSize,
+                                            @Value("${app.notifications.retention.chunk-pause:PT0.05S}") Duration chunkPause,
+                                            @Value("${app.notifications.retention.months-ahead:2}") int monthsAhead) {
+        this.notificationRepository = notificationRepository;
+        this.badgeRepository = badgeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.archiveAfter = archiveAfter;
+        this.purgeAfter = purgeAfter;
+        this.archiveRetention = archiveRetention;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkPause = chunkPause;
+        this.monthsAhead = Math.max(1, monthsAhead);
+    }
+
+    @Scheduled(scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER,
+               fixedDelayString = "${app.notifications.retention.interval:PT1H}",
+               initialDelayString = "${app.notifications.retention.initial-delay:PT5M}")
+    public void scheduledRetention() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runRetention();
+        } catch (Exception e) {
+            log.error("Notification retention run failed", e);
+        }
+    }
+
+    @Override
+    public void runRetention() {
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        createUpcomingPartitions(now);
+
+        LocalDateTime archiveCutoff = now.minus(archiveAfter);
+        long archivedRows = inChunks(afterId -> {
+            List<Long> ids = notificationRepository.lockArchivableIds(archiveCutoff, afterId, chunkSize);
+            if (!ids.isEmpty()) {
+                notificationRepository.copyToArchive(ids, now);
+                notificationRepository.deleteByIdIn(ids);
+            }
+            return ids;
+        });
+        archived.add(archivedRows);
+
+        LocalDateTime purgeCutoff = now.minus(purgeAfter);
+        long purgedRows = inChunks(afterId -> {
+            List<Long> ids = notificationRepository.lockExpiredIds(purgeCutoff, afterId, chunkSize);
+            if (!ids.isEmpty()) {
+                // Nhóm chưa đọc bị xoá không còn được tính trong badge
+                for (UnreadByRecipient unread : notificationRepository.countUnreadByRecipient(ids)) {
+                    badgeRepository.addUnread(unread.getRecipientId(), -unread.getUnreadCount());
+                }
+                notificationRepository.deleteByIdIn(ids);
+            }
+            return ids;
+        });
+        purged.add(purgedRows);
+        dropExpiredPartitions(purgeCutoff);
+
+        long archivePurgedRows = purgeArchive(now.minus(archiveRetention));
+        archivePurged.add(archivePurgedRows);
+
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        long totalRows = archivedRows + purgedRows + archivePurgedRows;
+        lastRunMillis.set(elapsedMillis);
+        lastRunRows.set(totalRows);
+        lastRunAt.set(now);
+        if (totalRows > 0) {
+            log.info("Notification retention: archived {}, purged {}, purged {} archived rows in {} ms",
+                    archivedRows, purgedRows, archivePurgedRows, elapsedMillis);
+        }
+    }
+
+    /**
+     * Lặp các lô theo id tăng dần tới khi hết; mỗi lô là một transaction riêng
+     */
+    private long inChunks(Function<Long, List<Long>> chunk) {
+        long total = 0;
+        long afterId = 0;
+        while (true) {
+            long chunkStart = System.nanoTime();
+            long cursor = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> chunk.apply(cursor));
+            recordChunk(chunkStart);
+            if (ids == null || ids.isEmpty()) {
+                return total;
+            }
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize || !ChunkPause.sleep(chunkPause)) {
+                return total;
+            }
+        }
+    }
+
+    private long purgeArchive(LocalDateTime cutoff) {
+        long total = 0;
+        while (true) {
+            long chunkStart = System.nanoTime();
+            Integer deleted = transactionTemplate.execute(status ->
+                    notificationRepository.deleteArchivedBefore(cutoff, chunkSize));
+            recordChunk(chunkStart);
+            int count = deleted != null ? deleted : 0;
+            total += count;
+            if (count < chunkSize || !ChunkPause.sleep(chunkPause)) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Đảm bảo có partition cho mọi tháng từ sau cận trên lớn nhất hiện có tới {@code monthsAhead} tháng tới.
+     * Tháng kế tiếp tính từ partition cuối chứ không từ ngày hiện tại, để tháng bị bỏ lỡ (job tắt, lỗi)
+     * vẫn có partition riêng. p_future rỗng thì REORGANIZE chỉ đổi metadata; p_future đã có dòng
+     * (job chạy trễ) thì REORGANIZE chuyển các dòng đó sang partition mới rồi vẫn tiếp tục.
+     */
+    private void createUpcomingPartitions(LocalDateTime now) {
+        Map<String, Long> partitions = loadPartitions();
+        if (partitions.isEmpty() || !partitions.containsKey(FUTURE_PARTITION)) {
+            log.warn("Table {} is not partitioned as expected, skipping partition maintenance", TABLE);
+            return;
+        }
+        YearMonth lastMonth = YearMonth.from(now).plusMonths(monthsAhead);
+        for (YearMonth month = nextPartitionMonth(partitions, now); !month.isAfter(lastMonth);
+             month = month.plusMonths(1)) {
+            String name = month.format(PARTITION_NAME);
+            if (partitions.containsKey(name)) {
+                continue;
+            }
+            long futureRows = countRows(FUTURE_PARTITION);
+            if (futureRows > 0) {
+                log.info("Partition {} has {} rows, moving rows of {} while splitting",
+                        FUTURE_PARTITION, futureRows, name);
+            }
+            String upperBound = month.plusMonths(1).atDay(1).atStartOfDay().format(PARTITION_BOUND);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                    "PARTITION " + name + " VALUES LESS THAN (UNIX_TIMESTAMP('" + upperBound + "')), " +
+                    "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+            partitionsCreated.increment();
+            log.info("Created notification partition {}", name);
+        }
+    }
+
+    /**
+     * Tháng bắt đầu từ cận trên lớn nhất đang có (cận trên luôn là ngày đầu tháng)
+     */
+    private static YearMonth nextPartitionMonth(Map<String, Long> partitions, LocalDateTime now) {
+        return partitions.values().stream()
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .map(bound -> YearMonth.from(
+                        LocalDateTime.ofInstant(Instant.ofEpochSecond(bound), ZoneId.systemDefault())))
+                .orElse(YearMonth.from(now));
+    }
+
+    /**
+     * DROP các partition mà mọi dòng đều có bucket_start < cutoff
+     */
+    private void dropExpiredPartitions(LocalDateTime cutoff) {
+        long cutoffEpoch = cutoff.atZone(ZoneId.systemDefault()).toEpochSecond();
+        loadPartitions().forEach((name, upperBound) -> {
+            if (upperBound == null || upperBound > cutoffEpoch) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+            partitionsDropped.increment();
+            log.info("Dropped expired notification partition {}", name);
+        });
+    }
+
+    /**
+     * Tên partition -> cận trên (epoch second); null với p_future (MAXVALUE)
+     */
+    private Map<String, Long> loadPartitions() {
+        Map<String, Long> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                rs -> {
+                    String description = rs.getString("PARTITION_DESCRIPTION");
+                    partitions.put(rs.getString("PARTITION_NAME"),
+                            "MAXVALUE".equalsIgnoreCase(description) ? null : Long.valueOf(description));
+                }, TABLE);
+        return partitions;
+    }
+
+    private long countRows(String partition) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TABLE + " PARTITION (" + partition + ")", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void recordChunk(long chunkStartNanos) {
+        long millis = (System.nanoTime() - chunkStartNanos) / 1_000_000;
+        chunks.increment();
+        totalChunkMillis.add(millis);
+        maxChunkMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "notifications.retention";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long chunkCount = chunks.sum();
+        long runMillis = lastRunMillis.get();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("lastRunAt", lastRunAt.get());
+        metrics.put("lastRunMs", runMillis);
+        metrics.put("lastRunRows", lastRunRows.get());
+        metrics.put("lastRunRowsPerSecond", runMillis == 0 ? 0.0 : lastRunRows.get() * 1000.0 / runMillis);
+        metrics.put("archived", archived.sum());
+        metrics.put("purged", purged.sum());
+        metrics.put("archivePurged", archivePurged.sum());
+        metrics.put("partitionsCreated", partitionsCreated.sum());
+        metrics.put("partitionsDropped", partitionsDropped.sum());
+        // Thời gian mỗi lô giữ khoá dòng: ảnh hưởng tối đa lên truy vấn đang chạy trên cùng các dòng
+        metrics.put("chunks", chunkCount);
+        metrics.put("avgChunkMs", chunkCount == 0 ? 0.0 : (double) totalChunkMillis.sum() / chunkCount);
+        metrics.put("maxChunkMs", maxChunkMillis.get());
+        return metrics;
+    }
+}
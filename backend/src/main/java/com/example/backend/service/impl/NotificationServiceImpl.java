@@ -1,31 +1,72 @@
 
 package com.example.backend.service.impl;
 
+import com.example.backend.cache.NotificationDedupFilter;
+import com.example.backend.cache.UnreadNotificationCounter;
+import com.example.backend.dto.response.NotificationActorResponse;
 import com.example.backend.dto.response.NotificationResponse;
 import com.example.backend.entity.Notification;
-import com.example.backend.entity.Post;
-import com.example.backend.entity.User;
+import com.example.backend.entity.NotificationBadge;
+import com.example.backend.event.NotificationUpdatedEvent;
+import com.example.backend.repository.NotificationBadgeRepository;
 import com.example.backend.repository.NotificationRepository;
+import com.example.backend.repository.NotificationRepository.UnreadByRecipient;
 import com.example.backend.repository.PostRepository;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.UserRepository.UserSummary;
 import com.example.backend.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationServiceImpl implements NotificationService {
 
+    // Số actor được nêu tên trong message ("alice và bob", "alice và 23 người khác")
+    private static final int DISPLAYED_ACTORS = 2;
+
+    // recent_actor_ids là VARCHAR(255): 10 id BIGINT + dấu phẩy vẫn vừa
+    private static final int MAX_RECENT_ACTORS_LIMIT = 10;
+
     private final NotificationRepository notificationRepository;
+    private final NotificationBadgeRepository badgeRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
+    private final UnreadNotificationCounter unreadCounter;
+    private final NotificationDedupFilter dedupFilter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Độ dài bucket gom nhóm: mọi like của một post trong cùng bucket nằm chung một notification
+    @Value("${app.notifications.aggregation-window:PT24H}")
+    private Duration aggregationWindow;
+
+    // Số actor id gần nhất lưu trong recent_actor_ids
+    @Value("${app.notifications.max-recent-actors:10}")
+    private int maxRecentActors;
 
     /**
      * Lấy danh sách notifications của user
@@ -34,18 +75,19 @@ public class NotificationServiceImpl implements NotificationService {
     @Transactional(readOnly = true)
     public Page<NotificationResponse> getNotifications(Long userId, Pageable pageable) {
         Page<Notification> notifications = notificationRepository
-                .findByRecipientIdOrderByCreatedAtDesc(userId, pageable);
+                .findByRecipientIdOrderByUpdatedAtDesc(userId, pageable);
 
-        return notifications.map(this::convertToResponse);
+        long lastSeenSeq = badgeRepository.findLastSeenSeq(userId).orElse(0L);
+        List<NotificationResponse> content = convertToResponses(notifications.getContent(), lastSeenSeq);
+        return new PageImpl<>(content, notifications.getPageable(), notifications.getTotalElements());
     }
 
     /**
-     * Lấy số lượng notifications chưa đọc
+     * Lấy số lượng notifications chưa đọc (bộ đếm in-memory, seed từ notification_badge)
      */
     @Override
-    @Transactional(readOnly = true)
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countUnreadNotifications(userId);
+        return unreadCounter.get(userId);
     }
 
     /**
@@ -54,19 +96,36 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     @Transactional
     public void markAsRead(Long notificationId, Long userId) {
-        int updated = notificationRepository.markAsRead(notificationId, userId);
+        // Khoá badge trước (cùng thứ tự với addToGroup) rồi mới cập nhật notification
+        long lastSeenSeq = badgeRepository.findForUpdate(userId)
+                .map(NotificationBadge::getLastSeenSeq)
+                .orElse(0L);
+        int updated = notificationRepository.markAsRead(notificationId, userId, lastSeenSeq);
         if (updated == 0) {
-            throw new RuntimeException("Notification not found or not belongs to user");
+            if (!notificationRepository.existsByIdAndRecipientId(notificationId, userId)) {
+                throw new RuntimeException("Notification not found or not belongs to user");
+            }
+            return; // Đã đọc từ trước
         }
+        badgeRepository.addUnread(userId, -1);
+        eventPublisher.publishEvent(new NotificationUpdatedEvent(userId, null, -1));
     }
 
     /**
-     * Đánh dấu tất cả notifications là đã đọc
+     * Đánh dấu tất cả notifications là đã đọc: chỉ dời high-water mark trên một dòng badge,
+     * không cập nhật từng notification
      */
     @Override
     @Transactional
     public int markAllAsRead(Long userId) {
-        return notificationRepository.markAllAsRead(userId);
+        int updated = badgeRepository.findForUpdate(userId)
+                .map(NotificationBadge::getUnreadCount)
+                .orElse(0);
+        badgeRepository.markAllSeen(userId);
+        if (updated > 0) {
+            eventPublisher.publishEvent(new NotificationUpdatedEvent(userId, null, -updated));
+        }
+        return updated;
     }
 
     /**
@@ -75,10 +134,12 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     @Transactional
     public void createLikeNotification(Long postId, Long likerId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
-
-        Long postOwnerId = post.getUser().getId();
+        // Post đã bị xoá trước khi event được xử lý: không còn ai để báo, và ném lỗi chỉ làm outbox retry vô ích
+        Long postOwnerId = postRepository.findOwnerIdById(postId).orElse(null);
+        if (postOwnerId == null) {
+            log.debug("Post {} no longer exists, skipping like notification from {}", postId, likerId);
+            return;
+        }
 
         // Không tạo notification nếu user like post của chính mình
         if (postOwnerId.equals(likerId)) {
@@ -86,27 +147,7 @@ public class NotificationServiceImpl implements NotificationService {
             return;
         }
 
-        // Kiểm tra xem đã có notification tương tự trong 1 phút qua chưa (tránh spam)
-        LocalDateTime oneMinuteAgo = LocalDateTime.now().minusMinutes(1);
-        boolean exists = notificationRepository.existsSimilarNotification(
-                postOwnerId, likerId, Notification.NotificationType.LIKE_POST, postId, oneMinuteAgo
-        );
-
-        if (exists) {
-            log.debug("Similar LIKE notification already exists within 1 minute, skipping...");
-            return;
-        }
-
-        Notification notification = new Notification();
-        notification.setRecipientId(postOwnerId);
-        notification.setSenderId(likerId);
-        notification.setType(Notification.NotificationType.LIKE_POST);
-        notification.setPostId(postId);
-        notification.setIsRead(false);
-
-        notificationRepository.save(notification);
-        log.info("Created LIKE_POST notification: postId={}, postOwner={}, liker={}",
-                postId, postOwnerId, likerId);
+        addToGroup(postOwnerId, likerId, Notification.NotificationType.LIKE_POST, postId);
     }
 
     /**
@@ -115,10 +156,12 @@ public class NotificationServiceImpl implements NotificationService {
     @Override
     @Transactional
     public void createCommentNotification(Long postId, Long commenterId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
-
-        Long postOwnerId = post.getUser().getId();
+        // Post đã bị xoá trước khi event được xử lý: không còn ai để báo, và ném lỗi chỉ làm outbox retry vô ích
+        Long postOwnerId = postRepository.findOwnerIdById(postId).orElse(null);
+        if (postOwnerId == null) {
+            log.debug("Post {} no longer exists, skipping comment notification from {}", postId, commenterId);
+            return;
+        }
 
         // Không tạo notification nếu user comment trên post của chính mình
         if (postOwnerId.equals(commenterId)) {
@@ -126,27 +169,7 @@ public class NotificationServiceImpl implements NotificationService {
             return;
         }
 
-        // Kiểm tra duplicate
-        LocalDateTime oneMinuteAgo = LocalDateTime.now().minusMinutes(1);
-        boolean exists = notificationRepository.existsSimilarNotification(
-                postOwnerId, commenterId, Notification.NotificationType.COMMENT_ON_POST, postId, oneMinuteAgo
-        );
-
-        if (exists) {
-            log.debug("Similar COMMENT notification already exists within 1 minute, skipping...");
-            return;
-        }
-
-        Notification notification = new Notification();
-        notification.setRecipientId(postOwnerId);
-        notification.setSenderId(commenterId);
-        notification.setType(Notification.NotificationType.COMMENT_ON_POST);
-        notification.setPostId(postId);
-        notification.setIsRead(false);
-
-        notificationRepository.save(notification);
-        log.info("Created COMMENT_ON_POST notification: postId={}, postOwner={}, commenter={}",
-                postId, postOwnerId, commenterId);
+        addToGroup(postOwnerId, commenterId, Notification.NotificationType.COMMENT_ON_POST, postId);
     }
 
     /**
@@ -161,27 +184,101 @@ public class NotificationServiceImpl implements NotificationService {
             return;
         }
 
-        // Kiểm tra duplicate
-        LocalDateTime oneMinuteAgo = LocalDateTime.now().minusMinutes(1);
-        boolean exists = notificationRepository.existsSimilarNotification(
-                followedUserId, followerId, Notification.NotificationType.NEW_FOLLOWER, null, oneMinuteAgo
-        );
+        // Follow notification không có postId
+        addToGroup(followedUserId, followerId, Notification.NotificationType.NEW_FOLLOWER, null);
+    }
 
-        if (exists) {
-            log.debug("Similar FOLLOW notification already exists within 1 minute, skipping...");
+    /**
+     * Gom notification vào nhóm (recipient, type, post, bucket thời gian) bằng một câu upsert.
+     * Actor lặp lại (like/unlike/like) trong cùng bucket không làm tăng actorCount nên không cần check duplicate riêng.
+     * Badge của người nhận được cập nhật trong cùng transaction bằng một upsert (activity seq + unread);
+     * dòng badge bị khoá từ đầu nên các thay đổi trạng thái đọc của cùng một người nhận được tuần tự hoá.
+     */
+    private void addToGroup(Long recipientId, Long actorId, Notification.NotificationType type, Long postId) {
+        if (!acquireDedup(new NotificationDedupFilter.Key(recipientId, actorId, type, postId))) {
+            log.debug("Skipping duplicate {} notification: recipient={}, actor={}, postId={}",
+                    type, recipientId, actorId, postId);
             return;
         }
 
-        Notification notification = new Notification();
-        notification.setRecipientId(followedUserId);
-        notification.setSenderId(followerId);
-        notification.setType(Notification.NotificationType.NEW_FOLLOWER);
-        notification.setPostId(null); // Follow notification không có postId
-        notification.setIsRead(false);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime bucketStart = bucketStart(now);
 
-        notificationRepository.save(notification);
-        log.info("Created NEW_FOLLOWER notification: followedUser={}, follower={}",
-                followedUserId, followerId);
+        // Khoá badge trước: tuần tự hoá với markAsRead / markAllAsRead và các notification khác của người nhận
+        NotificationBadge badge = badgeRepository.findForUpdate(recipientId).orElseGet(() -> {
+            badgeRepository.createIfAbsent(recipientId);
+            return badgeRepository.findForUpdate(recipientId).orElseThrow(() ->
+                    new IllegalStateException("Notification badge not found for user " + recipientId));
+        });
+        long lastSeenSeq = badge.getLastSeenSeq();
+        long activitySeq = badge.getActivitySeq() + 1;
+
+        // Nhóm mới hoặc nhóm đã đọc được đánh dấu chưa đọc lại => +1 chưa đọc
+        boolean wasUnread = notificationRepository.findGroup(recipientId, type, postId, bucketStart)
+                .map(group -> !group.getIsRead() && group.getActivitySeq() > lastSeenSeq)
+                .orElse(false);
+        long unreadDelta = wasUnread ? 0L : 1L;
+
+        // Một upsert cho badge (seq + unread), một upsert cho nhóm
+        badgeRepository.recordActivity(recipientId, unreadDelta);
+        notificationRepository.upsertGroupedNotification(
+                recipientId, actorId, type.name(), postId, bucketStart, now,
+                Math.min(maxRecentActors, MAX_RECENT_ACTORS_LIMIT), activitySeq);
+        log.debug("Grouped {} notification: recipient={}, actor={}, postId={}", type, recipientId, actorId, postId);
+
+        // Push sau khi commit (NotificationPushListener)
+        notificationRepository.findGroup(recipientId, type, postId, bucketStart).ifPresent(group ->
+                eventPublisher.publishEvent(new NotificationUpdatedEvent(
+                        recipientId, convertToResponses(List.of(group), lastSeenSeq).get(0), unreadDelta)));
+    }
+
+    /**
+     * Giữ key dedup; nếu transaction rollback thì trả lại key để lần giao lại (outbox retry) vẫn tạo được notification
+     */
+    private boolean acquireDedup(NotificationDedupFilter.Key key) {
+        if (!dedupFilter.tryAcquire(key)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        dedupFilter.release(key);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Đầu bucket chứa thời điểm {@code time} (các bucket canh theo epoch, độ dài aggregationWindow)
+     */
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        ZoneId zone = ZoneId.systemDefault();
+        long epochSecond = time.atZone(zone).toEpochSecond();
+        long windowSeconds = aggregationWindow.toSeconds();
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, windowSeconds)), zone);
+    }
+
+    /**
+     * Xoá notification của một post (khi xoá post), trừ các nhóm chưa đọc khỏi badge
+     */
+    @Override
+    @Transactional
+    public void deletePostNotifications(Long postId, Long postOwnerId) {
+        badgeRepository.findForUpdate(postOwnerId);
+        List<Long> ids = notificationRepository.findIdsByPostId(postId);
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (UnreadByRecipient unread : notificationRepository.countUnreadByRecipient(ids)) {
+            badgeRepository.addUnread(unread.getRecipientId(), -unread.getUnreadCount());
+            eventPublisher.publishEvent(new NotificationUpdatedEvent(
+                    unread.getRecipientId(), null, -unread.getUnreadCount()));
+        }
+        notificationRepository.deleteByIdIn(ids);
     }
 
     /**
@@ -196,55 +293,123 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     /**
-     * Convert Notification entity sang NotificationResponse DTO
+     * Convert một trang nhóm notification sang DTO.
+     * Actor và thumbnail của post được lấy theo lô bằng 2 projection query cho cả trang
+     * (chỉ các cột cần hiển thị, không load entity User / Post cùng association EAGER).
+     * Message được dựng từ dữ liệu đã có, không query thêm.
      */
-    private NotificationResponse convertToResponse(Notification notification) {
+    private List<NotificationResponse> convertToResponses(List<Notification> notifications, long lastSeenSeq) {
+        Set<Long> actorIds = new HashSet<>();
+        Set<Long> postIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            actorIds.addAll(displayedActorIds(notification));
+            if (notification.getPostId() != null) {
+                postIds.add(notification.getPostId());
+            }
+        }
+
+        Map<Long, UserSummary> actors = actorIds.isEmpty() ? Map.of() : userRepository.findSummariesByIdIn(actorIds).stream()
+                .collect(Collectors.toMap(UserSummary::getId, Function.identity()));
+        Map<Long, String> postImages = new HashMap<>();
+        if (!postIds.isEmpty()) {
+            postRepository.findThumbnailsByIdIn(postIds)
+                    .forEach(post -> postImages.put(post.getId(), post.getImageUrl()));
+        }
+
+        return notifications.stream()
+                .map(notification -> convertToResponse(notification, actors, postImages, lastSeenSeq))
+                .collect(Collectors.toList());
+    }
+
+    private NotificationResponse convertToResponse(Notification notification,
+                                                   Map<Long, UserSummary> actors,
+                                                   Map<Long, String> postImages,
+                                                   long lastSeenSeq) {
         NotificationResponse response = new NotificationResponse();
         response.setId(notification.getId());
         response.setRecipientId(notification.getRecipientId());
         response.setSenderId(notification.getSenderId());
         response.setType(notification.getType());
         response.setPostId(notification.getPostId());
-        response.setIsRead(notification.getIsRead());
+        // Đã đọc riêng lẻ hoặc nằm dưới high-water mark của "đánh dấu tất cả đã đọc"
+        response.setIsRead(notification.getIsRead() || notification.getActivitySeq() <= lastSeenSeq);
         response.setCreatedAt(notification.getCreatedAt());
-
-        // Lấy thông tin sender
-        userRepository.findById(notification.getSenderId()).ifPresent(sender -> {
+        response.setUpdatedAt(notification.getUpdatedAt());
+        response.setActorCount(notification.getActorCount());
+
+        List<NotificationActorResponse> displayedActors = displayedActorIds(notification).stream()
+                .map(actors::get)
+                .filter(Objects::nonNull)
+                .map(actor -> new NotificationActorResponse(
+                        actor.getId(), actor.getUsername(), actor.getFullName(), actor.getAvatarUrl()))
+                .collect(Collectors.toList());
+        response.setActors(displayedActors);
+
+        // Sender = người tác động gần nhất
+        UserSummary sender = actors.get(notification.getSenderId());
+        if (sender != null) {
             response.setSenderUsername(sender.getUsername());
             response.setSenderFullName(sender.getFullName());
             response.setSenderAvatarUrl(sender.getAvatarUrl());
-        });
+        }
 
-        // Lấy thông tin post (nếu có)
         if (notification.getPostId() != null) {
-            postRepository.findById(notification.getPostId()).ifPresent(post -> {
-                response.setPostImageUrl(post.getImageUrl());
-            });
+            response.setPostImageUrl(postImages.get(notification.getPostId()));
         }
 
         // Tạo human-readable message
-        response.setMessage(generateNotificationMessage(notification, response.getSenderUsername()));
+        response.setMessage(generateNotificationMessage(notification, displayedActors));
 
         return response;
     }
 
     /**
-     * Tạo message text cho notification
+     * Những actor được hiển thị tên trong message (luôn gồm sender)
      */
-    private String generateNotificationMessage(Notification notification, String senderUsername) {
-        if (senderUsername == null) {
-            senderUsername = "Ai đó";
+    private List<Long> displayedActorIds(Notification notification) {
+        List<Long> ids = new ArrayList<>(DISPLAYED_ACTORS);
+        ids.add(notification.getSenderId());
+        for (Long id : notification.getRecentActorIdList()) {
+            if (ids.size() >= DISPLAYED_ACTORS) {
+                break;
+            }
+            if (!ids.contains(id)) {
+                ids.add(id);
+            }
         }
+        return ids;
+    }
+
+    /**
+     * Tạo message text cho notification, ví dụ "alice và 23 người khác đã thích bài viết của bạn"
+     */
+    private String generateNotificationMessage(Notification notification, List<NotificationActorResponse> actors) {
+        String actorText = actorText(notification.getActorCount(), actors);
 
         switch (notification.getType()) {
             case LIKE_POST:
-                return senderUsername + " đã thích bài viết của bạn";
+                return actorText + " đã thích bài viết của bạn";
             case COMMENT_ON_POST:
-                return senderUsername + " đã bình luận về bài viết của bạn";
+                return actorText + " đã bình luận về bài viết của bạn";
             case NEW_FOLLOWER:
-                return senderUsername + " đã bắt đầu theo dõi bạn";
+                return actorText + " đã bắt đầu theo dõi bạn";
             default:
                 return "Bạn có một thông báo mới";
         }
     }
-}
\ No newline at end of file
+
+    private String actorText(Integer actorCount, List<NotificationActorResponse> actors) {
+        if (actors.isEmpty()) {
+            return "Ai đó";
+        }
+        int total = actorCount != null ? Math.max(actorCount, actors.size()) : actors.size();
+        String first = actors.get(0).getUsername();
+        if (total == 1) {
+            return first;
+        }
+        if (total == 2 && actors.size() >= 2) {
+            return first + " và " + actors.get(1).getUsername();
+        }
+        return first + " và " + (total - 1) + " người khác";
+    }
+}
@@ -5,14 +5,17 @@ import com.example.backend.dto.request.PostCreateRequest;
 import com.example.backend.dto.response.PostResponse;
 import com.example.backend.entity.Post;
 import com.example.backend.entity.User;
+import com.example.backend.event.UserProfileChangedEvent;
 import com.example.backend.exception.BadRequestException;
 import com.example.backend.exception.ForbiddenException;
 import com.example.backend.exception.ResourceNotFoundException;
 import com.example.backend.mapper.PostMapper;
 import com.example.backend.repository.*;
 import com.example.backend.service.FileUploadService;
+import com.example.backend.service.NotificationService;
 import com.example.backend.service.PostService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -35,6 +38,8 @@ public class PostServiceImpl implements PostService {
     private final FileUploadService fileUploadService;
     private final PostMapper postMapper;
     private final SavedPostRepository savedPostRepository;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public PostResponse createPost(PostCreateRequest request, MultipartFile image, Long currentUserId) {
@@ -57,6 +62,7 @@ public class PostServiceImpl implements PostService {
         post.setImageUrl(imageUrl);
 
         Post savedPost = postRepository.save(post);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(this, currentUserId));
 
         return postMapper.toResponse(savedPost, 0L, 0L, false, false);
     }
@@ -200,7 +206,10 @@ public class PostServiceImpl implements PostService {
         fileUploadService.deleteFile(post.getImageUrl());
 
         // Xóa post (cascade sẽ tự động xóa likes và comments)
+        // notifications là bảng partition, không có FK cascade nên xoá tường minh
+        notificationService.deletePostNotifications(postId, currentUserId);
         postRepository.delete(post);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(this, currentUserId));
     }
 
     @Override
@@ -0,0 +1,181 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.dto.response.ReadReceiptResponse;
+import com.example.backend.entity.ConversationInbox;
+import com.example.backend.entity.ConversationInboxId;
+import com.example.backend.metrics.MetricsSource;
+import com.example.backend.repository.ConversationInboxRepository;
+import com.example.backend.repository.ConversationParticipantRepository;
+import com.example.backend.service.ConversationInboxService;
+import com.example.backend.service.ReadReceiptService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read receipt có debounce: cuộn qua một thread gọi markRead cho từng tin nhắn, nhưng mỗi
+ * (user, conversation) chỉ giữ id lớn nhất trong bộ nhớ (merge nguyên tử trên ConcurrentHashMap).
+ * Mỗi chu kỳ flush ghi tất cả trong một transaction: một UPDATE last_read_message_id (chỉ tiến, không lùi,
+ * không vượt last_message_id của inbox)
+ * và một lần đếm lại số chưa đọc của inbox cho mỗi key, rồi đẩy read receipt cho người còn lại.
+ *
+ * Read state chưa flush bị mất nếu node dừng đột ngột; lần đọc sau sẽ ghi lại.
+ */
+@Service
+@Slf4j
+public class ReadReceiptServiceImpl implements ReadReceiptService, MetricsSource {
+
+    private static final String RECEIPT_DESTINATION = "/queue/read-receipts";
+
+    private final ConversationParticipantRepository participantRepository;
+    private final ConversationInboxRepository inboxRepository;
+    private final ConversationInboxService inboxService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Key, Long> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public ReadReceiptServiceImpl(ConversationParticipantRepository participantRepository,
+                                  ConversationInboxRepository inboxRepository,
+                                  ConversationInboxService inboxService,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.participantRepository = participantRepository;
+        this.inboxRepository = inboxRepository;
+        this.inboxService = inboxService;
+        this.messagingTemplate = messagingTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void markRead(Long userId, Long conversationId, Long messageId) {
+        requested.increment();
+        pending.merge(new Key(userId, conversationId), messageId, Math::max);
+    }
+
+    /**
+     * Ghi các read state đang chờ xuống DB và đẩy read receipt cho participant còn lại
+     */
+    @Scheduled(fixedDelayString = "${app.messages.read-receipts.flush-interval:PT1S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // remove() từng key: markRead đến sau đó tạo entry mới và được ghi ở chu kỳ kế tiếp
+        Map<Key, Long> batch = new LinkedHashMap<>();
+        for (Key key : pending.keySet()) {
+            Long messageId = pending.remove(key);
+            if (messageId != null) {
+                batch.put(key, messageId);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Receipt> receipts;
+        try {
+            receipts = transactionTemplate.execute(status -> write(batch));
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Failed to write {} read receipts, will retry: {}", batch.size(), e.getMessage());
+            batch.forEach((key, messageId) -> pending.merge(key, messageId, Math::max));
+            return;
+        }
+        flushes.increment();
+
+        LocalDateTime readAt = LocalDateTime.now();
+        for (Receipt receipt : receipts) {
+            messagingTemplate.convertAndSendToUser(receipt.recipientUsername(), RECEIPT_DESTINATION,
+                    ReadReceiptResponse.builder()
+                            .conversationId(receipt.key().conversationId())
+                            .readerId(receipt.key().userId())
+                            .lastReadMessageId(receipt.lastReadMessageId())
+                            .readAt(readAt)
+                            .build());
+        }
+    }
+
+    private List<Receipt> write(Map<Key, Long> batch) {
+        List<Receipt> receipts = new ArrayList<>(batch.size());
+        batch.forEach((key, messageId) -> {
+            // messageId do client gửi: không cho đọc vượt tin nhắn cuối thực sự của conversation
+            // (id lớn tuỳ ý sẽ làm mọi tin nhắn đến sau bị coi là đã đọc)
+            Optional<ConversationInbox> inbox = inboxRepository.findById(
+                    new ConversationInboxId(key.userId(), key.conversationId()));
+            Long lastMessageId = inbox.map(ConversationInbox::getLastMessageId).orElse(null);
+            if (lastMessageId == null) {
+                skipped.increment();
+                return;
+            }
+            long readUpTo = Math.min(messageId, lastMessageId);
+
+            // 0 dòng: không phải participant, hoặc đã đọc tới id này rồi => không đẩy receipt
+            if (participantRepository.advanceLastRead(key.conversationId(), key.userId(), readUpTo) == 0) {
+                skipped.increment();
+                return;
+            }
+            written.increment();
+            inboxService.markRead(key.userId(), key.conversationId(), readUpTo);
+
+            inbox.map(ConversationInbox::getOtherUsername)
+                    .ifPresent(username -> receipts.add(new Receipt(key, readUpTo, username)));
+        });
+        return receipts;
+    }
+
+    /**
+     * Ghi nốt read state đang chờ khi tắt ứng dụng
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush read receipts on shutdown", e);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "messages.readReceipts";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("requested", requested.sum());
+        metrics.put("written", written.sum());
+        metrics.put("skipped", skipped.sum());
+        metrics.put("pending", pending.size());
+        metrics.put("flushes", flushes.sum());
+        metrics.put("failures", failures.sum());
+        return metrics;
+    }
+
+    private record Key(Long userId, Long conversationId) {
+    }
+
+    private record Receipt(Key key, Long lastReadMessageId, String recipientUsername) {
+    }
+}
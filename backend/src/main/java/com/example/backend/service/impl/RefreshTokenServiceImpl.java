@@ -0,0 +1,101 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.RefreshToken;
+import com.example.backend.exception.UnauthorizedException;
+import com.example.backend.repository.RefreshTokenRepository;
+import com.example.backend.service.RefreshTokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh token dạng opaque (256 bit ngẫu nhiên), DB chỉ lưu SHA-256 nên lộ bảng cũng không dùng được token.
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    
+    private static final int TOKEN_BYTES = 32;
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration refreshTokenValidity;
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   @Value("${app.jwt.refresh-expiration:P14D}") Duration refreshTokenValidity) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenValidity = refreshTokenValidity;
+    }
+    
+    @Override
+    @Transactional
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID().toString());
+    }
+    
+    // noRollbackFor: khi phát hiện reuse, việc revoke cả family phải được commit dù vẫn ném lỗi
+    @Override
+    @Transactional(noRollbackFor = UnauthorizedException.class)
+    public RotatedRefreshToken rotate(String refreshToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(refreshToken))
+            .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+        
+        LocalDateTime now = LocalDateTime.now();
+        // Update có điều kiện: hai request đồng thời với cùng token thì chỉ một request rotate được
+        if (current.isRevoked() || refreshTokenRepository.markRevoked(current.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            log.warn("Refresh token reuse detected for user {}, revoked {} tokens in family",
+                current.getUserId(), revoked);
+            throw new UnauthorizedException("Refresh token has been revoked");
+        }
+        if (current.isExpired(now)) {
+            throw new UnauthorizedException("Refresh token has expired");
+        }
+        
+        String next = create(current.getUserId(), current.getFamilyId());
+        return new RotatedRefreshToken(current.getUserId(), next);
+    }
+    
+    @Override
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+            .filter(token -> !token.isRevoked())
+            .ifPresent(token -> refreshTokenRepository.markRevoked(token.getId(), LocalDateTime.now()));
+    }
+    
+    private String create(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        
+        RefreshToken token = RefreshToken.builder()
+            .userId(userId)
+            .tokenHash(hash(rawToken))
+            .familyId(familyId)
+            .expiresAt(LocalDateTime.now().plus(refreshTokenValidity))
+            .build();
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+    
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.RevokedAccessToken;
+import com.example.backend.repository.RefreshTokenRepository;
+import com.example.backend.repository.RevokedAccessTokenRepository;
+import com.example.backend.security.JwtTokenProvider;
+import com.example.backend.security.TokenDenyList;
+import com.example.backend.security.VerifiedToken;
+import com.example.backend.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+    
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenDenyList denyList;
+    private final JwtTokenProvider tokenProvider;
+    
+    @Override
+    @Transactional
+    public void revokeAccessToken(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            // Token cũ không có jti: không revoke riêng lẻ được, chỉ chờ hết hạn
+            return;
+        }
+        revokedAccessTokenRepository.save(RevokedAccessToken.builder()
+            .tokenId(token.getTokenId())
+            .userId(token.getUserId())
+            .expiresAt(toLocalDateTime(token.getExpiresAt()))
+            .build());
+        
+        afterCommit(() -> denyList.revokeToken(token.getTokenId(), token.getExpiresAt()));
+    }
+    
+    @Override
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        Instant now = Instant.now();
+        // Sau mốc này mọi access token phát hành trước cutoff đều đã tự hết hạn
+        Instant expiresAt = now.plus(tokenProvider.getAccessTokenValidity());
+        
+        revokedAccessTokenRepository.save(RevokedAccessToken.builder()
+            .userId(userId)
+            .revokedBefore(toLocalDateTime(now))
+            .expiresAt(toLocalDateTime(expiresAt))
+            .build());
+        int refreshTokens = refreshTokenRepository.revokeAllByUserId(userId, toLocalDateTime(now));
+        log.info("Revoked all sessions of user {} ({} refresh tokens)", userId, refreshTokens);
+        
+        afterCommit(() -> denyList.revokeAllBefore(userId, now, expiresAt));
+    }
+    
+    /**
+     * Dọn các bản ghi đã hết hạn (không còn ảnh hưởng tới token nào)
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int revoked = revokedAccessTokenRepository.deleteExpired(now);
+        int refresh = refreshTokenRepository.deleteExpired(now);
+        if (revoked > 0 || refresh > 0) {
+            log.debug("Deleted {} expired revocations and {} expired refresh tokens", revoked, refresh);
+        }
+    }
+    
+    /**
+     * Chỉ cập nhật deny-list in-memory khi transaction commit thành công
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
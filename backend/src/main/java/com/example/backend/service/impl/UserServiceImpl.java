@@ -1,16 +1,21 @@
 package com.example.backend.service.impl;
 
+import com.example.backend.cache.UserProfileCache;
 import com.example.backend.dto.request.PasswordChangeRequest;
 import com.example.backend.dto.request.UserUpdateRequest;
 import com.example.backend.dto.response.UserResponse;
 import com.example.backend.entity.User;
+import com.example.backend.event.UserCredentialsChangedEvent;
+import com.example.backend.event.UserProfileChangedEvent;
 import com.example.backend.exception.ResourceNotFoundException;
 import com.example.backend.mapper.UserMapper;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.service.FileUploadService;
+import com.example.backend.service.TokenRevocationService;
 import com.example.backend.service.UserService;
 import com.example.backend.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,26 +32,29 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final FileUploadService fileUploadService;
+    private final UserProfileCache userProfileCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationService tokenRevocationService;
     
     @Override
     public UserResponse getCurrentUser(Long userId) {
-        User user = userRepository.findById(userId)
+        return userProfileCache.getById(userId)
+            .map(profile -> userMapper.toUserResponse(profile, userId))
             .orElseThrow(() -> new RuntimeException("User not found"));
-        return userMapper.toUserResponse(user, userId);
     }
     
     @Override
     public UserResponse getUserByUsername(String username, Long currentUserId) {
-        User user = userRepository.findByUsername(username)
+        return userProfileCache.getByUsername(username)
+            .map(profile -> userMapper.toUserResponse(profile, currentUserId))
             .orElseThrow(() -> new RuntimeException("User not found with username: " + username));
-        return userMapper.toUserResponse(user, currentUserId);
     }
     
     @Override
     public UserResponse getUserById(Long userId, Long currentUserId) {
-        User user = userRepository.findById(userId)
+        return userProfileCache.getById(userId)
+            .map(profile -> userMapper.toUserResponse(profile, currentUserId))
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return userMapper.toUserResponse(user, currentUserId);
     }
     
     @Override
@@ -67,6 +75,7 @@ public class UserServiceImpl implements UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(this, userId));
         return userMapper.toUserResponse(updatedUser, userId);
     }
     
@@ -82,6 +91,9 @@ public class UserServiceImpl implements UserService {
         
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        // Đăng xuất mọi phiên cũ: access token phát hành trước thời điểm này và mọi refresh token
+        tokenRevocationService.revokeAllForUser(userId);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(this, userId));
     }
     
     @Override
@@ -143,6 +155,7 @@ public class UserServiceImpl implements UserService {
 
         // Lưu vào database
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(this, currentUserId));
 
         // Convert sang Response
         return UserResponse.builder()
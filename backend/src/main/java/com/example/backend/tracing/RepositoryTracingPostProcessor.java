@@ -0,0 +1,32 @@
+package com.example.backend.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gắn interceptor đo span "db" vào các Spring Data repository (vốn đã là AOP proxy).
+ * Khi request không được sample, interceptor chỉ tốn một lần đọc ThreadLocal.
+ */
+@Component
+public class RepositoryTracingPostProcessor implements BeanPostProcessor {
+
+    private static final MethodInterceptor DB_SPAN_INTERCEPTOR = invocation -> {
+        if (!RequestTracing.isActive()) {
+            return invocation.proceed();
+        }
+        try (RequestTracing.Span ignored = RequestTracing.span("db")) {
+            return invocation.proceed();
+        }
+    };
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository<?, ?> && bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, DB_SPAN_INTERCEPTOR);
+        }
+        return bean;
+    }
+}
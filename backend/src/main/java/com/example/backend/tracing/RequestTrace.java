@@ -0,0 +1,71 @@
+package com.example.backend.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dữ liệu trace của một request được sample: request id + thời gian cộng dồn theo từng span (auth, db, serialization...).
+ * Chỉ được truy cập từ thread đang xử lý request nên không cần đồng bộ.
+ */
+public final class RequestTrace {
+
+    private final String requestId;
+    private final long startNanos;
+    private final Map<String, SpanStats> spans = new LinkedHashMap<>();
+    private long serializationStartNanos = -1;
+
+    RequestTrace(String requestId, long startNanos) {
+        this.requestId = requestId;
+        this.startNanos = startNanos;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    void record(String span, long durationNanos) {
+        spans.computeIfAbsent(span, k -> new SpanStats()).add(durationNanos);
+    }
+
+    void markSerializationStart(long nanos) {
+        if (serializationStartNanos < 0) {
+            serializationStartNanos = nanos;
+        }
+    }
+
+    /**
+     * Đóng span serialization (nếu đã được mở bởi ResponseBodyAdvice) tại thời điểm kết thúc request
+     */
+    void finish(long endNanos) {
+        if (serializationStartNanos >= 0) {
+            record("serialization", endNanos - serializationStartNanos);
+            serializationStartNanos = -1;
+        }
+    }
+
+    Map<String, SpanStats> getSpans() {
+        return spans;
+    }
+
+    static final class SpanStats {
+        private int count;
+        private long totalNanos;
+
+        private void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getTotalNanos() {
+            return totalNanos;
+        }
+    }
+}
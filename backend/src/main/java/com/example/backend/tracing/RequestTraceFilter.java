@@ -0,0 +1,101 @@
+package com.example.backend.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Filter ngoài cùng: gán request id (MDC + header X-Request-Id) cho mọi request,
+ * và với các request được sample thì ghi một dòng trace có cấu trúc vào logger "request-trace"
+ * (logger này đi qua async appender, xem logback-spring.xml).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    private static final Logger traceLog = LoggerFactory.getLogger("request-trace");
+
+    private final RequestTraceSettings settings;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = resolveRequestId(request);
+        MDC.put(MDC_REQUEST_ID, requestId);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        RequestTrace trace = shouldSample() ? new RequestTrace(requestId, System.nanoTime()) : null;
+        if (trace != null) {
+            RequestTracing.begin(trace);
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (trace != null) {
+                RequestTracing.end();
+                long endNanos = System.nanoTime();
+                trace.finish(endNanos);
+                traceLog.info(format(trace, request, response, endNanos));
+            }
+            MDC.remove(MDC_REQUEST_ID);
+        }
+    }
+
+    private boolean shouldSample() {
+        if (!settings.isEnabled()) {
+            return false;
+        }
+        double rate = settings.getSampleRate();
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private String resolveRequestId(HttpServletRequest request) {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (StringUtils.hasText(requestId) && requestId.length() <= 64) {
+            return requestId;
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    private String format(RequestTrace trace, HttpServletRequest request, HttpServletResponse response, long endNanos) {
+        StringBuilder line = new StringBuilder(160)
+                .append("requestId=").append(trace.getRequestId())
+                .append(" method=").append(request.getMethod())
+                .append(" path=").append(request.getRequestURI())
+                .append(" status=").append(response.getStatus())
+                .append(" totalMs=").append(toMillis(endNanos - trace.getStartNanos()));
+
+        for (Map.Entry<String, RequestTrace.SpanStats> span : trace.getSpans().entrySet()) {
+            line.append(' ').append(span.getKey()).append("Ms=").append(toMillis(span.getValue().getTotalNanos()));
+            if (span.getValue().getCount() > 1) {
+                line.append(' ').append(span.getKey()).append("Count=").append(span.getValue().getCount());
+            }
+        }
+        return line.toString();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.backend.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình tracing, có thể đổi lúc runtime qua /api/admin/tracing.
+ * Giá trị khởi tạo lấy từ app.tracing.*
+ */
+@Component
+public class RequestTraceSettings {
+
+    private volatile boolean enabled;
+    private volatile double sampleRate;
+
+    public RequestTraceSettings(@Value("${app.tracing.enabled:false}") boolean enabled,
+                                @Value("${app.tracing.sample-rate:0.01}") double sampleRate) {
+        this.enabled = enabled;
+        setSampleRate(sampleRate);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+}
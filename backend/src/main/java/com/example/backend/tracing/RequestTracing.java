@@ -0,0 +1,70 @@
+package com.example.backend.tracing;
+
+/**
+ * Điểm truy cập tĩnh để đo span trong request hiện tại.
+ *
+ * Khi request không được sample, {@link #span(String)} trả về span no-op dùng chung,
+ * nên chi phí trên hot path chỉ là một lần đọc ThreadLocal.
+ *
+ * <pre>
+ * try (RequestTracing.Span ignored = RequestTracing.span("auth")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class RequestTracing {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private RequestTracing() {
+    }
+
+    public static Span span(String name) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return Span.NOOP;
+        }
+        return new Span(trace, name, System.nanoTime());
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void markSerializationStart() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.markSerializationStart(System.nanoTime());
+        }
+    }
+
+    static void begin(RequestTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static class Span implements AutoCloseable {
+
+        private static final Span NOOP = new Span(null, null, 0);
+
+        private final RequestTrace trace;
+        private final String name;
+        private final long startNanos;
+
+        private Span(RequestTrace trace, String name, long startNanos) {
+            this.trace = trace;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (trace != null) {
+                trace.record(name, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
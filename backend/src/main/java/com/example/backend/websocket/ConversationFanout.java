@@ -0,0 +1,55 @@
+package com.example.backend.websocket;
+
+import com.example.backend.metrics.MetricsSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fan-out tin nhắn nhóm: một lần publish lên /topic/conversations/{id}, broker tự giao cho mọi session
+ * đang subscribe (thay vì convertAndSendToUser cho từng thành viên). Quyền subscribe được kiểm tra
+ * ở {@link ConversationSubscriptionInterceptor}; thành viên offline đồng bộ lại qua inbox / sync API.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConversationFanout implements MetricsSource {
+
+    public static final String TOPIC_PREFIX = "/topic/conversations/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final LongAdder publishes = new LongAdder();
+    private final LongAdder totalPublishMicros = new LongAdder();
+    private final AtomicLong maxPublishMicros = new AtomicLong();
+
+    public void publish(Long conversationId, Object payload) {
+        long startedAt = System.nanoTime();
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + conversationId, payload);
+
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+        publishes.increment();
+        totalPublishMicros.add(elapsedMicros);
+        maxPublishMicros.accumulateAndGet(elapsedMicros, Math::max);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "messages.fanout";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long count = publishes.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("publishes", count);
+        metrics.put("avgPublishMicros", count == 0 ? 0.0 : (double) totalPublishMicros.sum() / count);
+        metrics.put("maxPublishMicros", maxPublishMicros.get());
+        return metrics;
+    }
+}
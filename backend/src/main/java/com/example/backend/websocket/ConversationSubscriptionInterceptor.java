@@ -0,0 +1,100 @@
+package com.example.backend.websocket;
+
+import com.example.backend.cache.ConversationMembershipCache;
+import com.example.backend.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chỉ thành viên mới nhận được tin nhắn của /topic/conversations/{id} (kiểm tra qua {@link ConversationMembershipCache}):
+ * - Inbound: SUBSCRIBE của người không phải thành viên bị bỏ qua; destination dạng pattern dưới /topic, /queue
+ *   (chứa '*' hoặc '{', simple broker coi là pattern) bị từ chối để không vượt qua được kiểm tra theo id
+ * - Outbound: kiểm tra lại khi broker giao MESSAGE cho từng session, để thành viên vừa bị xoá khỏi nhóm
+ *   không còn nhận tin nhắn qua subscription cũ (chỉ đọc cache, không query DB)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final String[] BROKER_PREFIXES = {"/topic", "/queue"};
+
+    private final ConversationMembershipCache membershipCache;
+    private final OnlineUserRegistry onlineUsers;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getDestination() == null) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+
+        if (accessor.getMessageType() == SimpMessageType.SUBSCRIBE) {
+            if (isBrokerPattern(destination)) {
+                log.debug("Rejected pattern subscription to {}", destination);
+                return null;
+            }
+            if (!destination.startsWith(ConversationFanout.TOPIC_PREFIX)) {
+                return message;
+            }
+            Long conversationId = parseConversationId(destination);
+            Long userId = userId(accessor);
+            if (conversationId == null || userId == null || !membershipCache.isMember(conversationId, userId)) {
+                log.debug("Rejected subscription to {} for user {}", destination, userId);
+                return null;
+            }
+            return message;
+        }
+
+        if (accessor.getMessageType() == SimpMessageType.MESSAGE
+                && destination.startsWith(ConversationFanout.TOPIC_PREFIX)) {
+            Long conversationId = parseConversationId(destination);
+            String sessionId = accessor.getSessionId();
+            Long userId = sessionId != null ? onlineUsers.userIdOf(sessionId).orElse(null) : null;
+            if (conversationId == null || userId == null || !membershipCache.isMember(conversationId, userId)) {
+                log.debug("Dropped delivery of {} to session {}", destination, accessor.getSessionId());
+                return null;
+            }
+        }
+        return message;
+    }
+
+    private static boolean isBrokerPattern(String destination) {
+        if (destination.indexOf('*') < 0 && destination.indexOf('{') < 0) {
+            return false;
+        }
+        for (String prefix : BROKER_PREFIXES) {
+            if (destination.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long parseConversationId(String destination) {
+        String rest = destination.substring(ConversationFanout.TOPIC_PREFIX.length());
+        int end = rest.indexOf('/');
+        try {
+            return Long.valueOf(end < 0 ? rest : rest.substring(0, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long userId(SimpMessageHeaderAccessor accessor) {
+        if (accessor.getUser() instanceof UsernamePasswordAuthenticationToken authentication
+                && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.backend.websocket;
+
+import com.example.backend.dto.request.MessageRequest;
+import com.example.backend.dto.response.MessageResponse;
+import com.example.backend.ratelimit.StompRateLimitInterceptor;
+import com.example.backend.service.MessageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Đẩy tin nhắn real-time sau khi đã ghi xuống DB (listener của {@link MessageService#sendMessage}):
+ * - 1-1: /user/queue/messages cho sender và recipient; nhóm: một lần publish qua {@link ConversationFanout}
+ * - Tin nhắn bị hàng đợi ghi bỏ, hoặc bị từ chối ngay vì hàng đợi đầy: báo sender trên /user/queue/errors
+ *   (type MESSAGE_NOT_SAVED) để client đánh dấu gửi lỗi / gửi lại thay vì tin nhắn biến mất âm thầm;
+ *   recipient không nhận gì
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MessageDelivery implements MessageService.WriteListener {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ConversationFanout conversationFanout;
+    private final TypingIndicatorRelay typingIndicatorRelay;
+
+    /**
+     * Chỉ báo lỗi cho sender (gửi qua REST: sender đã có response, recipient đồng bộ qua inbox / sync API)
+     */
+    private final MessageService.WriteListener failureNoticeOnly = new MessageService.WriteListener() {
+        @Override
+        public void persisted(MessageResponse message) {
+        }
+
+        @Override
+        public void dropped(MessageResponse message) {
+            MessageDelivery.this.dropped(message);
+        }
+    };
+
+    public MessageService.WriteListener failureNoticeOnly() {
+        return failureNoticeOnly;
+    }
+
+    @Override
+    public void persisted(MessageResponse message) {
+        if (message.getRecipientUsername() == null) {
+            // Nhóm: một lần publish lên topic của conversation cho mọi thành viên đang online
+            conversationFanout.publish(message.getConversationId(), message);
+        } else {
+            messagingTemplate.convertAndSendToUser(message.getSenderUsername(), "/queue/messages", message);
+            messagingTemplate.convertAndSendToUser(message.getRecipientUsername(), "/queue/messages", message);
+            // Tin nhắn đã tới => người nhận không cần thấy "đang gõ" nữa
+            typingIndicatorRelay.stoppedTyping(message.getSenderId(), message.getRecipientId());
+        }
+        log.debug("Message {} delivered", message.getId());
+    }
+
+    /**
+     * Gửi qua STOMP bị từ chối trước khi vào hàng đợi ghi (quá tải): tin nhắn chưa có id nên client
+     * nhận lại conversation / recipient để khớp với tin nhắn đang chờ, và thời gian nên chờ trước khi gửi lại
+     */
+    public void rejected(String senderUsername, MessageRequest request, long retryAfterSeconds) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "MESSAGE_NOT_SAVED");
+        payload.put("conversationId", request.getConversationId());
+        payload.put("recipientId", request.getRecipientId());
+        payload.put("retryAfterSeconds", retryAfterSeconds);
+        messagingTemplate.convertAndSendToUser(senderUsername, StompRateLimitInterceptor.ERROR_QUEUE, payload);
+    }
+
+    @Override
+    public void dropped(MessageResponse message) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "MESSAGE_NOT_SAVED");
+        payload.put("messageId", message.getId());
+        payload.put("conversationId", message.getConversationId());
+        payload.put("createdAt", message.getCreatedAt());
+        messagingTemplate.convertAndSendToUser(message.getSenderUsername(),
+                StompRateLimitInterceptor.ERROR_QUEUE, payload);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.backend.websocket;
+
+import com.example.backend.metrics.MetricsSource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bản đồ trong bộ nhớ userId -> (username, các session STOMP) của user đang kết nối tới node này,
+ * cập nhật từ connect / disconnect ({@link WebSocketEventListener}).
+ *
+ * Username lấy từ principal của session, đúng với tên mà convertAndSendToUser dùng để route,
+ * nên tín hiệu tạm thời (typing) định tuyến được mà không cần đọc DB.
+ */
+@Component
+public class OnlineUserRegistry implements MetricsSource {
+
+    private final ConcurrentHashMap<Long, OnlineUser> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> userIdBySession = new ConcurrentHashMap<>();
+
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+
+    public void connected(Long userId, String username, String sessionId) {
+        connects.increment();
+        userIdBySession.put(sessionId, userId);
+        users.compute(userId, (id, current) -> {
+            OnlineUser user = current != null ? current : new OnlineUser(username, ConcurrentHashMap.newKeySet());
+            user.sessionIds().add(sessionId);
+            return user;
+        });
+    }
+
+    public void disconnected(String sessionId) {
+        Long userId = userIdBySession.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        disconnects.increment();
+        // Xoá user khi session cuối cùng đóng (compute nguyên tử với connected của cùng user)
+        users.computeIfPresent(userId, (id, user) -> {
+            user.sessionIds().remove(sessionId);
+            return user.sessionIds().isEmpty() ? null : user;
+        });
+    }
+
+    /**
+     * Username để route tới user; empty nếu user không có session nào trên node này
+     */
+    public Optional<String> usernameOf(Long userId) {
+        OnlineUser user = users.get(userId);
+        return user != null ? Optional.of(user.username()) : Optional.empty();
+    }
+
+    /**
+     * User của một session đang kết nối tới node này
+     */
+    public Optional<Long> userIdOf(String sessionId) {
+        return Optional.ofNullable(userIdBySession.get(sessionId));
+    }
+
+    public boolean isOnline(Long userId) {
+        return users.containsKey(userId);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "websocket.sessions";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("onlineUsers", users.size());
+        metrics.put("sessions", userIdBySession.size());
+        metrics.put("connects", connects.sum());
+        metrics.put("disconnects", disconnects.sum());
+        return metrics;
+    }
+
+    private record OnlineUser(String username, Set<String> sessionIds) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.backend.websocket;
+
+import com.example.backend.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chuyển tiếp typing indicator hoàn toàn trong bộ nhớ (không đọc / ghi DB):
+ * - Mỗi (sender, recipient) chỉ được đẩy tối đa một lần mỗi throttle-interval; frame đến trong khoảng đó
+ *   chỉ gia hạn trạng thái đang gõ
+ * - Không nhận frame nào trong typing-timeout => tự đẩy "stopped typing" cho recipient (client đóng tab,
+ *   mất mạng... không cần gửi frame dừng)
+ * - Recipient không online trên node này thì bỏ qua (convertAndSendToUser cũng không giao được)
+ *
+ * Client nhận senderId trên /queue/typing (bắt đầu gõ) và /queue/typing.stopped (dừng gõ).
+ */
+@Component
+public class TypingIndicatorRelay implements MetricsSource {
+
+    private static final String TYPING_DESTINATION = "/queue/typing";
+    private static final String STOPPED_DESTINATION = "/queue/typing.stopped";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final OnlineUserRegistry onlineUsers;
+    private final long throttleNanos;
+    private final long timeoutNanos;
+
+    private final ConcurrentHashMap<Key, Long> lastForwarded = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, Long> expiresAt = new ConcurrentHashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder offline = new LongAdder();
+    private final LongAdder stopped = new LongAdder();
+
+    public TypingIndicatorRelay(SimpMessagingTemplate messagingTemplate,
+                                OnlineUserRegistry onlineUsers,
+                                @Value("${app.websocket.typing.throttle-interval:PT2S}") Duration throttleInterval,
+                                @Value("${app.websocket.typing.timeout:PT5S}") Duration timeout) {
+        this.messagingTemplate = messagingTemplate;
+        this.onlineUsers = onlineUsers;
+        this.throttleNanos = throttleInterval.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Sender đang gõ cho recipient
+     */
+    public void typing(Long senderId, Long recipientId) {
+        received.increment();
+        Key key = new Key(senderId, recipientId);
+        long now = System.nanoTime();
+        expiresAt.put(key, now + timeoutNanos);
+
+        // Chỉ một frame trong mỗi throttle-interval giành được quyền đẩy
+        long forwardedAt = lastForwarded.compute(key,
+                (k, last) -> last != null && now - last < throttleNanos ? last : now);
+        if (forwardedAt != now) {
+            throttled.increment();
+            return;
+        }
+        send(key, TYPING_DESTINATION);
+    }
+
+    /**
+     * Sender dừng gõ (gửi tin nhắn, xoá nội dung...): đẩy ngay "stopped typing" nếu đang ở trạng thái gõ
+     */
+    public void stoppedTyping(Long senderId, Long recipientId) {
+        Key key = new Key(senderId, recipientId);
+        if (expiresAt.remove(key) != null) {
+            lastForwarded.remove(key);
+            send(key, STOPPED_DESTINATION);
+        }
+    }
+
+    /**
+     * Trạng thái gõ quá typing-timeout không được gia hạn => "stopped typing"
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.typing.sweep-interval:PT0.5S}")
+    public void expireIdle() {
+        long now = System.nanoTime();
+        expiresAt.forEach((key, expiry) -> {
+            // remove(key, value): frame mới gia hạn trong lúc quét thì giữ lại
+            if (now - expiry >= 0 && expiresAt.remove(key, expiry)) {
+                lastForwarded.remove(key);
+                send(key, STOPPED_DESTINATION);
+            }
+        });
+    }
+
+    private void send(Key key, String destination) {
+        onlineUsers.usernameOf(key.recipientId()).ifPresentOrElse(username -> {
+            messagingTemplate.convertAndSendToUser(username, destination, key.senderId());
+            if (STOPPED_DESTINATION.equals(destination)) {
+                stopped.increment();
+            } else {
+                forwarded.increment();
+            }
+        }, offline::increment);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "websocket.typing";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("received", received.sum());
+        metrics.put("forwarded", forwarded.sum());
+        metrics.put("throttled", throttled.sum());
+        metrics.put("stopped", stopped.sum());
+        metrics.put("recipientOffline", offline.sum());
+        metrics.put("activeTyping", expiresAt.size());
+        return metrics;
+    }
+
+    private record Key(Long senderId, Long recipientId) {
+    }
+}
@@ -1,11 +1,13 @@
 
 package com.example.backend.websocket;
 
+import com.example.backend.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
@@ -21,6 +23,7 @@ import java.security.Principal;
 public class WebSocketEventListener {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final OnlineUserRegistry onlineUserRegistry;
 
     /**
      * Event khi user connect WebSocket
@@ -33,6 +36,12 @@ public class WebSocketEventListener {
         if (user != null) {
             log.info("✅ WebSocket CONNECTED: User {} (Session: {})", 
                     user.getName(), headerAccessor.getSessionId());
+
+            // Ghi nhận id -> username / session để route tín hiệu tạm thời mà không cần DB
+            if (user instanceof UsernamePasswordAuthenticationToken token
+                    && token.getPrincipal() instanceof UserPrincipal userPrincipal) {
+                onlineUserRegistry.connected(userPrincipal.getId(), user.getName(), headerAccessor.getSessionId());
+            }
             
             // Có thể broadcast user online status
             // messagingTemplate.convertAndSend("/topic/user.online", user.getName());
@@ -46,6 +55,7 @@ public class WebSocketEventListener {
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         Principal user = headerAccessor.getUser();
+        onlineUserRegistry.disconnected(event.getSessionId());
         
         if (user != null) {
             log.info("❌ WebSocket DISCONNECTED: User {} (Session: {})", 
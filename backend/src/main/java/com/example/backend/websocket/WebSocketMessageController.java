@@ -1,16 +1,17 @@
 package com.example.backend.websocket;
 
 import com.example.backend.dto.request.MessageRequest;
+import com.example.backend.dto.request.ReadReceiptRequest;
 import com.example.backend.dto.response.MessageResponse;
-import com.example.backend.entity.User;  
-import com.example.backend.repository.UserRepository;
+import com.example.backend.exception.ServiceUnavailableException;
+import com.example.backend.ratelimit.RateLimit;
 import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.MessageService;
+import com.example.backend.service.ReadReceiptService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Controller;
 
@@ -22,84 +23,72 @@ import java.security.Principal;
 public class WebSocketMessageController {
 
     private final MessageService messageService;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final UserRepository userRepository; 
+    private final ReadReceiptService readReceiptService;
+    private final MessageDelivery messageDelivery;
+    private final TypingIndicatorRelay typingIndicatorRelay;
 
+    @RateLimit(capacity = 60, perSeconds = 60)
     @MessageMapping("/chat.send")
     public void sendMessage(@Payload MessageRequest messageRequest, Principal principal) {
         
         try {
             Long senderId = getUserIdFromPrincipal(principal);
-            
-            log.info("========== WEBSOCKET SEND MESSAGE ==========");
-            log.info("Principal name (username): {}", principal.getName());
-            log.info("Sender ID: {}", senderId);
-            log.info("Recipient ID: {}", messageRequest.getRecipientId());
-            log.info("Content: {}", messageRequest.getContent());
 
             if (senderId == null) {
                 log.error("❌ Sender ID is NULL");
                 return;
             }
 
-            // Save message to database
-            MessageResponse messageResponse = messageService.sendMessage(senderId, messageRequest);
+            log.debug("WebSocket: User {} sending message to user {} / conversation {}",
+                    senderId, messageRequest.getRecipientId(), messageRequest.getConversationId());
 
-            log.info("✅ Message saved to database with ID: {}", messageResponse.getId());
-
-            // ⭐ Lấy username của sender (đã có sẵn từ principal)
-            String senderUsername = principal.getName();
-            
-            // ⭐ Lấy username của recipient từ database
-            User recipient = userRepository.findById(messageRequest.getRecipientId())
-                    .orElseThrow(() -> new RuntimeException("Recipient not found"));
-            String recipientUsername = recipient.getUsername();
-            
-            log.info("📤 Sending to sender username: {}", senderUsername);
-            messagingTemplate.convertAndSendToUser(
-                    senderUsername,
-                    "/queue/messages",
-                    messageResponse
-            );
-
-            log.info("📤 Sending to recipient username: {}", recipientUsername);
-            messagingTemplate.convertAndSendToUser(
-                    recipientUsername,
-                    "/queue/messages",
-                    messageResponse
-            );
-
-            log.info("✅ Messages sent successfully to both users");
-            log.info("===========================================");
+            // Xếp hàng ghi; tin nhắn chỉ được đẩy cho sender / recipient sau khi đã ghi xuống DB
+            MessageResponse messageResponse = messageService.sendMessage(senderId, messageRequest, messageDelivery);
+            log.debug("Message {} accepted", messageResponse.getId());
 
+        } catch (ServiceUnavailableException e) {
+            // Hàng đợi ghi đầy / đang tắt: REST trả 503, STOMP phải báo lại cho sender
+            log.warn("Rejected message from {}: {}", principal.getName(), e.getMessage());
+            messageDelivery.rejected(principal.getName(), messageRequest, e.getRetryAfterSeconds());
         } catch (Exception e) {
             log.error("❌ Error sending message", e);
-            e.printStackTrace();
         }
     }
 
+    /**
+     * Client báo đã đọc tới messageId (gửi thoải mái khi cuộn; server tự gộp trước khi ghi DB)
+     */
+    @RateLimit(capacity = 30, perSeconds = 10)
+    @MessageMapping("/chat.read")
+    public void markRead(@Payload ReadReceiptRequest request, Principal principal) {
+        Long userId = getUserIdFromPrincipal(principal);
+        if (userId == null || request.getConversationId() == null || request.getMessageId() == null) {
+            return;
+        }
+        readReceiptService.markRead(userId, request.getConversationId(), request.getMessageId());
+    }
+
+    /**
+     * Typing indicator: xử lý hoàn toàn trong bộ nhớ (throttle + tự hết hạn), không đọc DB
+     */
+    @RateLimit(capacity = 10, perSeconds = 5)
     @MessageMapping("/chat.typing")
     public void sendTypingIndicator(@Payload Long recipientId, Principal principal) {
-        try {
-            Long senderId = getUserIdFromPrincipal(principal);
-            
-            log.debug("Principal type: {}", principal.getClass().getName());
-            log.debug("Principal name: {}", principal.getName());
-            log.debug("Principal object type: {}", principal.getClass().getSimpleName());
-            log.debug("WebSocket: User {} is typing to user {}", senderId, recipientId);
+        Long senderId = getUserIdFromPrincipal(principal);
+        if (senderId == null || recipientId == null) {
+            return;
+        }
+        typingIndicatorRelay.typing(senderId, recipientId);
+    }
 
-            // ⭐ Lấy username của recipient
-            User recipient = userRepository.findById(recipientId)
-                    .orElseThrow(() -> new RuntimeException("Recipient not found"));
-            
-            messagingTemplate.convertAndSendToUser(
-                    recipient.getUsername(),  // ⭐ Dùng username
-                    "/queue/typing",
-                    senderId
-            );
-        } catch (Exception e) {
-            log.error("Error sending typing indicator", e);
+    @RateLimit(capacity = 10, perSeconds = 5)
+    @MessageMapping("/chat.typing.stop")
+    public void stopTypingIndicator(@Payload Long recipientId, Principal principal) {
+        Long senderId = getUserIdFromPrincipal(principal);
+        if (senderId == null || recipientId == null) {
+            return;
         }
+        typingIndicatorRelay.stoppedTyping(senderId, recipientId);
     }
 
     private Long getUserIdFromPrincipal(Principal principal) {
@@ -0,0 +1,15 @@
+-- Flyway migration script: V10 -- Read receipts (last read message per participant)
+
+ALTER TABLE conversation_participants
+    ADD COLUMN last_read_message_id BIGINT NULL;
+
+-- Số chưa đọc = COUNT tin nhắn có id > last_read_message_id trong conversation:
+-- index (conversation_id, id) cho phép đếm bằng range scan. Thay index một cột cũ (vẫn đủ cho FK).
+CREATE INDEX idx_messages_conversation_msg ON messages (conversation_id, id);
+DROP INDEX idx_messages_conversation_id ON messages;
+
+-- Backfill: conversation không còn tin chưa đọc trong inbox coi như đã đọc tới tin nhắn cuối
+UPDATE conversation_participants p
+JOIN conversation_inbox i ON i.user_id = p.user_id AND i.conversation_id = p.conversation_id
+SET p.last_read_message_id = i.last_message_id
+WHERE i.unread_count = 0 AND i.last_message_id IS NOT NULL;
@@ -0,0 +1,15 @@
+-- Flyway migration script: V11 -- Group conversations
+
+-- conversation_participants đã hỗ trợ N người; chỉ cần phân loại conversation và thông tin nhóm
+ALTER TABLE conversations
+    ADD COLUMN type ENUM('DIRECT', 'GROUP') NOT NULL DEFAULT 'DIRECT',
+    ADD COLUMN name VARCHAR(100) NULL,
+    ADD COLUMN owner_id BIGINT NULL,
+    ADD CONSTRAINT fk_conversations_owner
+        FOREIGN KEY (owner_id) REFERENCES users(id)
+        ON DELETE SET NULL;
+
+-- Inbox của nhóm không có "người còn lại": dùng type + tên nhóm thay cho other_*
+ALTER TABLE conversation_inbox
+    ADD COLUMN conversation_type VARCHAR(10) NOT NULL DEFAULT 'DIRECT',
+    ADD COLUMN group_name VARCHAR(100) NULL;
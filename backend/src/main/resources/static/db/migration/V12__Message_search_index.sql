@@ -0,0 +1,28 @@
+-- Flyway migration script: V12 -- Inverted index for message search
+
+-- Một dòng cho mỗi (conversation, term, message). Primary key bắt đầu bằng conversation_id nên index
+-- được chia theo conversation: tìm kiếm đi từ các conversation của user (participants) rồi range theo term.
+-- Term đã được chuẩn hoá ở ứng dụng (chữ thường, bỏ dấu) nên so sánh nhị phân.
+CREATE TABLE message_search_terms (
+    conversation_id BIGINT NOT NULL,
+    term VARCHAR(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+    message_id BIGINT NOT NULL,
+    PRIMARY KEY (conversation_id, term, message_id),
+    INDEX idx_message_search_terms_message (message_id),
+    -- FK này bị thay bằng FK tới conversations ở V13 (term của tin nhắn đã lưu trữ vẫn phải còn):
+    -- xoá tin nhắn thì MessageSearchIndex.remove xoá term, xoá user thì trigger ở V14
+    CONSTRAINT fk_message_search_terms_message
+        FOREIGN KEY (message_id) REFERENCES messages(id)
+        ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Tiến độ backfill cho tin nhắn có trước index: job đi theo id từ last_message_id tới upto_message_id.
+-- Tin nhắn mới hơn được index ngay khi ghi nên không cần backfill.
+CREATE TABLE message_search_backfill (
+    id TINYINT PRIMARY KEY,
+    last_message_id BIGINT NOT NULL,
+    upto_message_id BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO message_search_backfill (id, last_message_id, upto_message_id)
+SELECT 1, 0, COALESCE(MAX(id), 0) FROM messages;
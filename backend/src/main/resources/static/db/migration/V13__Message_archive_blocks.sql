@@ -0,0 +1,29 @@
+-- Flyway migration script: V13 -- Cold storage for old message history
+
+-- Tin nhắn cũ của một conversation được gom thành block nén (mỗi block tối đa block-size tin nhắn liên tiếp
+-- theo id) và xoá khỏi messages. Block của một conversation không chồng nhau về khoảng id;
+-- unique key (conversation_id, last_message_id) dùng để tìm block chứa / trước / sau một id.
+CREATE TABLE message_archive_blocks (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    conversation_id BIGINT NOT NULL,
+    first_message_id BIGINT NOT NULL,
+    last_message_id BIGINT NOT NULL,
+    message_count INT NOT NULL,
+    codec VARCHAR(16) NOT NULL,
+    raw_bytes INT NOT NULL,
+    compressed_bytes INT NOT NULL,
+    payload MEDIUMBLOB NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_message_archive_blocks_conversation_last (conversation_id, last_message_id),
+    CONSTRAINT fk_message_archive_blocks_conversation
+        FOREIGN KEY (conversation_id) REFERENCES conversations(id)
+        ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+-- Term của tin nhắn đã lưu trữ vẫn phải tìm được: index tham chiếu conversation thay vì messages,
+-- xoá từng tin nhắn thì xoá term tường minh (MessageSearchIndex.remove)
+ALTER TABLE message_search_terms
+    DROP FOREIGN KEY fk_message_search_terms_message,
+    ADD CONSTRAINT fk_message_search_terms_conversation
+        FOREIGN KEY (conversation_id) REFERENCES conversations(id)
+        ON DELETE CASCADE;
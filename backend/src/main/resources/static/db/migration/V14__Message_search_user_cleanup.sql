@@ -0,0 +1,29 @@
+-- Flyway migration script: V14 -- Remove search terms of messages deleted together with their sender
+
+-- Từ V13 message_search_terms không còn FK tới messages: xoá user thì tin nhắn của user bị xoá theo
+-- (ON DELETE CASCADE của messages.sender_id) nhưng term thì không, vì cascade không kích hoạt trigger
+-- hay code ứng dụng. Trigger BEFORE DELETE trên users xoá term khi tin nhắn vẫn còn để join.
+-- Tin nhắn đã lưu trữ (block nén) của user bị xoá không xác định được bằng SQL: term của chúng không
+-- còn tìm ra kết quả (MessageArchiveReader bỏ qua sender không tồn tại) và bị xoá khi conversation bị xoá.
+DELIMITER //
+
+CREATE TRIGGER delete_search_terms_of_user_messages
+    BEFORE DELETE ON users
+    FOR EACH ROW
+BEGIN
+    DELETE t FROM message_search_terms t
+    JOIN messages m ON m.id = t.message_id
+    WHERE m.sender_id = OLD.id;
+END//
+
+DELIMITER ;
+
+-- Dọn term mồ côi đã có: message_id không còn trong messages và không nằm trong block lưu trữ nào
+DELETE t FROM message_search_terms t
+LEFT JOIN messages m ON m.id = t.message_id
+WHERE m.id IS NULL
+  AND NOT EXISTS (
+      SELECT 1 FROM message_archive_blocks b
+      WHERE b.conversation_id = t.conversation_id
+        AND t.message_id BETWEEN b.first_message_id AND b.last_message_id
+  );
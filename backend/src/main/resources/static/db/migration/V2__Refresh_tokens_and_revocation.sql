@@ -0,0 +1,35 @@
+-- Flyway migration script: V2 -- Refresh tokens and access-token revocation
+
+-- Table: refresh_tokens
+-- Refresh token dạng opaque, chỉ lưu SHA-256 (hex) của token.
+-- Các token cùng family_id thuộc cùng một chuỗi rotation; dùng lại token đã rotate => revoke cả family.
+CREATE TABLE refresh_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    token_hash CHAR(64) NOT NULL,
+    family_id CHAR(36) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_refresh_tokens_token_hash (token_hash),
+    INDEX idx_refresh_tokens_user_id (user_id),
+    INDEX idx_refresh_tokens_family_id (family_id),
+    CONSTRAINT fk_refresh_tokens_user
+        FOREIGN KEY (user_id) REFERENCES users(id)
+        ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: revoked_access_tokens
+-- Nguồn dữ liệu bền vững cho deny-list in-memory. Mỗi dòng là một trong hai loại:
+--   * token_id NOT NULL: revoke đúng một access token (logout)
+--   * revoked_before NOT NULL: revoke mọi access token của user phát hành trước thời điểm này (đổi mật khẩu)
+-- expires_at = thời điểm mà mọi token bị ảnh hưởng chắc chắn đã hết hạn; sau đó dòng có thể xoá.
+CREATE TABLE revoked_access_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token_id CHAR(36) NULL,
+    user_id BIGINT NOT NULL,
+    revoked_before TIMESTAMP NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_revoked_access_tokens_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
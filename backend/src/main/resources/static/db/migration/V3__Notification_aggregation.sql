@@ -0,0 +1,29 @@
+-- Flyway migration script: V3 -- Aggregated notifications
+
+-- Mỗi dòng notification giờ là một nhóm: (recipient, type, post, bucket thời gian)
+--   actor_count      số người (khác nhau) đã tác động trong bucket
+--   recent_actor_ids tối đa N id người tác động gần nhất, mới nhất đứng đầu (CSV)
+--   sender_id        người tác động gần nhất
+--   bucket_start     đầu bucket thời gian; NULL với các dòng cũ (trước khi gom nhóm)
+--   post_key         IFNULL(post_id, 0) để unique key hoạt động cả với NEW_FOLLOWER (post_id NULL)
+ALTER TABLE notifications
+    ADD COLUMN actor_count INT NOT NULL DEFAULT 1,
+    ADD COLUMN recent_actor_ids VARCHAR(255) NULL,
+    ADD COLUMN bucket_start TIMESTAMP NULL,
+    ADD COLUMN updated_at TIMESTAMP NULL,
+    ADD COLUMN post_key BIGINT AS (IFNULL(post_id, 0)) STORED;
+
+-- Dòng cũ: một actor, bucket_start NULL (MySQL cho phép nhiều NULL trong unique key nên không đụng nhau)
+UPDATE notifications
+SET recent_actor_ids = CAST(sender_id AS CHAR),
+    updated_at = created_at;
+
+ALTER TABLE notifications
+    MODIFY COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE UNIQUE INDEX uk_notifications_group
+    ON notifications (recipient_id, type, post_key, bucket_start);
+
+-- Danh sách notification sắp theo hoạt động mới nhất của nhóm
+CREATE INDEX idx_notifications_recipient_updated
+    ON notifications (recipient_id, updated_at);
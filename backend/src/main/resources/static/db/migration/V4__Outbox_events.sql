@@ -0,0 +1,28 @@
+-- Flyway migration script: V4 -- Transactional outbox
+
+-- Table: outbox_events
+-- Domain event được ghi cùng transaction với thay đổi nghiệp vụ, relay đọc và dispatch sau (at-least-once).
+--   available_at  thời điểm sớm nhất được (re)claim: dùng làm lease khi đang xử lý và backoff khi lỗi
+--   processed_at  NOT NULL khi đã dispatch xong (hoặc bỏ cuộc sau quá số lần thử, khi đó last_error NOT NULL)
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(200) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    available_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    processed_at TIMESTAMP(3) NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500) NULL,
+    INDEX idx_outbox_events_pending (processed_at, available_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: processed_events
+-- Đánh dấu event đã được một consumer xử lý, ghi cùng transaction với tác dụng của consumer
+-- => event bị dispatch lại (sau crash / hết lease) không bị xử lý hai lần.
+CREATE TABLE processed_events (
+    consumer VARCHAR(100) NOT NULL,
+    event_id BIGINT NOT NULL,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (consumer, event_id),
+    INDEX idx_processed_events_processed_at (processed_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
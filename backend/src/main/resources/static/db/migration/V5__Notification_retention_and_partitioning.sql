@@ -0,0 +1,84 @@
+-- Flyway migration script: V5 -- Notification retention, archive table and monthly partitioning
+
+-- MySQL không cho phép foreign key trên bảng partition.
+-- ON DELETE CASCADE theo post được thay bằng xoá tường minh khi xoá post (PostServiceImpl.deletePost);
+-- notification mồ côi còn lại (user bị xoá) sẽ bị job retention dọn.
+ALTER TABLE notifications
+    DROP FOREIGN KEY fk_notifications_recipient,
+    DROP FOREIGN KEY fk_notifications_sender,
+    DROP FOREIGN KEY fk_notifications_post;
+
+-- Cột partition phải NOT NULL: dòng cũ (trước khi gom nhóm) lấy bucket_start = created_at
+UPDATE notifications SET created_at = updated_at WHERE created_at IS NULL;
+
+-- bucket_start = created_at có thể đụng uk_notifications_group (recipient_id, type, post_key, bucket_start):
+-- bỏ trước các dòng cũ sẽ trùng khoá. Dòng đã gom nhóm có cùng khoá thắng; giữa các dòng cũ, id nhỏ nhất thắng
+DELETE n FROM notifications n
+JOIN notifications g
+    ON g.recipient_id = n.recipient_id
+    AND g.type = n.type
+    AND g.post_key = n.post_key
+    AND g.bucket_start = n.created_at
+WHERE n.bucket_start IS NULL;
+
+DELETE n FROM notifications n
+JOIN notifications keep
+    ON keep.recipient_id = n.recipient_id
+    AND keep.type = n.type
+    AND keep.post_key = n.post_key
+    AND keep.created_at = n.created_at
+    AND keep.bucket_start IS NULL
+    AND keep.id < n.id
+WHERE n.bucket_start IS NULL;
+
+UPDATE notifications SET bucket_start = created_at WHERE bucket_start IS NULL;
+
+ALTER TABLE notifications
+    MODIFY COLUMN created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    MODIFY COLUMN bucket_start TIMESTAMP NOT NULL;
+
+-- (recipient_id) là tiền tố của index mới nên bỏ index cũ
+DROP INDEX idx_notifications_recipient_id ON notifications;
+CREATE INDEX idx_notifications_recipient_created
+    ON notifications (recipient_id, created_at);
+
+-- Mọi unique key (kể cả primary key) phải chứa cột partition.
+-- uk_notifications_group đã có bucket_start; id vẫn là AUTO_INCREMENT nên vẫn unique.
+ALTER TABLE notifications
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, bucket_start);
+
+-- Partition theo tháng của bucket_start. Các partition tháng tiếp theo được job retention tạo trước
+-- (tách từ p_future); partition đã quá hạn lưu giữ bị DROP nguyên khối.
+-- Cận partition phải là hằng số trong DDL nên câu lệnh được dựng từ ngày chạy migration:
+-- p_history (< đầu tháng hiện tại), tháng hiện tại, tháng sau, p_future.
+SET @month_0 = DATE_FORMAT(CURRENT_DATE, '%Y-%m-01');
+SET @month_1 = DATE_ADD(@month_0, INTERVAL 1 MONTH);
+SET @month_2 = DATE_ADD(@month_0, INTERVAL 2 MONTH);
+SET @partition_ddl = CONCAT(
+    'ALTER TABLE notifications PARTITION BY RANGE (UNIX_TIMESTAMP(bucket_start)) (',
+    'PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP(''', @month_0, ' 00:00:00'')), ',
+    'PARTITION p', DATE_FORMAT(@month_0, '%Y%m'),
+    ' VALUES LESS THAN (UNIX_TIMESTAMP(''', @month_1, ' 00:00:00'')), ',
+    'PARTITION p', DATE_FORMAT(@month_1, '%Y%m'),
+    ' VALUES LESS THAN (UNIX_TIMESTAMP(''', @month_2, ' 00:00:00'')), ',
+    'PARTITION p_future VALUES LESS THAN MAXVALUE)');
+PREPARE partition_notifications FROM @partition_ddl;
+EXECUTE partition_notifications;
+DEALLOCATE PREPARE partition_notifications;
+
+-- Bảng lạnh cho notification đã đọc quá N ngày: chỉ giữ các cột cần để tra cứu,
+-- bỏ recent_actor_ids / is_read / bucket_start, nén trang.
+CREATE TABLE notifications_archive (
+    id BIGINT PRIMARY KEY,
+    recipient_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    type ENUM('LIKE_POST', 'COMMENT_ON_POST', 'NEW_FOLLOWER') NOT NULL,
+    post_id BIGINT NULL,
+    actor_count INT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_notifications_archive_recipient (recipient_id, updated_at),
+    INDEX idx_notifications_archive_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci ROW_FORMAT=COMPRESSED;
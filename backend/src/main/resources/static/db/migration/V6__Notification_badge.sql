@@ -0,0 +1,29 @@
+-- Flyway migration script: V6 -- Per-recipient notification badge
+
+-- Mỗi lần một nhóm notification có hoạt động mới, nó nhận activity_seq tiếp theo của người nhận.
+-- (Không dùng id làm high-water mark vì nhóm được upsert tại chỗ: id cũ vẫn có thể có hoạt động mới.)
+ALTER TABLE notifications
+    ADD COLUMN activity_seq BIGINT NOT NULL DEFAULT 0;
+
+UPDATE notifications n
+JOIN (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY recipient_id ORDER BY updated_at, id) AS seq
+    FROM notifications
+) s ON s.id = n.id
+SET n.activity_seq = s.seq;
+
+-- Trạng thái badge của mỗi người nhận, cập nhật cùng transaction với upsert notification:
+--   activity_seq   seq lớn nhất đã cấp
+--   last_seen_seq  "đánh dấu tất cả đã đọc": mọi nhóm có activity_seq <= last_seen_seq coi như đã đọc
+--   unread_count   số nhóm chưa đọc (is_read = false AND activity_seq > last_seen_seq)
+CREATE TABLE notification_badge (
+    recipient_id BIGINT PRIMARY KEY,
+    unread_count INT NOT NULL DEFAULT 0,
+    last_seen_seq BIGINT NOT NULL DEFAULT 0,
+    activity_seq BIGINT NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO notification_badge (recipient_id, unread_count, last_seen_seq, activity_seq)
+SELECT recipient_id, SUM(is_read = false), 0, MAX(activity_seq)
+FROM notifications
+GROUP BY recipient_id;
@@ -0,0 +1,53 @@
+-- Flyway migration script: V7 -- Conversation inbox read model
+
+-- Một dòng cho mỗi (user, conversation): thông tin người còn lại + tin nhắn cuối + số tin chưa đọc,
+-- cập nhật cùng transaction với việc gửi tin. Danh sách inbox = một range scan trên
+-- (user_id, last_activity DESC), không join participants / messages.
+CREATE TABLE conversation_inbox (
+    user_id BIGINT NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    other_user_id BIGINT NULL,
+    other_username VARCHAR(50) NULL,
+    other_full_name VARCHAR(100) NULL,
+    other_avatar_url VARCHAR(255) NULL,
+    last_message_id BIGINT NULL,
+    last_message_preview VARCHAR(255) NULL,
+    last_message_type VARCHAR(20) NULL,
+    last_sender_id BIGINT NULL,
+    last_activity TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    unread_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, conversation_id),
+    INDEX idx_conversation_inbox_user_activity (user_id, last_activity DESC),
+    INDEX idx_conversation_inbox_conversation (conversation_id),
+    INDEX idx_conversation_inbox_other_user (other_user_id),
+    CONSTRAINT fk_conversation_inbox_user
+        FOREIGN KEY (user_id) REFERENCES users(id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_conversation_inbox_conversation
+        FOREIGN KEY (conversation_id) REFERENCES conversations(id)
+        ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill từ dữ liệu hiện có (conversation 1-1: người còn lại là participant khác mình)
+INSERT IGNORE INTO conversation_inbox
+    (user_id, conversation_id, other_user_id, other_username, other_full_name, other_avatar_url,
+     last_message_id, last_message_preview, last_message_type, last_sender_id, last_activity, unread_count)
+SELECT cp.user_id,
+       cp.conversation_id,
+       o.user_id,
+       u.username,
+       u.full_name,
+       u.avatar_url,
+       m.id,
+       LEFT(m.content, 255),
+       m.message_type,
+       m.sender_id,
+       COALESCE(m.created_at, c.updated_at, c.created_at, CURRENT_TIMESTAMP),
+       0
+FROM conversation_participants cp
+JOIN conversations c ON c.id = cp.conversation_id
+LEFT JOIN conversation_participants o ON o.conversation_id = cp.conversation_id AND o.user_id <> cp.user_id
+LEFT JOIN users u ON u.id = o.user_id
+LEFT JOIN messages m ON m.id = (
+    SELECT MAX(m2.id) FROM messages m2 WHERE m2.conversation_id = cp.conversation_id
+);
@@ -0,0 +1,32 @@
+-- Flyway migration script: V8 -- Canonical pair key for 1-1 conversations
+
+-- Mỗi cặp user (user_lo < user_hi) có đúng một conversation 1-1.
+-- Primary key trên cặp vừa là lookup O(1) vừa chặn việc tạo trùng khi hai tin nhắn đầu tiên gửi đồng thời.
+CREATE TABLE direct_conversations (
+    user_lo BIGINT NOT NULL,
+    user_hi BIGINT NOT NULL,
+    conversation_id BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_lo, user_hi),
+    UNIQUE KEY uk_direct_conversations_conversation (conversation_id),
+    CONSTRAINT fk_direct_conversations_conversation
+        FOREIGN KEY (conversation_id) REFERENCES conversations(id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_direct_conversations_user_lo
+        FOREIGN KEY (user_lo) REFERENCES users(id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_direct_conversations_user_hi
+        FOREIGN KEY (user_hi) REFERENCES users(id)
+        ON DELETE CASCADE,
+    CONSTRAINT chk_direct_conversations_order CHECK (user_lo < user_hi)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Backfill từ các conversation có đúng 2 participant; nếu một cặp đã có nhiều conversation
+-- (do race trước đây) thì giữ conversation cũ nhất
+INSERT IGNORE INTO direct_conversations (user_lo, user_hi, conversation_id)
+SELECT p1.user_id, p2.user_id, p1.conversation_id
+FROM conversation_participants p1
+JOIN conversation_participants p2
+    ON p2.conversation_id = p1.conversation_id AND p1.user_id < p2.user_id
+WHERE (SELECT COUNT(*) FROM conversation_participants p WHERE p.conversation_id = p1.conversation_id) = 2
+ORDER BY p1.conversation_id;
@@ -0,0 +1,14 @@
+-- Flyway migration script: V9 -- Application-assigned message ids
+
+-- Id tin nhắn do ứng dụng cấp trước khi insert (để ack trả id ngay và insert được theo lô).
+-- Mỗi node lấy một khối id bằng
+--   UPDATE message_id_sequence SET next_val = LAST_INSERT_ID(next_val + :blockSize) WHERE id = 1
+-- rồi cấp dần trong bộ nhớ. Cột messages.id vẫn AUTO_INCREMENT nhưng không còn được dùng để sinh id.
+CREATE TABLE message_id_sequence (
+    id TINYINT PRIMARY KEY,
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+-- Bắt đầu sau id lớn nhất hiện có để không trùng với tin nhắn cũ
+INSERT INTO message_id_sequence (id, next_val)
+SELECT 1, COALESCE(MAX(id), 0) + 1 FROM messages;
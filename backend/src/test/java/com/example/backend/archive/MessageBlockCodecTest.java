@@ -0,0 +1,70 @@
+package com.example.backend.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageBlockCodecTest {
+
+	private static final List<ArchivedMessage> MESSAGES = List.of(
+			new ArchivedMessage(101L, 7L, "hello", "text",
+					LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_789)),
+			new ArchivedMessage(102L, 8L, "Xin chào 👋 — tiếng Việt có dấu", null,
+					LocalDateTime.of(2024, 3, 1, 10, 15, 31, 1)),
+			new ArchivedMessage(103L, 7L, "", "image",
+					LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999_999_999)));
+
+	@Test
+	void roundTripsMessages() {
+		MessageBlockCodec.Encoded encoded = MessageBlockCodec.encode(MESSAGES);
+
+		List<ArchivedMessage> decoded = MessageBlockCodec.decode(
+				MessageBlockCodec.CODEC, encoded.payload(), encoded.rawBytes());
+
+		assertThat(decoded).containsExactlyElementsOf(MESSAGES);
+		assertThat(decoded.get(1).messageType()).isNull();
+		assertThat(decoded.get(0).createdAt().getNano()).isEqualTo(123_456_789);
+	}
+
+	@Test
+	void roundTripsEmptyBlock() {
+		MessageBlockCodec.Encoded encoded = MessageBlockCodec.encode(List.of());
+
+		assertThat(MessageBlockCodec.decode(MessageBlockCodec.CODEC, encoded.payload(), encoded.rawBytes()))
+				.isEmpty();
+	}
+
+	@Test
+	void rejectsTruncatedPayload() {
+		MessageBlockCodec.Encoded encoded = MessageBlockCodec.encode(MESSAGES);
+		byte[] truncated = Arrays.copyOf(encoded.payload(), encoded.payload().length / 2);
+
+		assertThatThrownBy(() -> MessageBlockCodec.decode(MessageBlockCodec.CODEC, truncated, encoded.rawBytes()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Corrupt archive block");
+	}
+
+	@Test
+	void rejectsCorruptPayload() {
+		byte[] garbage = {0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08};
+
+		assertThatThrownBy(() -> MessageBlockCodec.decode(MessageBlockCodec.CODEC, garbage, 64))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Corrupt archive block");
+	}
+
+	@Test
+	void rejectsUnknownCodec() {
+		MessageBlockCodec.Encoded encoded = MessageBlockCodec.encode(MESSAGES);
+
+		assertThatThrownBy(() -> MessageBlockCodec.decode("zstd", encoded.payload(), encoded.rawBytes()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Unsupported archive codec");
+	}
+
+}
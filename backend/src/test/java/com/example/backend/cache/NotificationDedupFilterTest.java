@@ -0,0 +1,74 @@
+package com.example.backend.cache;
+
+import com.example.backend.entity.Notification;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDedupFilterTest {
+
+	private static final int THREADS = 32;
+	private static final int ROUNDS = 200;
+
+	@Test
+	void admitsExactlyOneOfConcurrentDuplicates() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (int round = 0; round < ROUNDS; round++) {
+				NotificationDedupFilter filter = new NotificationDedupFilter(Duration.ofMinutes(1), 1000);
+				NotificationDedupFilter.Key key = new NotificationDedupFilter.Key(
+						1L, 2L, Notification.NotificationType.LIKE_POST, (long) round);
+
+				CountDownLatch ready = new CountDownLatch(THREADS);
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<Boolean>> results = new ArrayList<>(THREADS);
+				for (int i = 0; i < THREADS; i++) {
+					results.add(executor.submit(() -> {
+						ready.countDown();
+						start.await();
+						return filter.tryAcquire(key);
+					}));
+				}
+				assertThat(ready.await(5, TimeUnit.SECONDS)).isTrue();
+				start.countDown();
+
+				int admitted = 0;
+				for (Future<Boolean> result : results) {
+					if (result.get(5, TimeUnit.SECONDS)) {
+						admitted++;
+					}
+				}
+				assertThat(admitted).as("admitted in round %d", round).isEqualTo(1);
+				assertThat(filter.getMetrics())
+						.containsEntry("accepted", 1L)
+						.containsEntry("duplicates", (long) THREADS - 1);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void nullPostIdKeysAreDeduplicated() {
+		NotificationDedupFilter filter = new NotificationDedupFilter(Duration.ofMinutes(1), 1000);
+		NotificationDedupFilter.Key key = new NotificationDedupFilter.Key(
+				1L, 2L, Notification.NotificationType.NEW_FOLLOWER, null);
+
+		assertThat(filter.tryAcquire(key)).isTrue();
+		assertThat(filter.tryAcquire(new NotificationDedupFilter.Key(
+				1L, 2L, Notification.NotificationType.NEW_FOLLOWER, null))).isFalse();
+
+		filter.release(key);
+		assertThat(filter.tryAcquire(key)).isTrue();
+	}
+
+}